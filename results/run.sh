@@ -1,11 +1,14 @@
 #!/bin/bash
 
-# designed to run from benchmark root, then user copies txt files to a results/YYYYMMDDD dir
+# designed to run from benchmark root, then user copies txt files to a results/YYYYMMDDD dir and runs ../process.sh there
 
 # RAM-bounded tests of embedded KV stores
 
 rm -f out-?.csv out-?.tsv out-?.txt
 
+# each trial's dataset file needs as much space again as its entries (eg ~152 GB in run 6), so set DATASET_DIR to an existing directory on another disk if the temporary file system lacks room
+DATASET=${DATASET_DIR:+-Dlmdbjava.bench.datasetDir=$DATASET_DIR}
+
 # Run 1 compares LMDB impls with 1M x 100 byte values and LMDB-specific configuration options (~ 1 GB w/o overhead)
 java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 10m -tu ms -p sync=true,false -p forceSafe=true,false -p metaSync=true,false -p writeMap=true,false -rff out-1.csv LmdbJavaAgrona LmdbJavaByteBuffer LmdbJni LmdbLwjgl | tee out-1.txt
 
@@ -30,7 +33,7 @@ java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p intKey
 # Following tests exclude MvStore, as it gives "java.lang.OutOfMemoryError: Capacity: 2147483647"
 
 # Run 5 single shot (no warm up) with 10M x 2026 byte values (~19 GB w/o overhead)
-java -jar target/benchmarks.jar -rf csv -bm ss -wi 0 -i 1 -to 120m -tu ms -p sequential=true,false -p batchSize=1000000 -p num=10000000 -p valSize=2026 -e readCrc -e readRev -e readXxh64 -rff out-5.csv Chronicle LevelDb LmdbJavaAgrona LmdbJavaByteBuffer LmdbJni LmdbLwjgl RocksDb MapDb Xodus | tee out-5.txt
+java $DATASET -jar target/benchmarks.jar -rf csv -bm ss -wi 0 -i 1 -to 120m -tu ms -p sequential=true,false -p batchSize=1000000 -p num=10000000 -p valSize=2026 -e readCrc -e readRev -e readXxh64 -rff out-5.csv Chronicle LevelDb LmdbJavaAgrona LmdbJavaByteBuffer LmdbJni LmdbLwjgl RocksDb MapDb Xodus | tee out-5.txt
 
 # Following tests exclude MapDB as:
 # 1. valSize=8176 gives "Native memory allocation (mmap) failed to map 12288 bytes for committing reserved memory" with values of 8176 and above. Its performance on ~2 KB values above
@@ -46,4 +49,65 @@ java -jar target/benchmarks.jar -rf csv -bm ss -wi 0 -i 1 -to 120m -tu ms -p seq
 # Following tests switch to measurement in seconds given run durations
 
 # Run 6 single shot (no warm up) with 10M x 4080/8176/16368 byte values (~38/76/152 GB w/o overhead)
-java -jar target/benchmarks.jar -rf csv -bm ss -wi 0 -i 1 -to 360m -tu s -p sequential=false -p batchSize=1000000 -p num=10000000 -p valSize=4080,8176,16368 -e readCrc -e readRev -e readXxh64 -rff out-6.csv Chronicle LevelDb LmdbJavaAgrona RocksDb | tee out-6.txt
+java $DATASET -jar target/benchmarks.jar -rf csv -bm ss -wi 0 -i 1 -to 360m -tu s -p sequential=false -p batchSize=1000000 -p num=10000000 -p valSize=4080,8176,16368 -e readCrc -e readRev -e readXxh64 -rff out-6.csv Chronicle LevelDb LmdbJavaAgrona RocksDb | tee out-6.txt
+
+# Run 7 sweeps reader threads over one shared store with 1M x 100 byte values (JMH -t takes a single value, so each count is a separate run)
+for T in 1 2 4 8 16 32; do
+  java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -t $T -rff out-7-t$T.csv ".*\.read(Key|Seq)Mt" | tee out-7-t$T.txt
+done
+
+# Run 8 measures per-operation read latency under a concurrent writer (95/5 and 50/50 read/write mixes, 1 writer + 7 readers)
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ns -tg 7,1 -p writePct=5,50 -rff out-8.csv ".*\.mixed" | tee out-8.txt
+
+# Run 9 replays YCSB core workloads A-F (100K operations per invocation) against 1M x 100 byte values
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p workload=A,B,C,D,E,F -rff out-9.csv ".*\.ycsb" | tee out-9.txt
+
+# Run 10 seeks to random keys and reads short forward ranges (10K seeks per invocation) against 1M x 100 byte values
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p rangeLength=10,100,1000 -rff out-10.csv ".*\.readRange" | tee out-10.txt
+
+# Run 11 overwrites, deletes and churns (delete all + reinsert all, 5 cycles) a populated store of 1M x 100 byte values
+java -jar target/benchmarks.jar -rf csv -bm ss -wi 0 -i 3 -to 60m -tu ms -p sequential=false -p churnCycles=5 -rff out-11.csv ".*\.(update|delete|churn)" | tee out-11.txt
+
+# Run 12 reads 1M x 100 byte values starting from a cold page cache in each iteration
+java -jar target/benchmarks.jar -rf csv -bm ss -wi 0 -i 3 -to 60m -tu ms -p sequential=false -p coldCache=true -rff out-12.csv ".*\.read(Key|Seq|Range)$" | tee out-12.txt
+
+# Run 13 times close + reopen + first get of a store of 10M x 100 byte values, after clean and unclean shutdowns
+java -jar target/benchmarks.jar -rf csv -bm ss -wi 0 -i 5 -to 60m -tu ms -p sequential=false -p num=10000000 -rff out-13.csv ".*\.(open|recover)$" | tee out-13.txt
+
+# Run 14 compares per-key and batched point lookups of 1M x 100 byte values in random order
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p batchGetSize=10,100,1000 -rff out-14.csv ".*\.readKey(Batch)?$" | tee out-14.txt
+
+# Run 15 measures the cost of producing 1M x 100 byte entries without a store, from the shared dataset and by formatting each entry
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p intKey=true,false -p valRandom=true,false -rff out-15.csv Generator | tee out-15.txt
+
+# Run 16 profiles heap allocation and GC pauses of each store writing and reading 1M x 100 byte values
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -prof gc -prof org.lmdbjava.bench.AllocationProfiler -rff out-16.csv ".*\.(write|readKey|readSeq)$" | tee out-16.txt
+
+# Run 17 compares durable commits of 1-100 entries (10K entries per invocation, ie 100-10K commits)
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p num=10000 -p txnSize=1,10,100 -p durability=none,commit-sync,group-commit-10 -rff out-17.csv ".*\.write$" | tee out-17.txt
+
+# Run 18 compares the end-to-end parallel sorted bulk load of LMDB with a plain write, both of 1M/10M x 100 byte values in random order
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p num=1000000,10000000 -rff out-18.csv "LmdbJava(Agrona|ByteBuffer)\.(bulkLoad|write)$" | tee out-18.txt
+
+# Run 19 compares writing and reading 1M x 100 byte values spread across 1-64 databases (DBIs, column families, stores or maps) in one environment
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p numDbs=1,8,64 -rff out-19.csv "(LmdbJava(Agrona|ByteBuffer)|RocksDb|Xodus|MapDb)\.(write|readKey)$" | tee out-19.txt
+
+# Run 20 compares storing and reading 1-100 values per key (100K keys x 100 byte values), with per-key read latency
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p num=100000 -p valuesPerKey=1,10,100 -p recordLatency=true -rff out-20.csv ".*\.dup(Read|Write)$" | tee out-20.txt
+
+# Run 21 compares block compression codecs of the LSM stores with 1M x 2026 byte values that are 0-75% compressible (LevelDB only offers snappy, and rocksdbjni 4.8 predates zstd)
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p valSize=2026 -p valRandom=true -p valCompressibility=0,50,75 -p compression=none,snappy,lz4 -rff out-21a.csv "RocksDb\.(write|readKey|readSeq)$" | tee out-21a.txt
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p valSize=2026 -p valRandom=true -p valCompressibility=0,50,75 -p compression=none,snappy -rff out-21b.csv "LevelDb\.(write|readKey|readSeq)$" | tee out-21b.txt
+
+# Run 22 compares RocksDB read path profiles (bloom filter, block cache, pinned index, direct reads) on point lookups of 10M x 100 byte values, with LMDB for reference
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p num=10000000 -p rocksProfile=default,point-lookup,pinned-index,direct-reads -p recordLatency=true -rff out-22.csv "(RocksDb|LmdbJavaAgrona)\.readKey$" | tee out-22.txt
+
+# Run 23 compares RocksDB bulk load modes (WAL, no WAL, prepared bulk load with a final compaction) with LMDB appends, loading 10M x 100 byte values in key order
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p num=10000000 -p writeMode=wal,no-wal,bulk-load -rff out-23.csv "(RocksDb|LmdbJavaAgrona)\.write$" | tee out-23.txt
+
+# Run 24 writes continuously for 10 minutes to each log-structured store (and LMDB) to expose write stalls from compaction and log GC, as a per-second time series in ingest-*.tsv
+java -jar target/benchmarks.jar -rf csv -f 1 -r 10m -to 60m -tu ms -p sequential=false -p num=10000000 -rff out-24.csv ".*\.ingest$" | tee out-24.txt
+
+# Run 25 times hot backups of 1M x 100 byte values while 3 threads read each key, with the read latency of an idle copying thread as the baseline
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ns -tg 1,3 -p sequential=false -p num=1000000 -p backup=idle,copy -rff out-25a.csv "(LmdbJavaAgrona|RocksDb|Xodus|MvStore)\.backup$" | tee out-25a.txt
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ns -tg 1,3 -p sequential=false -p num=1000000 -p backup=compact -rff out-25b.csv "LmdbJavaAgrona\.backup$" | tee out-25b.txt
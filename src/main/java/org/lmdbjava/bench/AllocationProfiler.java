@@ -0,0 +1,125 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.lang.Integer.parseInt;
+import java.lang.management.GarbageCollectorMXBean;
+import static java.lang.management.ManagementFactory.getGarbageCollectorMXBeans;
+import static java.lang.management.ManagementFactory.getThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import static org.openjdk.jmh.results.AggregationPolicy.AVG;
+import static org.openjdk.jmh.results.AggregationPolicy.SUM;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * JMH profiler reporting the heap allocated by, and the garbage collection
+ * pauses during, each benchmark. Enable it with
+ * <code>-prof org.lmdbjava.bench.AllocationProfiler</code> (usually alongside
+ * <code>-prof gc</code>), and the results appear as secondary results in the
+ * JMH output and CSV.
+ *
+ * <p>
+ * Allocation is the change in {@link com.sun.management.ThreadMXBean} allocated
+ * bytes, summed over all live threads. This includes the benchmark threads and
+ * any background threads of the store, but not threads that ended during the
+ * iteration. Results are:
+ *
+ * <ul>
+ * <li><code>alloc.bytes.norm</code>: bytes allocated per benchmark operation
+ * </li>
+ * <li><code>alloc.bytes.entry</code>: the same per entry (ie divided by
+ * <code>num</code>), as most benchmark operations visit every entry</li>
+ * <li><code>gc.pause.count</code> and <code>gc.pause.time</code>: collections
+ * and their accumulated time (in milliseconds) over all collectors</li>
+ * </ul>
+ */
+public final class AllocationProfiler implements InternalProfiler {
+
+  private long allocated;
+  private long gcCount;
+  private long gcTime;
+
+  private static long allocated() {
+    final com.sun.management.ThreadMXBean threads
+        = (com.sun.management.ThreadMXBean) getThreadMXBean();
+    long bytes = 0;
+    for (final long b : threads.getThreadAllocatedBytes(threads
+        .getAllThreadIds())) {
+      if (b > 0) {
+        bytes += b;
+      }
+    }
+    return bytes;
+  }
+
+  @Override
+  public Collection<? extends Result> afterIteration(final BenchmarkParams b,
+                                                      final IterationParams it,
+                                                      final IterationResult r) {
+    final long bytes = allocated() - allocated;
+    long count = 0;
+    long time = 0;
+    for (final GarbageCollectorMXBean gc : getGarbageCollectorMXBeans()) {
+      count += gc.getCollectionCount();
+      time += gc.getCollectionTime();
+    }
+    final long ops = r.getMetadata().getAllOps();
+    final List<Result> results = new ArrayList<>();
+    if (ops > 0) {
+      final double perOp = (double) bytes / ops;
+      results.add(new ScalarResult("alloc.bytes.norm", perOp, "B/op", AVG));
+      final String num = b.getParam("num");
+      if (num != null) {
+        results.add(new ScalarResult("alloc.bytes.entry",
+                                     perOp / parseInt(num),
+                                     "B/entry", AVG));
+      }
+    }
+    results.add(new ScalarResult("gc.pause.count", count - gcCount, "counts",
+                                 SUM));
+    results.add(new ScalarResult("gc.pause.time", time - gcTime, "ms", SUM));
+    return results;
+  }
+
+  @Override
+  public void beforeIteration(final BenchmarkParams b,
+                              final IterationParams it) {
+    gcCount = 0;
+    gcTime = 0;
+    for (final GarbageCollectorMXBean gc : getGarbageCollectorMXBeans()) {
+      gcCount += gc.getCollectionCount();
+      gcTime += gc.getCollectionTime();
+    }
+    allocated = allocated();
+  }
+
+  @Override
+  public String getDescription() {
+    return "Heap allocated per operation and entry, plus GC pauses";
+  }
+}
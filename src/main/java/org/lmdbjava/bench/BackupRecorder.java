@@ -0,0 +1,139 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import java.io.File;
+import java.io.IOException;
+import static java.lang.System.nanoTime;
+import static java.lang.System.out;
+import java.nio.channels.FileChannel;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Counts the copies made by the "backup" benchmarks, the bytes they wrote and
+ * the time spent making them.
+ *
+ * <p>
+ * JMH scores each copy, but not the amount copied, which differs by store and
+ * by whether the copy is compacted. This recorder reports the copy throughput
+ * alongside the size of a copy. Like {@link CommitRecorder}, a recorder is
+ * single-threaded: only the copying thread of the group uses it.
+ */
+final class BackupRecorder {
+
+  private long bytes;
+  private long copies;
+  private long last;
+  private boolean measuring;
+  private long nanos;
+
+  /**
+   * Copies the first bytes of a file that may still be growing, as a store's
+   * backup procedure lists its files with the length that is consistent.
+   *
+   * @param from  the store file
+   * @param to    the copy, which must not exist
+   * @param bytes the length to copy
+   * @throws IOException if the copy fails
+   */
+  static void copyFile(final File from, final File to, final long bytes)
+      throws IOException {
+    try (FileChannel in = FileChannel.open(from.toPath());
+         FileChannel dest = FileChannel.open(to.toPath(), CREATE_NEW, WRITE)) {
+      long pos = 0;
+      while (pos < bytes) {
+        pos += in.transferTo(pos, bytes - pos, dest);
+      }
+    }
+  }
+
+  /**
+   * Returns the bytes of the file, or of every file below the directory.
+   *
+   * @param file a file or directory
+   * @return its apparent size in bytes
+   */
+  static long size(final File file) {
+    if (!file.isDirectory()) {
+      return file.length();
+    }
+    final File[] files = file.listFiles();
+    if (files == null) {
+      return 0;
+    }
+    long size = 0;
+    for (final File f : files) {
+      size += size(f);
+    }
+    return size;
+  }
+
+  /**
+   * Sets whether copies are currently recorded. Used to exclude warm up
+   * iterations.
+   *
+   * @param measuring true during measurement iterations
+   */
+  void measuring(final boolean measuring) {
+    this.measuring = measuring;
+  }
+
+  /**
+   * Emits a <code>Backup</code> line to <code>System.out</code>, in the same
+   * tab-separated style as the <code>Commits</code> lines: the number of
+   * copies, then bytes/sec over the time spent copying and the bytes of the
+   * last copy.
+   *
+   * @param benchId the JMH benchmark ID
+   */
+  @SuppressWarnings("UseOfSystemOutOrSystemErr")
+  void report(final String benchId) {
+    if (copies == 0 || nanos == 0) {
+      return;
+    }
+    final double secs = (double) nanos / SECONDS.toNanos(1);
+    out.println("\nBackup\t" + copies
+                    + "\t" + (long) (bytes / secs)
+                    + "\t" + last
+                    + "\t" + benchId);
+  }
+
+  long start() {
+    return measuring ? nanoTime() : 0L;
+  }
+
+  /**
+   * Records one copy.
+   *
+   * @param start  the value returned by {@link #start()}
+   * @param target the file or directory the copy wrote
+   */
+  void stop(final long start, final File target) {
+    if (measuring) {
+      nanos += nanoTime() - start;
+      copies++;
+      last = size(target);
+      bytes += last;
+    }
+  }
+}
@@ -0,0 +1,254 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Runtime.getRuntime;
+import static java.lang.Thread.currentThread;
+import java.nio.ByteBuffer;
+import static java.nio.ByteBuffer.allocateDirect;
+import java.nio.MappedByteBuffer;
+import static java.util.Arrays.parallelSetAll;
+import static java.util.Arrays.parallelSort;
+import java.util.concurrent.ExecutorService;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+import static java.util.concurrent.locks.LockSupport.unpark;
+import static org.agrona.BufferUtil.address;
+import static org.agrona.IoUtil.unmap;
+import static org.agrona.UnsafeAccess.UNSAFE;
+
+/**
+ * Feeds every {@link Dataset} entry to a single writer thread in key order, as
+ * LMDB's <code>MDB_APPEND</code> requires.
+ *
+ * <p>
+ * The entries are first sorted in parallel (fork/join) as a primitive array of
+ * packed key and dataset index pairs. Worker threads then copy the sorted
+ * entries into the off-heap chunks of a bounded ring, which the writer consumes
+ * in order. A worker waits for the slot of its next chunk to be consumed, and
+ * the writer waits for its next chunk to be filled, so memory use is bounded by
+ * the ring rather than by {@link Common#num}. Keys must not be negative, as is
+ * the case for {@link Common#keys}.
+ *
+ * <p>
+ * Waiting threads park, and are unparked as soon as the chunk or slot they
+ * wait for is ready. The ring and worker threads are reused by each
+ * {@link #load(Appender)}, and released by {@link #close()}.
+ */
+final class BulkLoad implements AutoCloseable {
+
+  /**
+   * Receives each entry, in key order, on the writer thread.
+   */
+  interface Appender {
+
+    /**
+     * Appends the entry held in the given ring record.
+     *
+     * @param record the record, whose key is at {@link BulkLoad#key(int)}
+     */
+    void append(int record);
+  }
+
+  private static final int CHUNK_BYTES = 256 * 1_024;
+  private static final long INDEX_MASK = 0xFFFF_FFFFL;
+  /**
+   * Upper bound on a wait, so a wake up that races with parking only delays
+   * the waiting thread.
+   */
+  private static final long PARK_NANOS = 1_000_000;
+  private static final int SLOTS_PER_WORKER = 4;
+  private final int chunk;
+  private final AtomicLong consumed = new AtomicLong();
+  private final Dataset dataset;
+  private final AtomicReference<RuntimeException> failure
+      = new AtomicReference<>();
+  private final AtomicLongArray filled;
+  private final Thread[] fillers;
+  private final int keySize;
+  private final int[] keys;
+  private final int recordSize;
+  private final ByteBuffer ring;
+  private final long ringAddress;
+  private final int slots;
+  private final int threads;
+  private final ExecutorService workers;
+  private volatile Thread writer;
+
+  /**
+   * Creates the ring and worker threads for loading the given store.
+   *
+   * @param store   the store, whose keys and dataset are loaded
+   * @param threads worker threads, or 0 for one per spare processor
+   */
+  BulkLoad(final Common store, final int threads) {
+    this.threads = threads > 0 ? threads
+                       : max(1, getRuntime().availableProcessors() - 1);
+    dataset = store.dataset;
+    keys = store.keys;
+    keySize = store.keySize;
+    recordSize = store.keySize + store.valSize;
+    chunk = max(1, CHUNK_BYTES / recordSize);
+    slots = this.threads * SLOTS_PER_WORKER;
+    filled = new AtomicLongArray(slots);
+    fillers = new Thread[this.threads];
+    ring = allocateDirect(slots * chunk * recordSize);
+    ringAddress = address(ring);
+    workers = newFixedThreadPool(this.threads);
+  }
+
+  @Override
+  public void close() {
+    workers.shutdownNow();
+    // direct buffers are mapped byte buffers, so this frees the ring now
+    unmap((MappedByteBuffer) ring);
+  }
+
+  /**
+   * Address of the key of the given ring record. The value follows the key.
+   *
+   * @param record the ring record
+   * @return the off-heap address of the key
+   */
+  long key(final int record) {
+    return ringAddress + (long) record * recordSize;
+  }
+
+  /**
+   * Direct buffer view of the key of the given ring record, for bindings that
+   * take a buffer rather than an address.
+   *
+   * @param record the ring record
+   * @return a view of the key
+   */
+  ByteBuffer keyView(final int record) {
+    return view(record * recordSize, keySize);
+  }
+
+  /**
+   * Sorts the entries and passes each to the given appender, on the calling
+   * thread, in key order.
+   *
+   * @param appender receives each entry
+   */
+  void load(final Appender appender) {
+    final long[] order = new long[keys.length];
+    parallelSetAll(order, i -> (long) keys[i] << Integer.SIZE | i);
+    parallelSort(order);
+
+    final int chunks = (int) ((order.length + (long) chunk - 1) / chunk);
+    consumed.set(0);
+    failure.set(null);
+    for (int s = 0; s < slots; s++) {
+      filled.set(s, 0);
+    }
+    writer = currentThread();
+    for (int w = 0; w < threads; w++) {
+      final int first = w;
+      workers.execute(() -> fill(order, first, chunks));
+    }
+    try {
+      for (int c = 0; c < chunks; c++) {
+        final int slot = c % slots;
+        while (filled.get(slot) != c + 1) {
+          await();
+        }
+        final int from = c * chunk;
+        final int to = min(from + chunk, order.length);
+        for (int i = from; i < to; i++) {
+          appender.append(slot * chunk + i - from);
+        }
+        consumed.set(c + 1);
+        // the worker of the chunk that reuses this slot may be waiting for it
+        unpark(fillers[c % threads]);
+      }
+    } catch (final RuntimeException ex) {
+      // stops the workers waiting for the writer
+      failure.compareAndSet(null, ex);
+      throw ex;
+    } finally {
+      writer = null;
+    }
+  }
+
+  /**
+   * Ring records that {@link #key(int)} may be passed.
+   *
+   * @return the number of records
+   */
+  int records() {
+    return slots * chunk;
+  }
+
+  /**
+   * Direct buffer view of the value of the given ring record, for bindings
+   * that take a buffer rather than an address.
+   *
+   * @param record the ring record
+   * @return a view of the value
+   */
+  ByteBuffer valView(final int record) {
+    return view(record * recordSize + keySize, recordSize - keySize);
+  }
+
+  private void await() {
+    final RuntimeException ex = failure.get();
+    if (ex != null) {
+      throw new IllegalStateException("Bulk load failed", ex);
+    }
+    parkNanos(this, PARK_NANOS);
+  }
+
+  private void fill(final long[] order, final int first, final int chunks) {
+    fillers[first] = currentThread();
+    try {
+      for (int c = first; c < chunks; c += threads) {
+        while (c - consumed.get() >= slots) {
+          await();
+        }
+        final int slot = c % slots;
+        long dst = key(slot * chunk);
+        final int to = min(c * chunk + chunk, order.length);
+        for (int i = c * chunk; i < to; i++) {
+          final int idx = (int) (order[i] & INDEX_MASK);
+          UNSAFE.copyMemory(dataset.key(idx), dst, recordSize);
+          dst += recordSize;
+        }
+        filled.set(slot, c + 1);
+        unpark(writer);
+      }
+    } catch (final RuntimeException ex) {
+      failure.compareAndSet(null, ex);
+      unpark(writer);
+    }
+  }
+
+  private ByteBuffer view(final int offset, final int length) {
+    final ByteBuffer bb = ring.duplicate();
+    bb.limit(offset + length).position(offset);
+    return bb.slice();
+  }
+}
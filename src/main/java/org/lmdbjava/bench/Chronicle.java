@@ -22,7 +22,6 @@ package org.lmdbjava.bench;
 
 import java.io.File;
 import java.io.IOException;
-import static java.nio.ByteOrder.LITTLE_ENDIAN;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import net.openhft.chronicle.map.ChronicleMap;
 import static net.openhft.chronicle.map.ChronicleMap.of;
@@ -32,11 +31,14 @@ import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
 import static org.openjdk.jmh.annotations.Level.Invocation;
+import static org.openjdk.jmh.annotations.Level.Iteration;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import org.openjdk.jmh.annotations.Measurement;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
@@ -53,18 +55,46 @@ import org.openjdk.jmh.infra.Blackhole;
 public class Chronicle {
 
   // Chroncile Map does not provide ordered keys, so no CRC/XXH64/rev/prev test
+  @Benchmark
+  public void churn(final Updater u, final Blackhole bh) {
+    u.churn();
+  }
+
+  @Benchmark
+  public void delete(final Updater u, final Blackhole bh) {
+    u.delete();
+  }
+
+  @Benchmark
+  public void open(final Opener o, final Blackhole bh) {
+    o.close();
+    o.open();
+    o.firstGet(bh);
+  }
+
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) {
-    for (final int key : r.keys) {
-      if (r.intKey) {
-        r.wkb.putInt(0, key);
-      } else {
-        r.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
-      }
+    for (final int idx : r.readIndexes) {
+      r.dataset.key(idx, r.wkb.byteArray());
+      final long start = r.latency.start();
       bh.consume(r.map.getUsing(r.wkb.byteArray(), r.wvb.byteArray()));
+      r.latency.stop(start);
     }
   }
 
+  @Benchmark
+  public void readKeyMt(final ThreadReader t, final Blackhole bh) {
+    for (final int idx : t.r.readIndexes) {
+      t.r.dataset.key(idx, t.wkb.byteArray());
+      bh.consume(t.r.map.getUsing(t.wkb.byteArray(), t.wvb.byteArray()));
+    }
+  }
+
+  @Benchmark
+  public void update(final Updater u, final Blackhole bh) {
+    u.write();
+  }
+
   @Benchmark
   public void write(final Writer w, final Blackhole bh) {
     w.write();
@@ -91,7 +121,25 @@ public class Chronicle {
       super.setup(b);
       wkb = new UnsafeBuffer(new byte[keySize]);
       wvb = new UnsafeBuffer(new byte[valSize]);
+      open();
+    }
+
+    @Override
+    public void teardown() throws IOException {
+      reportSpaceBeforeClose();
+      close();
+      super.teardown();
+    }
+
+    void close() {
+      map.close();
+    }
 
+    /**
+     * Opens the store in {@link #tmp}, which may already hold data that was
+     * written before an earlier {@link #close()}.
+     */
+    void open() {
       try {
         map = of(byte[].class, byte[].class)
             .constantKeySizeBySample(new byte[keySize])
@@ -103,33 +151,42 @@ public class Chronicle {
       }
     }
 
+    void write() {
+      for (int i = 0; i < keys.length; i++) {
+        dataset.key(i, wkb.byteArray());
+        dataset.val(i, wvb.byteArray());
+        final long start = latency.start();
+        map.put(wkb.byteArray(), wvb.byteArray());
+        latency.stop(start);
+      }
+    }
+  }
+
+  /**
+   * Populated store that the "open" benchmark closes and reopens, reading one
+   * key so that any work deferred until first access is included. Only
+   * meaningful with a single benchmark thread.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Opener extends CommonChroncileMap {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write();
+    }
+
+    @TearDown(Trial)
     @Override
     public void teardown() throws IOException {
-      reportSpaceBeforeClose();
-      map.close();
       super.teardown();
     }
 
-    void write() {
-      final int rndByteMax = RND_MB.length - valSize;
-      int rndByteOffset = 0;
-      for (final int key : keys) {
-        if (intKey) {
-          wkb.putInt(0, key, LITTLE_ENDIAN);
-        } else {
-          wkb.putStringWithoutLengthUtf8(0, padKey(key));
-        }
-        if (valRandom) {
-          wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
-          rndByteOffset += valSize;
-          if (rndByteOffset >= rndByteMax) {
-            rndByteOffset = 0;
-          }
-        } else {
-          wvb.putInt(0, key);
-        }
-        map.put(wkb.byteArray(), wvb.byteArray());
-      }
+    void firstGet(final Blackhole bh) {
+      dataset.key(0, wkb.byteArray());
+      bh.consume(map.get(wkb.byteArray()));
     }
   }
 
@@ -143,6 +200,16 @@ public class Chronicle {
       super.write();
     }
 
+    @Setup(Iteration)
+    public void coldCacheIteration() {
+      if (!coldCache) {
+        return;
+      }
+      close();
+      dropPageCache(tmp);
+      open();
+    }
+
     @TearDown(Trial)
     @Override
     public void teardown() throws IOException {
@@ -150,6 +217,85 @@ public class Chronicle {
     }
   }
 
+  /**
+   * Per-thread key and value buffers over the shared {@link Reader} store,
+   * allowing read benchmarks to be run with any JMH thread count.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    Reader r;
+
+    /**
+     * Writable key buffer. Backed by a plain byte[] for Chroncile API ease.
+     */
+    MutableDirectBuffer wkb;
+
+    /**
+     * Writable value buffer. Backed by a plain byte[] for Chroncile API ease.
+     */
+    MutableDirectBuffer wvb;
+
+    @Setup(Trial)
+    public void setup(final Reader reader) {
+      r = reader;
+      wkb = new UnsafeBuffer(new byte[r.keySize]);
+      wvb = new UnsafeBuffer(new byte[r.valSize]);
+    }
+  }
+
+  /**
+   * Populated store for the "update", "delete" and "churn" benchmarks. It is
+   * rebuilt before each invocation, so every invocation starts from a store
+   * holding all {@link #keys}.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Updater extends CommonChroncileMap {
+
+    /**
+     * Number of delete-all and reinsert-all cycles in each "churn" invocation.
+     * Space used is reported after each cycle.
+     */
+    @Param("3")
+    int churnCycles;
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      // latency is only recorded by the "readKey" and "write" benchmarks
+      latency.measuring(false);
+      super.write();
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void churn() {
+      for (int cycle = 1; cycle <= churnCycles; cycle++) {
+        delete();
+        write();
+        reportSpaceUsed(tmp, "churn-" + cycle);
+      }
+    }
+
+    void delete() {
+      for (int i = 0; i < keys.length; i++) {
+        key(i);
+        map.remove(wkb.byteArray());
+      }
+    }
+
+    private void key(final int idx) {
+      dataset.key(idx, wkb.byteArray());
+    }
+  }
+
   @SuppressWarnings("checkstyle:javadoctype")
   @State(Benchmark)
   public static class Writer extends CommonChroncileMap {
@@ -0,0 +1,120 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.lang.System.nanoTime;
+import static java.lang.System.out;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Counts the commits (and the entries they carry) of the write benchmarks, and
+ * the time spent writing and committing them.
+ *
+ * <p>
+ * JMH scores a benchmark per invocation, which hides how many transactions an
+ * invocation committed. This recorder reports commits/sec alongside
+ * entries/sec, exposing the fixed cost of each transaction. Like
+ * {@link LatencyRecorder}, a recorder is single-threaded and does not allocate.
+ */
+final class CommitRecorder {
+
+  private long commits;
+  private long entries;
+  private boolean measuring;
+  private long nanos;
+  private boolean paused;
+  private String unsupported;
+
+  /**
+   * Sets whether commits are currently recorded. Used to exclude setup and warm
+   * up iterations.
+   *
+   * @param measuring true during measurement iterations
+   */
+  void measuring(final boolean measuring) {
+    this.measuring = measuring;
+  }
+
+  /**
+   * Suspends recording while a state populates its store within a measurement
+   * iteration (eg before each "update" invocation).
+   *
+   * @param paused true to suspend recording
+   */
+  void paused(final boolean paused) {
+    this.paused = paused;
+  }
+
+  /**
+   * Marks the commits of a store as not being real transaction commits, so
+   * that its <code>Commits</code> line gives the reason instead of rates that
+   * cannot be compared with other stores.
+   *
+   * @param reason why commits are not recorded, without tabs
+   */
+  void unsupported(final String reason) {
+    this.unsupported = reason;
+  }
+
+  /**
+   * Emits a <code>Commits</code> line to <code>System.out</code>, in the same
+   * tab-separated style as the <code>Bytes</code> lines: the number of
+   * commits, then commits/sec and entries/sec over the time spent writing.
+   *
+   * @param benchId the JMH benchmark ID
+   */
+  @SuppressWarnings("UseOfSystemOutOrSystemErr")
+  void report(final String benchId) {
+    if (commits == 0) {
+      return;
+    }
+    if (unsupported != null) {
+      out.println("\nCommits\tunsupported\t" + unsupported + "\t" + benchId);
+      return;
+    }
+    if (nanos == 0) {
+      return;
+    }
+    final double secs = (double) nanos / SECONDS.toNanos(1);
+    out.println("\nCommits\t" + commits
+                    + "\t" + (long) (commits / secs)
+                    + "\t" + (long) (entries / secs)
+                    + "\t" + benchId);
+  }
+
+  long start() {
+    return measuring && !paused ? nanoTime() : 0L;
+  }
+
+  /**
+   * Records one commit.
+   *
+   * @param start   the value returned by {@link #start()}
+   * @param entries the number of entries written by the transaction
+   */
+  void stop(final long start, final int entries) {
+    if (measuring && !paused) {
+      nanos += nanoTime() - start;
+      commits++;
+      this.entries += entries;
+    }
+  }
+}
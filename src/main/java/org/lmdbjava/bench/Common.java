@@ -22,20 +22,43 @@ package org.lmdbjava.bench;
 
 import java.io.File;
 import java.io.IOException;
+import static java.lang.Double.parseDouble;
 import static java.lang.Integer.BYTES;
+import static java.lang.Long.parseLong;
+import static java.lang.Math.floorMod;
+import static java.lang.Math.max;
+import static java.lang.System.arraycopy;
 import static java.lang.System.getProperty;
 import static java.lang.System.out;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.file.Files.readAllBytes;
+import static java.nio.file.Paths.get;
+import static java.util.Arrays.fill;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static java.util.regex.Pattern.compile;
 import java.util.zip.CRC32;
+import jnr.ffi.LibraryLoader;
+import jnr.ffi.annotations.Out;
 import jnr.posix.FileStat;
 import jnr.posix.POSIX;
 import static jnr.posix.POSIXFactory.getPOSIX;
+import org.agrona.MutableDirectBuffer;
+import static org.agrona.UnsafeAccess.UNSAFE;
 import org.agrona.collections.IntHashSet;
 import org.apache.commons.math3.random.BitsStreamGenerator;
 import org.apache.commons.math3.random.MersenneTwister;
+import static org.lmdbjava.bench.Zipfian.YCSB_THETA;
+import static org.openjdk.jmh.annotations.Level.Iteration;
+import static org.openjdk.jmh.annotations.Level.Trial;
 import org.openjdk.jmh.annotations.Param;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import static org.openjdk.jmh.runner.IterationType.MEASUREMENT;
 
 /**
  * Common JMH {@link State} superclass for all DB benchmark states.
@@ -49,17 +72,100 @@ import org.openjdk.jmh.infra.BenchmarkParams;
                    "checkstyle:visibilitymodifier"})
 public class Common {
 
+  static final String BACKUP_COMPACT = "compact";
+  static final String BACKUP_IDLE = "idle";
   static final byte[] RND_MB = new byte[1_048_576];
   static final int STRING_KEY_LENGTH = 16;
+  private static final String BACKUP_COPY = "copy";
+  private static final Pattern DISTRIBUTION
+      = compile("(\\w+)(?:\\((.*)\\))?");
+  private static final double HOTSPOT_DEFAULT = 0.2;
+  private static final int PERCENT = 100;
+  private static final long KB = 1_024;
+  private static final LibC LIBC = LibraryLoader.create(LibC.class).load("c");
+  private static final long MAP_FAILED = -1; // from sys/mman.h
+  private static final int MAP_SHARED = 1; // from sys/mman.h
+  private static final Pattern MAPPING
+      = compile("[0-9a-f]+-[0-9a-f]+(?:\\s+\\S+){4}\\s*(.*)");
+  private static final Pattern INGEST = compile(".*\\.ingest");
+  private static final Pattern NUM_DBS = compile(".*\\.(readKey|write)");
+  private static final int O_RDONLY = 0; // from fcntl.h
   private static final POSIX POSIX = getPOSIX();
+  private static final int POSIX_FADV_DONTNEED = 4; // from fcntl.h (Linux)
+  private static final int PROT_READ = 1; // from sys/mman.h
   private static final BitsStreamGenerator RND = new MersenneTwister();
+  private static final int RND_RUN = 16;
+  private static final byte[] RND_UNZEROED;
   private static final int S_BLKSIZE = 512; // from sys/stat.h
   private static final File TMP_BENCH;
 
+  /**
+   * What the copying thread of the "backup" group does: "copy" makes a hot
+   * backup of the store, "compact" makes one that omits free pages (only
+   * offered by LMDB) and "idle" does nothing, so that the "backupRead"
+   * latency is the baseline for the others.
+   */
+  @Param("copy")
+  String backup;
+
+  /**
+   * Copies of the "backup" benchmarks, only populated during measurement
+   * iterations. Emitted as a "Backup" line on completion.
+   */
+  BackupRecorder backups;
+
+  /**
+   * Whether the "read" benchmarks start each iteration with a cold OS page
+   * cache. If true, the store is closed, its files are dropped from the page
+   * cache and it is then reopened before every iteration, so the first touch
+   * of each page incurs I/O.
+   */
+  @Param("false")
+  boolean coldCache;
+
   File compact;
 
+  /**
+   * Commits of the write benchmarks, only populated during measurement
+   * iterations. Emitted as "Commits" lines on completion.
+   */
+  CommitRecorder commits;
+
   CRC32 crc;
 
+  /**
+   * Keys and values of every entry, which store write and "readKey" paths take
+   * in place of formatting their own. Generated with the {@link #keys}.
+   */
+  Dataset dataset;
+
+  /**
+   * Which commits of the write benchmarks are synced to disk: "none",
+   * "commit-sync" or "group-commit-N" (see {@link Durability}). Each store uses
+   * its own means of syncing (eg a synced write, an explicit sync call or a
+   * configuration setting). Chronicle Map has no commits and ignores this.
+   */
+  @Param("none")
+  String durability;
+
+  /**
+   * Determined during {@link #setup()} based on {@link #durability} value.
+   */
+  Durability durable;
+
+  /**
+   * Time series of the "ingest" benchmark, otherwise null. Emitted as a
+   * "Stalls" line and an "ingest-benchId.tsv" file on completion.
+   */
+  IngestRecorder ingest;
+
+  /**
+   * Entries per commit of the "ingest" benchmark. Its latencies are those of
+   * each commit.
+   */
+  @Param("100")
+  int ingestBatch;
+
   /**
    * Keys are always an integer, however they are actually stored as integers
    * (taking 4 bytes) or as zero-padded 16 byte strings. Storing keys as
@@ -68,10 +174,26 @@ public class Common {
   @Param("true")
   boolean intKey;
 
+  /**
+   * Order in which point-read benchmarks (eg "readKey") look up keys. This is
+   * one of "insert" (the same order as {@link #keys}), "uniform", "zipfian" or
+   * "zipfian(theta)", "hotspot" or "hotspot(fraction)" (the given fraction of
+   * keys receives the remaining fraction of reads, eg 0.2 gives 80/20), or
+   * "latest" (Zipfian, favouring the most recently inserted keys).
+   */
+  @Param("insert")
+  String keyDistribution;
+
   /**
    * Determined during {@link #setup()} based on {@link #intKey} value.
    */
   int keySize;
+
+  /**
+   * Per-operation latency of "readKey" and "write", only populated during
+   * measurement iterations and if {@link #recordLatency} is true.
+   */
+  LatencyRecorder latency;
   /**
    * Keys in designated (random/sequential) order.
    */
@@ -83,6 +205,50 @@ public class Common {
   @Param("1000000")
   int num;
 
+  /**
+   * Number of databases the keys are spread across, by key (see
+   * {@link #dbIndex(int)}). These are named DBIs for the LmdbJava bindings,
+   * column families for RocksDB, stores for Xodus and tree maps for MapDB, all
+   * within one environment. Values above 1 are only supported by the "write"
+   * and "readKey" benchmarks, and the other stores ignore this.
+   */
+  @Param("1")
+  int numDbs;
+
+  /**
+   * Whether "readKey" and "write" record the latency of each individual
+   * operation. Percentiles are emitted as "Latency" lines on completion.
+   */
+  @Param("false")
+  boolean recordLatency;
+
+  /**
+   * Database (see {@link #dbIndex(int)}) of each of the {@link #readKeys}.
+   */
+  int[] readDbs;
+
+  /**
+   * Indexes into {@link #keys} (and {@link #dataset}) of {@link #readKeys}.
+   */
+  int[] readIndexes;
+
+  /**
+   * Keys in {@link #keyDistribution} order. Pre-computed so the distribution
+   * adds no cost to each read. May contain repeated keys.
+   */
+  int[] readKeys;
+
+  /**
+   * Number of entries written (or updated or deleted) per transaction, or per
+   * write batch for stores without transactions. If 0, each store uses its
+   * usual size: a single transaction for LMDB, MapDB and MVStore writes,
+   * {@code batchSize} for RocksDB and LevelDB, and a size derived from
+   * {@link #valSize} for Xodus. Small values expose the fixed cost of each
+   * commit. Chronicle Map has no transactions and ignores this.
+   */
+  @Param("0")
+  int txnSize;
+
   /**
    * Whether the keys are to be inserted into the database in sequential order
    * (and in the "readKeys" case, read back in that order). For LMDB, sequential
@@ -96,6 +262,16 @@ public class Common {
 
   File tmp;
 
+  /**
+   * Approximate percentage (0-99) of each random value that a block compressor
+   * can remove, as that share of every 16 byte run of {@link #RND_MB} is
+   * zeroed. The default of 0 leaves random values incompressible. Only used
+   * if {@link #valRandom}, as values copied from the key are mostly zeros
+   * anyway.
+   */
+  @Param("0")
+  int valCompressibility;
+
   /**
    * Whether the values contain random bytes or are simply the same as the key.
    * If true, the random bytes are obtained sequentially from a 1 MB random byte
@@ -112,41 +288,117 @@ public class Common {
 
   static {
     RND.nextBytes(RND_MB);
+    RND_UNZEROED = RND_MB.clone();
     final String tmpParent = getProperty("java.io.tmpdir");
     TMP_BENCH = new File(tmpParent, "lmdbjava-benchmark-scratch");
   }
 
   public void setup(final BenchmarkParams b) throws IOException {
     keySize = intKey ? BYTES : STRING_KEY_LENGTH;
+    final boolean dbsSupported = NUM_DBS.matcher(b.getBenchmark()).matches();
+    if (numDbs < 1 || numDbs > 1 && !dbsSupported) {
+      throw new IllegalArgumentException("numDbs > 1 needs write or readKey");
+    }
+    if (valCompressibility < 0 || valCompressibility >= PERCENT) {
+      throw new IllegalArgumentException("valCompressibility must be 0..99");
+    }
+    zeroRandomBytes(RND_RUN * valCompressibility / PERCENT);
+    if (!BACKUP_COPY.equals(backup) && !BACKUP_COMPACT.equals(backup)
+            && !BACKUP_IDLE.equals(backup)) {
+      throw new IllegalArgumentException("Unknown backup " + backup);
+    }
+    if (INGEST.matcher(b.getBenchmark()).matches()) {
+      ingest = new IngestRecorder(this::compactionDebt);
+    }
+    durable = new Durability(durability);
+    initRecorders();
     crc = new CRC32();
-    final IntHashSet set = new IntHashSet(num);
-    keys = new int[num];
-    for (int i = 0; i < num; i++) {
-      if (sequential) {
-        keys[i] = i;
-      } else {
-        while (true) {
-          int candidateKey = RND.nextInt();
-          if (candidateKey < 0) {
-            candidateKey *= -1;
-          }
-          if (!set.contains(candidateKey)) {
-            set.add(candidateKey);
-            keys[i] = candidateKey;
-            break;
+    // keys and dataset are generated once per trial, as states that are set
+    // up per invocation (eg "write") would otherwise regenerate them each time
+    final boolean generate = dataset == null;
+    if (generate) {
+      final IntHashSet set = new IntHashSet(num);
+      keys = new int[num];
+      for (int i = 0; i < num; i++) {
+        if (sequential) {
+          keys[i] = i;
+        } else {
+          while (true) {
+            int candidateKey = RND.nextInt();
+            if (candidateKey < 0) {
+              candidateKey *= -1;
+            }
+            if (!set.contains(candidateKey)) {
+              set.add(candidateKey);
+              keys[i] = candidateKey;
+              break;
+            }
           }
         }
       }
+      readIndexes = readOrder(keyDistribution, num);
+      readKeys = new int[readIndexes.length];
+      readDbs = new int[readIndexes.length];
+      for (int i = 0; i < readIndexes.length; i++) {
+        readKeys[i] = keys[readIndexes[i]];
+        readDbs[i] = dbIndex(readKeys[i]);
+      }
+      rmdir(TMP_BENCH);
+    } else {
+      rmdir(tmp);
+      rmdir(compact);
     }
-
-    rmdir(TMP_BENCH);
     tmp = create(b, "");
     compact = create(b, "-compacted");
+    if (generate) {
+      dataset = new Dataset(this, true);
+    }
+  }
+
+  @Setup(Iteration)
+  public void latencyIteration(final IterationParams it) {
+    initRecorders();
+    latency.measuring(it.getType() == MEASUREMENT);
+    commits.measuring(it.getType() == MEASUREMENT);
+    backups.measuring(it.getType() == MEASUREMENT);
+  }
+
+  @TearDown(Iteration)
+  public void footprintIteration() {
+    if (tmp.getName().contains(".readKey-")) {
+      reportFootprint(tmp, "after-read");
+    }
+  }
+
+  /**
+   * Unmaps and deletes the {@link #dataset} once the trial ends, rather than
+   * when a state set up per invocation is torn down.
+   */
+  @TearDown(Trial)
+  public void closeDataset() {
+    if (dataset != null) {
+      dataset.close();
+      dataset = null;
+      if (!Dataset.file(tmp).delete()) {
+        throw new IllegalStateException("Cannot delete dataset of " + tmp);
+      }
+    }
+  }
+
+  @TearDown(Trial)
+  public void latencyReport() {
+    latency.report(tmp.getName());
+    commits.report(tmp.getName());
+    backups.report(tmp.getName());
+    if (ingest != null) {
+      ingest.report(tmp.getName());
+    }
   }
 
   public void reportSpaceBeforeClose() {
     if (tmp.getName().contains(".readKey-")) {
       reportSpaceUsed(tmp, "before-close");
+      reportFootprint(tmp, "before-close");
     }
   }
 
@@ -154,8 +406,10 @@ public class Common {
     // we only output for key, as all impls offer it and it should be fixed
     if (tmp.getName().contains(".readKey-")) {
       reportSpaceUsed(tmp, "after-close");
+      reportFootprint(tmp, "after-close");
     }
-    rmdir(TMP_BENCH);
+    rmdir(tmp);
+    rmdir(compact);
   }
 
   @SuppressWarnings("UseOfSystemOutOrSystemErr")
@@ -175,11 +429,288 @@ public class Common {
     out.println("\nBytes\t" + desc + "\t" + bytes + "\t" + dir.getName());
   }
 
+  /**
+   * Reports the memory footprint of the process and of the store in the given
+   * directory, in the same style as {@link #reportSpaceUsed(File, String)}:
+   *
+   * <ul>
+   * <li><code>Rss</code> and <code>Hwm</code>: the process resident set size
+   * and its peak (<code>VmRSS</code> and <code>VmHWM</code> of
+   * <code>/proc/self/status</code>)</li>
+   * <li><code>Mapped</code>: the resident size of the process's mappings of
+   * store files (<code>Rss</code> of <code>/proc/self/smaps</code>)</li>
+   * <li><code>Resident</code>: the store file pages in the OS page cache,
+   * whether mapped or not (via <code>mincore</code>)</li>
+   * </ul>
+   *
+   * @param dir  the store directory
+   * @param desc the checkpoint (eg "before-close")
+   */
+  @SuppressWarnings("UseOfSystemOutOrSystemErr")
+  protected void reportFootprint(final File dir, final String desc) {
+    final String name = dir.getName();
+    final String status;
+    final String smaps;
+    try {
+      status = new String(readAllBytes(get("/proc/self/status")), ISO_8859_1);
+      smaps = new String(readAllBytes(get("/proc/self/smaps")), ISO_8859_1);
+    } catch (final IOException ex) {
+      throw new IllegalStateException(ex);
+    }
+    long mapped = 0;
+    boolean store = false;
+    final String prefix = dir.getAbsolutePath() + File.separator;
+    for (final String line : smaps.split("\n")) {
+      final Matcher m = MAPPING.matcher(line);
+      if (m.matches()) {
+        store = m.group(1).startsWith(prefix);
+      } else if (store && line.startsWith("Rss:")) {
+        mapped += kb(line) * KB;
+      }
+    }
+    long rss = 0;
+    long hwm = 0;
+    for (final String line : status.split("\n")) {
+      if (line.startsWith("VmRSS:")) {
+        rss = kb(line) * KB;
+      } else if (line.startsWith("VmHWM:")) {
+        hwm = kb(line) * KB;
+      }
+    }
+    // last, as mapping the files to call mincore changes smaps
+    final long resident = residentBytes(dir);
+    out.println("\nRss\t" + desc + "\t" + rss + "\t" + name
+                    + "\nHwm\t" + desc + "\t" + hwm + "\t" + name
+                    + "\nMapped\t" + desc + "\t" + mapped + "\t" + name
+                    + "\nResident\t" + desc + "\t" + resident + "\t" + name);
+  }
+
+  /**
+   * Drops the files in the given directory from the OS page cache. Files are
+   * synced first, as the kernel does not evict dirty pages.
+   *
+   * @param dir the store directory (which must be closed)
+   */
+  protected void dropPageCache(final File dir) {
+    final File[] files = dir.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (final File f : files) {
+      final int fd = POSIX.open(f.getAbsolutePath(), O_RDONLY, 0);
+      if (fd < 0) {
+        throw new IllegalStateException("Cannot open " + f);
+      }
+      POSIX.fsync(fd);
+      final int rc = LIBC.posix_fadvise(fd, 0, 0, POSIX_FADV_DONTNEED);
+      POSIX.close(fd);
+      if (rc != 0) {
+        throw new IllegalStateException("posix_fadvise failed on " + f);
+      }
+    }
+  }
+
+  static int[] readOrder(final String distribution, final int n) {
+    final Matcher m = DISTRIBUTION.matcher(distribution.trim());
+    if (!m.matches()) {
+      throw new IllegalArgumentException("Bad distribution " + distribution);
+    }
+    final String name = m.group(1);
+    final String arg = m.group(2);
+    final int[] result = new int[n];
+    switch (name) {
+      case "insert":
+        for (int i = 0; i < n; i++) {
+          result[i] = i;
+        }
+        break;
+      case "uniform":
+        for (int i = 0; i < n; i++) {
+          result[i] = RND.nextInt(n);
+        }
+        break;
+      case "zipfian": {
+        final double theta = arg == null ? YCSB_THETA : parseDouble(arg);
+        final Zipfian zipf = new Zipfian(n, theta);
+        for (int i = 0; i < n; i++) {
+          result[i] = (int) zipf.scramble(zipf.next(RND.nextDouble()));
+        }
+        break;
+      }
+      case "hotspot": {
+        final double fraction = arg == null ? HOTSPOT_DEFAULT
+                                    : parseDouble(arg);
+        if (fraction <= 0 || fraction >= 1) {
+          throw new IllegalArgumentException("hotspot fraction must be 0..1");
+        }
+        // hot keys are spread over the key order via a random start offset
+        final int hot = max(1, (int) (n * fraction));
+        final int hotStart = RND.nextInt(n);
+        for (int i = 0; i < n; i++) {
+          final int idx;
+          if (RND.nextDouble() < 1 - fraction) {
+            idx = (hotStart + RND.nextInt(hot)) % n;
+          } else {
+            idx = (hotStart + hot + RND.nextInt(max(1, n - hot))) % n;
+          }
+          result[i] = idx;
+        }
+        break;
+      }
+      case "latest": {
+        final Zipfian zipf = new Zipfian(n, YCSB_THETA);
+        for (int i = 0; i < n; i++) {
+          result[i] = n - 1 - (int) zipf.next(RND.nextDouble());
+        }
+        break;
+      }
+      default:
+        throw new IllegalArgumentException("Unknown distribution " + name);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the bytes that background compaction has yet to rewrite, for the
+   * "ingest" time series. Stores that do not expose this return -1.
+   *
+   * @return pending compaction bytes, or -1 if unknown
+   */
+  long compactionDebt() {
+    return -1;
+  }
+
+  /**
+   * Returns the entries per transaction: {@link #txnSize} if set, otherwise
+   * the given store default.
+   *
+   * @param storeDefault the store's usual entries per transaction
+   * @return entries per transaction
+   */
+  final int txnSize(final int storeDefault) {
+    return txnSize > 0 ? txnSize : storeDefault;
+  }
+
+  /**
+   * Returns the database holding the given key, so that sequential keys remain
+   * sequential within each database.
+   *
+   * @param key the key
+   * @return index of the database, from 0 to {@link #numDbs} - 1
+   */
+  final int dbIndex(final int key) {
+    return numDbs == 1 ? 0 : floorMod(key, numDbs);
+  }
+
+  /**
+   * Deletes everything within {@link #compact}, such as the copy left by a
+   * "backup" invocation, leaving the empty directory for the next copy.
+   */
+  final void clearCompact() {
+    final File[] files = compact.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (final File f : files) {
+      rmdir(f);
+    }
+  }
+
+  /**
+   * Whether a key starts with the given prefix, as composite keys of the
+   * duplicate-key benchmarks do with their key.
+   *
+   * @param key    the key
+   * @param prefix the prefix
+   * @return true if the first prefix bytes of the key match
+   */
+  static boolean startsWith(final byte[] key, final byte[] prefix) {
+    boolean match = key.length >= prefix.length;
+    for (int i = 0; match && i < prefix.length; i++) {
+      match = key[i] == prefix[i];
+    }
+    return match;
+  }
+
+  /**
+   * Writes a key to the start of a buffer without allocating, as an integer or
+   * as the zero-padded digits of {@link #padKey(int)}. For keys that may not be
+   * in the {@link #dataset}, such as those inserted by a YCSB workload.
+   *
+   * @param dst buffer of at least {@link #keySize} bytes
+   * @param key the non-negative key
+   */
+  final void putKey(final MutableDirectBuffer dst, final int key) {
+    if (intKey) {
+      dst.putInt(0, key);
+      return;
+    }
+    int k = key;
+    for (int i = 15; i >= 0; i--) {
+      dst.putByte(i, (byte) ('0' + k % 10));
+      k /= 10;
+    }
+  }
+
   final String padKey(final int key) {
     final String skey = Integer.toString(key);
     return "0000000000000000".substring(0, 16 - skey.length()) + skey;
   }
 
+  // parses the value of a "Name:   1234 kB" line of a /proc file
+  private static long kb(final String line) {
+    final String value = line.substring(line.indexOf(':') + 1).trim();
+    final int space = value.indexOf(' ');
+    return parseLong(space < 0 ? value : value.substring(0, space));
+  }
+
+  private static long residentBytes(final File dir) {
+    final File[] files = dir.listFiles();
+    if (files == null) {
+      return 0;
+    }
+    final long pageSize = UNSAFE.pageSize();
+    long pages = 0;
+    for (final File f : files) {
+      final long len = f.length();
+      if (len == 0) {
+        continue;
+      }
+      final int fd = POSIX.open(f.getAbsolutePath(), O_RDONLY, 0);
+      if (fd < 0) {
+        throw new IllegalStateException("Cannot open " + f);
+      }
+      final long addr = LIBC.mmap(0, len, PROT_READ, MAP_SHARED, fd, 0);
+      POSIX.close(fd);
+      if (addr == MAP_FAILED) {
+        throw new IllegalStateException("mmap failed on " + f);
+      }
+      final byte[] vec = new byte[(int) ((len + pageSize - 1) / pageSize)];
+      final int rc = LIBC.mincore(addr, len, vec);
+      LIBC.munmap(addr, len);
+      if (rc != 0) {
+        throw new IllegalStateException("mincore failed on " + f);
+      }
+      for (final byte b : vec) {
+        pages += b & 1;
+      }
+    }
+    return pages * pageSize;
+  }
+
+  /**
+   * Restores {@link #RND_MB} to its original random bytes, then zeroes the
+   * last <code>zeros</code> bytes of every run. The original bytes are kept as
+   * several states (or trials of one fork) may set this in turn.
+   */
+  private static void zeroRandomBytes(final int zeros) {
+    final int keep = RND_RUN - zeros;
+    for (int i = 0; i < RND_MB.length; i += RND_RUN) {
+      arraycopy(RND_UNZEROED, i, RND_MB, i, keep);
+      fill(RND_MB, i + keep, i + RND_RUN, (byte) 0);
+    }
+  }
+
   private File create(final BenchmarkParams b, final String suffix) {
     final File f = new File(TMP_BENCH, b.id() + suffix);
     if (!f.mkdirs()) {
@@ -188,6 +719,20 @@ public class Common {
     return f;
   }
 
+  /**
+   * Creates the latency, commit and backup recorders if not yet created. Both
+   * setups call this, as writer states run setup per invocation (after the
+   * iteration setup), and so does the crash child's
+   * {@link Crasher#configure(Common, String...)}, which has no JMH setup.
+   */
+  final void initRecorders() {
+    if (latency == null) {
+      latency = new LatencyRecorder(recordLatency);
+      commits = new CommitRecorder();
+      backups = new BackupRecorder();
+    }
+  }
+
   @SuppressWarnings("checkstyle:ReturnCount")
   private void rmdir(final File file) {
     if (!file.exists()) {
@@ -206,4 +751,20 @@ public class Common {
       throw new IllegalStateException("Cannot delete " + file);
     }
   }
+
+  /**
+   * The libc calls used by {@link #dropPageCache(File)} and
+   * {@link #reportFootprint(File, String)} that jnr-posix does not expose.
+   */
+  public interface LibC {
+
+    int mincore(long addr, long length, @Out byte[] vec);
+
+    long mmap(long addr, long length, int prot, int flags, int fd,
+              long offset);
+
+    int munmap(long addr, long length);
+
+    int posix_fadvise(int fd, long offset, long len, int advice);
+  }
 }
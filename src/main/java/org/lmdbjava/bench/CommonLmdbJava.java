@@ -26,6 +26,7 @@ import static java.lang.System.setProperty;
 import java.util.HashSet;
 import java.util.Set;
 import org.lmdbjava.BufferProxy;
+import org.lmdbjava.Cursor;
 import org.lmdbjava.Dbi;
 import org.lmdbjava.DbiFlags;
 import static org.lmdbjava.DbiFlags.MDB_CREATE;
@@ -35,7 +36,9 @@ import static org.lmdbjava.Env.DISABLE_CHECKS_PROP;
 import static org.lmdbjava.Env.create;
 import org.lmdbjava.EnvFlags;
 import static org.lmdbjava.EnvFlags.MDB_NOSYNC;
+import static org.lmdbjava.EnvFlags.MDB_NOTLS;
 import static org.lmdbjava.EnvFlags.MDB_WRITEMAP;
+import org.lmdbjava.Txn;
 import org.openjdk.jmh.annotations.Param;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
 import org.openjdk.jmh.annotations.State;
@@ -49,12 +52,22 @@ import org.openjdk.jmh.infra.BenchmarkParams;
 @State(Benchmark)
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension",
                    "checkstyle:visibilitymodifier"})
-public class CommonLmdbJava<T> extends Common {
+public class CommonLmdbJava<T> extends CommonTxn {
 
   static final int POSIX_MODE = 664;
 
   BufferProxy<T> bufferProxy;
+
+  /**
+   * The first of the {@link #dbs}, used by the benchmarks that only support a
+   * single database.
+   */
   Dbi<T> db;
+
+  /**
+   * One DBI per {@link #numDbs}.
+   */
+  Dbi<T>[] dbs;
   Env<T> env;
 
   /**
@@ -77,7 +90,8 @@ public class CommonLmdbJava<T> extends Common {
     return flags;
   }
 
-  static final EnvFlags[] envFlags(final boolean writeMap, final boolean sync) {
+  static final EnvFlags[] envFlags(final boolean writeMap, final boolean sync,
+                                   final boolean noTls) {
     final Set<EnvFlags> envFlagSet = new HashSet<>();
     if (writeMap) {
       envFlagSet.add(MDB_WRITEMAP);
@@ -85,6 +99,9 @@ public class CommonLmdbJava<T> extends Common {
     if (!sync) {
       envFlagSet.add(MDB_NOSYNC);
     }
+    if (noTls) {
+      envFlagSet.add(MDB_NOTLS);
+    }
     final EnvFlags[] envFlags = new EnvFlags[envFlagSet.size()];
     envFlagSet.toArray(envFlags);
     return envFlags;
@@ -94,24 +111,89 @@ public class CommonLmdbJava<T> extends Common {
     return num * ((long) valSize) * 32L / 10L;
   }
 
+  /**
+   * Each benchmark thread may hold its own read transaction, plus the shared
+   * state's transaction opened during setup.
+   *
+   * @param threads the number of benchmark threads
+   * @return the maximum readers to configure
+   */
+  static final int maxReaders(final int threads) {
+    return threads + 1;
+  }
+
+  static final void closeCursors(final Cursor<?>[] cursors) {
+    for (final Cursor<?> c : cursors) {
+      c.close();
+    }
+  }
+
+  /**
+   * Read transactions opened by the shared state and per-thread states may end
+   * up on the same JMH worker thread, so thread-local reader slots are disabled
+   * whenever more than one benchmark thread is used.
+   *
+   * @param threads the number of benchmark threads
+   * @return true if <code>MDB_NOTLS</code> is required
+   */
+  static final boolean noTls(final int threads) {
+    return threads > 1;
+  }
+
   public void setup(final BenchmarkParams b, final boolean sync) throws
       IOException {
     super.setup(b);
-    final EnvFlags[] envFlags = envFlags(writeMap, sync);
-    env = create(bufferProxy)
-        .setMapSize(mapSize(num, valSize))
-        .setMaxDbs(1)
-        .setMaxReaders(2)
-        .open(tmp, POSIX_MODE, envFlags);
-
-    final DbiFlags[] flags = dbiFlags(intKey);
-    db = env.openDbi("db", flags);
+    open(b.getThreads(), sync);
   }
 
   @Override
   public void teardown() throws IOException {
     reportSpaceBeforeClose();
-    env.close();
+    close();
     super.teardown();
   }
+
+  void close() {
+    env.close();
+  }
+
+  /**
+   * Opens a cursor on each of the {@link #dbs}, so a key's cursor is that at
+   * its {@link #dbIndex(int)}.
+   *
+   * @param txn the transaction
+   * @return the cursors
+   */
+  @SuppressWarnings("unchecked")
+  final Cursor<T>[] openCursors(final Txn<T> txn) {
+    final Cursor<T>[] cursors = new Cursor[dbs.length];
+    for (int i = 0; i < dbs.length; i++) {
+      cursors[i] = dbs[i].openCursor(txn);
+    }
+    return cursors;
+  }
+
+  /**
+   * Opens the environment in {@link #tmp}, which may already hold a store that
+   * was written before an earlier {@link #close()}.
+   *
+   * @param threads the number of benchmark threads
+   * @param sync    whether to sync commits
+   */
+  @SuppressWarnings("unchecked")
+  void open(final int threads, final boolean sync) {
+    final EnvFlags[] envFlags = envFlags(writeMap, sync, noTls(threads));
+    env = create(bufferProxy)
+        .setMapSize(mapSize(num, valSize))
+        .setMaxDbs(numDbs)
+        .setMaxReaders(maxReaders(threads))
+        .open(tmp, POSIX_MODE, envFlags);
+
+    final DbiFlags[] flags = dbiFlags(intKey);
+    dbs = new Dbi[numDbs];
+    for (int i = 0; i < numDbs; i++) {
+      dbs[i] = env.openDbi(i == 0 ? "db" : "db" + i, flags);
+    }
+    db = dbs[0];
+  }
 }
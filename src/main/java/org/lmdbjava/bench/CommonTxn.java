@@ -0,0 +1,93 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import java.io.IOException;
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Common {@link State} superclass of the stores offering transactions (or
+ * their equivalent, such as a write batch), which write the {@link #dataset}
+ * through {@link #commit(int, int, boolean)}.
+ */
+@State(Benchmark)
+@SuppressWarnings({"checkstyle:designforextension",
+                   "checkstyle:visibilitymodifier"})
+public abstract class CommonTxn extends Common {
+
+  private int ingestFrom;
+
+  /**
+   * Writes the {@link #dataset} entries at the given indexes in one transaction
+   * (or its equivalent, such as a write batch) and commits it, syncing it if
+   * {@link #durable} requires.
+   *
+   * @param from first entry (inclusive)
+   * @param to   last entry (exclusive)
+   * @param last whether this is the last commit of the benchmark operation
+   * @throws IOException if the store fails
+   */
+  abstract void commit(int from, int to, boolean last) throws IOException;
+
+  /**
+   * Commits the next {@link #ingestBatch} {@link #dataset} entries, recording
+   * the commit in {@link #ingest}. After the last entry it starts again from
+   * the first, so a sustained ingest keeps overwriting the store and building
+   * up the work of compaction or log garbage collection. Overwrites cannot be
+   * appends, so later passes are written as if {@link #sequential} was
+   * false.
+   *
+   * @throws IOException if the store fails
+   */
+  final void ingest() throws IOException {
+    final int to = min(ingestFrom + ingestBatch, keys.length);
+    final long start = nanoTime();
+    commit(ingestFrom, to, false);
+    ingest.record(start, to - ingestFrom);
+    if (to < keys.length) {
+      ingestFrom = to;
+    } else {
+      ingestFrom = 0;
+      sequential = false;
+    }
+  }
+
+  /**
+   * Writes every {@link #dataset} entry, committing after each
+   * {@link #txnSize} entries (or the given store default) and recording each
+   * commit.
+   *
+   * @param storeDefault the store's usual entries per transaction
+   * @throws IOException if the store fails
+   */
+  void write(final int storeDefault) throws IOException {
+    final int size = txnSize(storeDefault);
+    for (int i = 0; i < keys.length; i += size) {
+      final int to = (int) min((long) i + size, keys.length);
+      final long start = commits.start();
+      commit(i, to, to == keys.length);
+      commits.stop(start, to - i);
+    }
+  }
+}
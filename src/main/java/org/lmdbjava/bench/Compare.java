@@ -0,0 +1,211 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import java.io.IOException;
+import static java.lang.Double.NaN;
+import static java.lang.Double.isNaN;
+import static java.lang.Double.parseDouble;
+import static java.lang.Math.abs;
+import static java.lang.Math.sqrt;
+import static java.lang.String.format;
+import static java.lang.System.err;
+import static java.lang.System.exit;
+import static java.lang.System.out;
+import static java.nio.file.Paths.get;
+import java.util.ArrayList;
+import java.util.List;
+import static java.util.Locale.ROOT;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.commons.math3.distribution.TDistribution;
+import static org.apache.commons.math3.stat.StatUtils.variance;
+
+/**
+ * Compares two JMH result files (eg of the same run before and after a library
+ * or JDK upgrade), flagging benchmarks that regressed or improved.
+ *
+ * <p>
+ * Results are matched by benchmark class, method, mode and parameters, and
+ * each pair is compared with Welch's t-test. The per-iteration scores of JSON
+ * files are used where available. Otherwise the standard error of each score
+ * is recovered from its sample count and "Score Error", which JMH reports as
+ * the half-width of a 99.9% confidence interval. Pairs with neither (eg a
+ * single shot with one sample) are judged on the change in score alone.
+ * Identical scores without variance are never significant, and differing ones
+ * always are. A pair whose baseline score is zero has no percentage change, so
+ * is displayed as <code>"Incomparable"</code> and never flagged.
+ *
+ * <p>
+ * A change is flagged if it exceeds the threshold (<code>-t</code>, as a
+ * percentage of the baseline score) and is significant at the given level
+ * (<code>-a</code>). Each pair is displayed as a
+ * <code>"Regression"</code>, <code>"Improvement"</code> or
+ * <code>"Unchanged" \t change% \t p-value \t benchId</code> line. The exit
+ * status is 1 if any benchmark regressed.
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public final class Compare {
+
+  private static final double CONFIDENCE = 0.999;
+  private static final double DEFAULT_ALPHA = 0.01;
+  private static final double DEFAULT_THRESHOLD = 5.0;
+  private static final double PERCENT = 100.0;
+
+  private Compare() {
+  }
+
+  public static void main(final String[] args) throws IOException {
+    double alpha = DEFAULT_ALPHA;
+    double threshold = DEFAULT_THRESHOLD;
+    final List<String> files = new ArrayList<>();
+    int i = 0;
+    while (i < args.length) {
+      final String arg = args[i++];
+      if ("-a".equals(arg) && i < args.length) {
+        alpha = parseDouble(args[i++]);
+      } else if ("-t".equals(arg) && i < args.length) {
+        threshold = parseDouble(args[i++]);
+      } else {
+        files.add(arg);
+      }
+    }
+    if (files.size() != 2) {
+      err.println("Usage: Compare [-a alpha] [-t thresholdPct] "
+                      + "baseline.csv|json candidate.csv|json");
+      exit(2);
+    }
+    final Map<String, Result> baseline = load(files.get(0));
+    final Map<String, Result> candidate = load(files.get(1));
+
+    int regressions = 0;
+    int improvements = 0;
+    for (final Map.Entry<String, Result> e : baseline.entrySet()) {
+      final Result a = e.getValue();
+      final Result b = candidate.remove(e.getKey());
+      if (b == null || !a.unit.equals(b.unit)) {
+        out.println("Missing\t\t\t" + e.getKey());
+        continue;
+      }
+      final double change = change(a, b);
+      if (isNaN(change)) {
+        out.println("Incomparable\t\t\t" + e.getKey());
+        continue;
+      }
+      final double p = pValue(a, b);
+      String verdict = "Unchanged";
+      if (abs(change) > threshold && (isNaN(p) || p < alpha)) {
+        if (a.higherIsBetter() == change < 0) {
+          verdict = "Regression";
+          regressions++;
+        } else {
+          verdict = "Improvement";
+          improvements++;
+        }
+      }
+      out.println(verdict + "\t" + format(ROOT, "%+.2f\t%.4f", change, p)
+                      + "\t" + e.getKey());
+    }
+    for (final String id : candidate.keySet()) {
+      out.println("New\t\t\t" + id);
+    }
+    out.println("\n" + regressions + " regressions and " + improvements
+                    + " improvements beyond " + threshold + "% (alpha "
+                    + alpha + ")");
+    exit(regressions == 0 ? 0 : 1);
+  }
+
+  /**
+   * Returns the change of the candidate's score as a percentage of the
+   * baseline's, or NaN if only the baseline score is zero.
+   *
+   * @param a the baseline
+   * @param b the candidate
+   * @return the change in percent
+   */
+  static double change(final Result a, final Result b) {
+    if (a.score == 0) {
+      return b.score == 0 ? 0 : NaN;
+    }
+    return (b.score - a.score) * PERCENT / abs(a.score);
+  }
+
+  private static Map<String, Result> load(final String file)
+      throws IOException {
+    final List<Result> results = new ArrayList<>();
+    Result.read(get(file), results);
+    final Map<String, Result> byId = new TreeMap<>();
+    for (final Result r : results) {
+      byId.put(r.id(), r);
+    }
+    return byId;
+  }
+
+  /**
+   * Returns the two-sided p-value of Welch's t-test of the scores, or NaN if
+   * either result lacks the samples or error needed for the test.
+   *
+   * @param a the baseline
+   * @param b the candidate
+   * @return the p-value, from 0 to 1, or NaN
+   */
+  static double pValue(final Result a, final Result b) {
+    final double va = varianceOfMean(a);
+    final double vb = varianceOfMean(b);
+    if (isNaN(va) || isNaN(vb)) {
+      return NaN;
+    }
+    final double v = va + vb;
+    if (v == 0) {
+      return a.score == b.score ? 1 : 0;
+    }
+    final double t = abs(b.score - a.score) / sqrt(v);
+    // Welch-Satterthwaite, on variance shares so tiny variances cannot
+    // underflow to 0 / 0
+    final double sa = va / v;
+    final double sb = vb / v;
+    final double df = 1 / (sa * sa / (samples(a) - 1)
+                               + sb * sb / (samples(b) - 1));
+    return 2 * new TDistribution(df).cumulativeProbability(-t);
+  }
+
+  private static long samples(final Result r) {
+    return r.samples != null && r.samples.length > 1 ? r.samples.length
+               : r.count;
+  }
+
+  /**
+   * Returns the variance of the mean score (ie the squared standard error).
+   */
+  private static double varianceOfMean(final Result r) {
+    final long n = samples(r);
+    if (n < 2) {
+      return NaN;
+    }
+    if (r.samples != null && r.samples.length > 1) {
+      return variance(r.samples) / n;
+    }
+    final double q = new TDistribution(n - 1)
+        .inverseCumulativeProbability(1 - (1 - CONFIDENCE) / 2);
+    final double se = r.error / q;
+    return se * se;
+  }
+}
@@ -0,0 +1,224 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.Double.parseDouble;
+import static java.lang.Integer.BYTES;
+import static java.lang.Integer.parseInt;
+import static java.lang.Long.parseLong;
+import static java.lang.System.getProperty;
+import static java.lang.System.out;
+import static java.lang.Thread.currentThread;
+import static java.lang.Thread.sleep;
+import java.lang.reflect.Field;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.ArrayList;
+import java.util.List;
+import static org.lmdbjava.bench.Common.STRING_KEY_LENGTH;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Leaves a store as an unclean shutdown would, by running a writer against it
+ * in a child JVM and killing that JVM (<code>SIGKILL</code>) once writes are
+ * under way.
+ *
+ * <p>
+ * The child is the <code>main</code> method of a store's state class. It
+ * calls {@link #configure(Common, String...)}, opens the existing store, calls
+ * {@link #writing()} and then writes until it is killed. Every JMH
+ * {@link Param} of the parent's state is passed to the child as a
+ * <code>name=value</code> argument, so the child opens the store with the same
+ * settings without each store forwarding its own.
+ */
+final class Crasher {
+
+  private static final long KILL_DELAY_MS = 250;
+  private static final String WRITING = "writing";
+
+  private Crasher() {
+  }
+
+  /**
+   * Configures a store in the child JVM from the arguments passed by
+   * {@link #crash(Class, Common)}, setting each of its {@link Param}s. Keys are
+   * those the parent wrote, so the child overwrites existing entries rather
+   * than growing the store (and writes as if {@link Common#sequential} was
+   * false), and the parent's {@link Dataset} is mapped rather than generated
+   * again.
+   *
+   * @param store the store to configure
+   * @param args  the child's command line arguments
+   * @throws IOException if the keys or dataset cannot be read
+   */
+  static void configure(final Common store, final String... args) throws
+      IOException {
+    store.tmp = new File(args[0]);
+    for (int i = 1; i < args.length; i++) {
+      final int eq = args[i].indexOf('=');
+      setParam(store, args[i].substring(0, eq), args[i].substring(eq + 1));
+    }
+    store.keySize = store.intKey ? BYTES : STRING_KEY_LENGTH;
+    // every key is already present, so the child's overwrites cannot be
+    // appends (eg MDB_APPEND fails with MDB_KEYEXIST), as in CommonTxn.ingest
+    store.sequential = false;
+    store.keys = new int[store.num];
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+        new FileInputStream(keysFile(store.tmp))))) {
+      for (int i = 0; i < store.num; i++) {
+        store.keys[i] = in.readInt();
+      }
+    }
+    store.readKeys = store.keys;
+    store.dataset = new Dataset(store, false);
+    store.durable = new Durability(store.durability);
+    store.initRecorders();
+  }
+
+  /**
+   * Runs the given class's <code>main</code> method against the (closed)
+   * store, then kills it shortly after it reports that it is writing.
+   *
+   * @param main  the class with the child's <code>main</code> method
+   * @param store the store to crash
+   * @throws IOException if the child cannot be started
+   */
+  static void crash(final Class<?> main, final Common store) throws
+      IOException {
+    final File keys = keysFile(store.tmp);
+    try (DataOutputStream os = new DataOutputStream(new BufferedOutputStream(
+        new FileOutputStream(keys)))) {
+      for (final int key : store.keys) {
+        os.writeInt(key);
+      }
+    }
+    final String java = new File(getProperty("java.home"), "bin/java")
+        .getAbsolutePath();
+    final List<String> cmd = new ArrayList<>();
+    cmd.add(java);
+    final String datasetDir = getProperty(Dataset.DIR_PROPERTY);
+    if (datasetDir != null) {
+      cmd.add("-D" + Dataset.DIR_PROPERTY + "=" + datasetDir);
+    }
+    cmd.add("-cp");
+    cmd.add(getProperty("java.class.path"));
+    cmd.add(main.getName());
+    cmd.add(store.tmp.getAbsolutePath());
+    try {
+      for (final Field f : params(store.getClass())) {
+        cmd.add(f.getName() + "=" + f.get(store));
+      }
+    } catch (final IllegalAccessException ex) {
+      throw new IllegalStateException(ex);
+    }
+    final ProcessBuilder pb = new ProcessBuilder(cmd);
+    pb.redirectErrorStream(true);
+    final Process p = pb.start();
+    try (BufferedReader r = new BufferedReader(new InputStreamReader(
+        p.getInputStream(), UTF_8))) {
+      String line = r.readLine();
+      while (line != null && !WRITING.equals(line)) {
+        line = r.readLine();
+      }
+      if (line == null) {
+        throw new IllegalStateException("Writer exited before writing");
+      }
+      sleep(KILL_DELAY_MS);
+      if (!p.isAlive()) {
+        throw new IllegalStateException("Writer exited before it was killed");
+      }
+      p.destroyForcibly().waitFor();
+    } catch (final InterruptedException ex) {
+      currentThread().interrupt();
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   * Tells the parent JVM that the child has opened the store and is about to
+   * start writing.
+   */
+  @SuppressWarnings("UseOfSystemOutOrSystemErr")
+  static void writing() {
+    out.println(WRITING);
+    out.flush();
+  }
+
+  private static File keysFile(final File dir) {
+    return new File(dir.getParentFile(), dir.getName() + ".keys");
+  }
+
+  // the JMH parameters of a state class and its superclasses
+  private static List<Field> params(final Class<?> type) {
+    final List<Field> result = new ArrayList<>();
+    for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+      for (final Field f : c.getDeclaredFields()) {
+        if (f.isAnnotationPresent(Param.class)) {
+          f.setAccessible(true);
+          result.add(f);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static void setParam(final Common store, final String name,
+                               final String value) {
+    boolean found = false;
+    try {
+      for (final Field f : params(store.getClass())) {
+        if (!f.getName().equals(name)) {
+          continue;
+        }
+        found = true;
+        final Class<?> type = f.getType();
+        if (type == int.class) {
+          f.setInt(store, parseInt(value));
+        } else if (type == long.class) {
+          f.setLong(store, parseLong(value));
+        } else if (type == boolean.class) {
+          f.setBoolean(store, parseBoolean(value));
+        } else if (type == double.class) {
+          f.setDouble(store, parseDouble(value));
+        } else if (type == String.class) {
+          f.set(store, value);
+        } else {
+          throw new IllegalArgumentException("Unsupported param type " + f);
+        }
+      }
+    } catch (final IllegalAccessException ex) {
+      throw new IllegalStateException(ex);
+    }
+    if (!found) {
+      throw new IllegalArgumentException("Unknown param " + name);
+    }
+  }
+}
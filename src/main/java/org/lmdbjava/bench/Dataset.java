@@ -0,0 +1,277 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.getProperty;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static org.agrona.BufferUtil.ARRAY_BASE_OFFSET;
+import static org.agrona.BufferUtil.address;
+import static org.agrona.IoUtil.unmap;
+import static org.agrona.UnsafeAccess.UNSAFE;
+import org.agrona.concurrent.UnsafeBuffer;
+import static org.lmdbjava.bench.Common.RND_MB;
+
+/**
+ * The key and value of every entry, generated once into a memory-mapped file so
+ * that store write and read paths take them from off-heap memory rather than
+ * formatting them (and allocating) for each operation.
+ *
+ * <p>
+ * Entries are fixed width records, in {@link Common#keys} order, of
+ * {@link Common#keySize} key bytes followed by {@link Common#valSize} value
+ * bytes. Integer keys are in native byte order (as LMDB's integer keys require)
+ * and string keys are those of {@link Common#padKey(int)}. Values are taken
+ * sequentially from {@link Common#RND_MB} if {@link Common#valRandom}, and are
+ * otherwise the key followed by zeros.
+ *
+ * <p>
+ * The file is mapped in segments of whole records, as a single mapping cannot
+ * exceed 2 GB. It needs <code>num * (keySize + valSize)</code> bytes alongside
+ * the store directory, or in the directory named by the {@link #DIR_PROPERTY}
+ * system property, which are checked for before it is generated. It is
+ * generated once per trial, and deleted when the trial ends.
+ */
+final class Dataset implements AutoCloseable {
+
+  /**
+   * System property naming an existing directory for the dataset files, so
+   * that they need not share the disk of the stores.
+   */
+  static final String DIR_PROPERTY = "lmdbjava.bench.datasetDir";
+
+  private static final long SEGMENT_BYTES = 1L << 30;
+  private final long[] addresses;
+  private final MappedByteBuffer[] buffers;
+  private final int keySize;
+  private final int perSegment;
+  private final int recordSize;
+  private final int valSize;
+
+  /**
+   * Maps the dataset of the given store, generating it first if requested.
+   *
+   * @param store    the store, whose keys and sizes are used
+   * @param generate true to generate the file, false to map an existing one
+   * @throws IOException if the file cannot be created or mapped
+   */
+  Dataset(final Common store, final boolean generate) throws IOException {
+    keySize = store.keySize;
+    valSize = store.valSize;
+    recordSize = keySize + valSize;
+    perSegment = (int) max(1, SEGMENT_BYTES / recordSize);
+    final int num = store.keys.length;
+    final int segments = max(1, (num + perSegment - 1) / perSegment);
+    addresses = new long[segments];
+    buffers = new MappedByteBuffer[segments];
+    final File file = file(store.tmp);
+    final long bytes = (long) num * recordSize;
+    if (generate && !file.getParentFile().isDirectory()) {
+      throw new IllegalStateException("No dataset directory "
+                                          + file.getParent());
+    }
+    if (generate && file.getParentFile().getUsableSpace() < bytes) {
+      throw new IllegalStateException("Dataset needs " + bytes + " bytes in "
+                                          + file.getParent());
+    }
+    try (RandomAccessFile raf = new RandomAccessFile(file,
+                                                     generate ? "rw" : "r");
+         FileChannel ch = raf.getChannel()) {
+      for (int s = 0; s < segments; s++) {
+        final long pos = (long) s * perSegment * recordSize;
+        final long len = (long) min(perSegment, num - s * perSegment)
+                             * recordSize;
+        buffers[s] = ch.map(generate ? READ_WRITE : READ_ONLY, pos, len);
+        addresses[s] = address(buffers[s]);
+      }
+    }
+    if (generate) {
+      generate(store);
+    }
+  }
+
+  /**
+   * The dataset file of a store, alongside its directory unless
+   * {@link #DIR_PROPERTY} is set.
+   *
+   * @param dir the store directory
+   * @return the dataset file
+   */
+  static File file(final File dir) {
+    final String parent = getProperty(DIR_PROPERTY);
+    return new File(parent == null ? dir.getParentFile() : new File(parent),
+                    dir.getName() + ".dataset");
+  }
+
+  @Override
+  public void close() {
+    for (final MappedByteBuffer mbb : buffers) {
+      unmap(mbb);
+    }
+  }
+
+  /**
+   * Address of the key of the entry at the given index.
+   *
+   * @param idx index into {@link Common#keys}
+   * @return the off-heap address of {@link Common#keySize} key bytes
+   */
+  long key(final int idx) {
+    return addresses[idx / perSegment] + (long) (idx % perSegment) * recordSize;
+  }
+
+  /**
+   * Copies the key of the entry at the given index.
+   *
+   * @param idx index into {@link Common#keys}
+   * @param dst array of at least {@link Common#keySize} bytes
+   */
+  void key(final int idx, final byte[] dst) {
+    UNSAFE.copyMemory(null, key(idx), dst, ARRAY_BASE_OFFSET, keySize);
+  }
+
+  /**
+   * Copies the key of the entry at the given index to the start of a direct
+   * buffer, which is then ready to be read.
+   *
+   * @param idx index into {@link Common#keys}
+   * @param dst direct buffer of at least {@link Common#keySize} bytes
+   */
+  void key(final int idx, final ByteBuffer dst) {
+    UNSAFE.copyMemory(key(idx), address(dst), keySize);
+    dst.limit(keySize).position(0);
+  }
+
+  /**
+   * Address of the value of the entry at the given index.
+   *
+   * @param idx index into {@link Common#keys}
+   * @return the off-heap address of {@link Common#valSize} value bytes
+   */
+  long val(final int idx) {
+    return key(idx) + keySize;
+  }
+
+  /**
+   * Copies the value of the entry at the given index.
+   *
+   * @param idx index into {@link Common#keys}
+   * @param dst array of at least {@link Common#valSize} bytes
+   */
+  void val(final int idx, final byte[] dst) {
+    UNSAFE.copyMemory(null, val(idx), dst, ARRAY_BASE_OFFSET, valSize);
+  }
+
+  /**
+   * Copies the value of the entry at the given index to the start of a direct
+   * buffer, which is then ready to be read.
+   *
+   * @param idx index into {@link Common#keys}
+   * @param dst direct buffer of at least {@link Common#valSize} bytes
+   */
+  void val(final int idx, final ByteBuffer dst) {
+    UNSAFE.copyMemory(val(idx), address(dst), valSize);
+    dst.limit(valSize).position(0);
+  }
+
+  /**
+   * Copies the key of the entry at the given index followed by the given value
+   * number (big-endian), forming a composite key that emulates duplicate keys
+   * in stores without them. The composite keys of a key are contiguous and
+   * sort by number.
+   *
+   * @param idx index into {@link Common#keys}
+   * @param dup the value number of the key
+   * @param dst array of at least {@link Common#keySize} + 4 bytes
+   */
+  void dupKey(final int idx, final int dup, final byte[] dst) {
+    key(idx, dst);
+    dst[keySize] = (byte) (dup >>> 24);
+    dst[keySize + 1] = (byte) (dup >>> 16);
+    dst[keySize + 2] = (byte) (dup >>> 8);
+    dst[keySize + 3] = (byte) dup;
+  }
+
+  /**
+   * Copies the value of the entry at the given index, replacing its first four
+   * bytes with the given value number (big-endian). The values of a key thus
+   * differ from one another and sort by number, as duplicate-key stores
+   * require.
+   *
+   * @param idx index into {@link Common#keys}
+   * @param dup the value number of the key
+   * @param dst array of at least {@link Common#valSize} bytes
+   */
+  void dupVal(final int idx, final int dup, final byte[] dst) {
+    val(idx, dst);
+    dst[0] = (byte) (dup >>> 24);
+    dst[1] = (byte) (dup >>> 16);
+    dst[2] = (byte) (dup >>> 8);
+    dst[3] = (byte) dup;
+  }
+
+  /**
+   * Copies the value of the entry at the given index to the start of a direct
+   * buffer, replacing its first four bytes as {@link #dupVal(int, int, byte[])}
+   * does. The buffer is then ready to be read.
+   *
+   * @param idx index into {@link Common#keys}
+   * @param dup the value number of the key
+   * @param dst big-endian direct buffer of at least {@link Common#valSize}
+   *            bytes
+   */
+  void dupVal(final int idx, final int dup, final ByteBuffer dst) {
+    val(idx, dst);
+    dst.putInt(0, dup);
+  }
+
+  private void generate(final Common store) {
+    final UnsafeBuffer rec = new UnsafeBuffer(0, 0);
+    final int rndByteMax = RND_MB.length - valSize;
+    int rndByteOffset = 0;
+    for (int i = 0; i < store.keys.length; i++) {
+      final int key = store.keys[i];
+      rec.wrap(key(i), recordSize);
+      if (store.intKey) {
+        rec.putInt(0, key);
+      } else {
+        rec.putStringWithoutLengthUtf8(0, store.padKey(key));
+      }
+      if (store.valRandom) {
+        rec.putBytes(keySize, RND_MB, rndByteOffset, valSize);
+        rndByteOffset += valSize;
+        if (rndByteOffset >= rndByteMax) {
+          rndByteOffset = 0;
+        }
+      } else {
+        rec.putInt(keySize, key);
+      }
+    }
+  }
+}
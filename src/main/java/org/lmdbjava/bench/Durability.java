@@ -0,0 +1,100 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.lang.Integer.parseInt;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static java.util.regex.Pattern.compile;
+
+/**
+ * Decides which commits of a store are synced to disk, as given by the
+ * "durability" parameter:
+ *
+ * <ul>
+ * <li><code>none</code>: no commit is synced, leaving writeback to the OS
+ * </li>
+ * <li><code>commit-sync</code>: every commit is synced</li>
+ * <li><code>group-commit-N</code>: every Nth commit is synced, making the N
+ * commits since the last sync durable together</li>
+ * </ul>
+ *
+ * <p>
+ * Unless durability is <code>none</code>, the last commit of a benchmark
+ * operation is always synced, so the operation ends with all of its writes
+ * durable.
+ */
+final class Durability {
+
+  private static final Pattern GROUP = compile("group-commit-(\\d+)");
+  private int commits;
+  private final int every;
+
+  Durability(final String mode) {
+    final Matcher m = GROUP.matcher(mode.trim());
+    if ("none".equals(mode.trim())) {
+      every = 0;
+    } else if ("commit-sync".equals(mode.trim())) {
+      every = 1;
+    } else if (m.matches() && parseInt(m.group(1)) > 0) {
+      every = parseInt(m.group(1));
+    } else {
+      throw new IllegalArgumentException("Unknown durability " + mode);
+    }
+  }
+
+  /**
+   * Whether every commit is synced, for stores that sync commits via a
+   * configuration setting rather than an explicit call.
+   *
+   * @return true if durability is <code>commit-sync</code>
+   */
+  boolean everyCommit() {
+    return every == 1;
+  }
+
+  /**
+   * Whether no commit is synced.
+   *
+   * @return true if durability is <code>none</code>
+   */
+  boolean none() {
+    return every == 0;
+  }
+
+  /**
+   * Records a commit and returns whether it is to be synced.
+   *
+   * @param last whether this is the last commit of the benchmark operation
+   * @return true if the commit is to be synced
+   */
+  boolean sync(final boolean last) {
+    if (every == 0) {
+      return false;
+    }
+    commits++;
+    if (commits >= every || last) {
+      commits = 0;
+      return true;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,123 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import java.io.IOException;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import static org.lmdbjava.bench.Common.RND_MB;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import static org.openjdk.jmh.annotations.Level.Trial;
+import org.openjdk.jmh.annotations.Measurement;
+import static org.openjdk.jmh.annotations.Mode.SampleTime;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Baseline cost of producing the keys and values of a "write" without any
+ * store, so it can be subtracted from (or compared with) the store results.
+ *
+ * <p>
+ * "dataset" visits each {@link Dataset} entry as the stores do, while "format"
+ * builds each entry on the fly as the stores did before the dataset existed.
+ */
+@OutputTimeUnit(MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 3)
+@BenchmarkMode(SampleTime)
+@SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
+public class Generator {
+
+  @Benchmark
+  public void dataset(final Source s, final Blackhole bh) {
+    for (int i = 0; i < s.keys.length; i++) {
+      s.dsKey.wrap(s.dataset.key(i), s.keySize);
+      s.dsVal.wrap(s.dataset.val(i), s.valSize);
+      bh.consume(s.dsKey.getInt(0));
+      bh.consume(s.dsVal.getInt(0));
+    }
+  }
+
+  @Benchmark
+  public void format(final Source s, final Blackhole bh) {
+    final int rndByteMax = RND_MB.length - s.valSize;
+    int rndByteOffset = 0;
+    for (final int key : s.keys) {
+      if (s.intKey) {
+        s.rwKey.putInt(0, key);
+      } else {
+        s.rwKey.putStringWithoutLengthUtf8(0, s.padKey(key));
+      }
+      if (s.valRandom) {
+        s.rwVal.putBytes(0, RND_MB, rndByteOffset, s.valSize);
+        rndByteOffset += s.valSize;
+        if (rndByteOffset >= rndByteMax) {
+          rndByteOffset = 0;
+        }
+      } else {
+        s.rwVal.putInt(0, key);
+      }
+      bh.consume(s.rwKey.getInt(0));
+      bh.consume(s.rwVal.getInt(0));
+    }
+  }
+
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Source extends Common {
+
+    /**
+     * Views of the {@link #dataset} key and value being visited.
+     */
+    final UnsafeBuffer dsKey = new UnsafeBuffer(0, 0);
+    final UnsafeBuffer dsVal = new UnsafeBuffer(0, 0);
+
+    /**
+     * Scratch buffers of "format", as used by the stores' "write" before.
+     */
+    MutableDirectBuffer rwKey;
+    MutableDirectBuffer rwVal;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      rwKey = new UnsafeBuffer(new byte[keySize]);
+      rwVal = new UnsafeBuffer(new byte[valSize]);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+}
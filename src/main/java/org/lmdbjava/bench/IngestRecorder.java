@@ -0,0 +1,161 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static java.lang.System.out;
+import static java.util.Arrays.copyOf;
+import static java.util.Arrays.sort;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import java.util.function.LongSupplier;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Records the commits of a sustained ingest in one second windows, so that
+ * write stalls, compaction debt and log garbage collection pauses show up as a
+ * time series rather than disappearing into one average.
+ *
+ * <p>
+ * Each window holds the entries and commits completed in it, plus the 99th
+ * percentile and maximum commit latency. A commit that spans several windows
+ * leaves the windows it stalled empty. Windows are recorded from the first
+ * commit, including warm up, as compaction debt builds up from the first
+ * write. Like {@link LatencyRecorder}, a recorder is single-threaded.
+ */
+final class IngestRecorder {
+
+  private static final int INITIAL_WINDOWS = 1_024;
+  private static final double P99 = 99.0;
+  private static final int SIGNIFICANT_DIGITS = 3;
+  private static final double STALL_FRACTION = 0.5;
+  private static final long HIGHEST = HOURS.toNanos(1);
+  private static final long WINDOW = SECONDS.toNanos(1);
+
+  private long commits;
+  private long[] commitCounts = new long[INITIAL_WINDOWS];
+  private final LongSupplier debt;
+  private long[] debts = new long[INITIAL_WINDOWS];
+  private long entries;
+  private long[] entryCounts = new long[INITIAL_WINDOWS];
+  private final Histogram histogram = new Histogram(HIGHEST,
+                                                    SIGNIFICANT_DIGITS);
+  private long[] maxes = new long[INITIAL_WINDOWS];
+  private long[] p99s = new long[INITIAL_WINDOWS];
+  private long windowEnd;
+  private int windows;
+
+  /**
+   * Creates a recorder.
+   *
+   * @param debt supplies the store's pending compaction bytes at the end of
+   *             each window, or -1 if the store does not expose them
+   */
+  IngestRecorder(final LongSupplier debt) {
+    this.debt = debt;
+  }
+
+  /**
+   * Emits a <code>Stalls</code> line to <code>System.out</code>, in the same
+   * tab-separated style as the <code>Bytes</code> lines, and writes the time
+   * series to <code>ingest-benchId.tsv</code> in the current directory. The
+   * line holds the number of complete windows, the number of stalled windows
+   * (below half the median entries/sec), the median and minimum entries/sec
+   * and the maximum commit latency in nanoseconds.
+   *
+   * @param benchId the JMH benchmark ID
+   */
+  @SuppressWarnings("UseOfSystemOutOrSystemErr")
+  void report(final String benchId) {
+    if (windows == 0) {
+      return;
+    }
+    final long[] sorted = copyOf(entryCounts, windows);
+    sort(sorted);
+    final long median = sorted[windows / 2];
+    int stalled = 0;
+    long worst = 0;
+    for (int i = 0; i < windows; i++) {
+      if (entryCounts[i] < median * STALL_FRACTION) {
+        stalled++;
+      }
+      worst = max(worst, maxes[i]);
+    }
+    out.println("\nStalls\t" + windows + "\t" + stalled + "\t" + median
+                    + "\t" + sorted[0] + "\t" + worst + "\t" + benchId);
+    final File tsv = new File("ingest-" + benchId + ".tsv");
+    try (PrintStream ps = new PrintStream(tsv, "UTF-8")) {
+      ps.println("second\tentries\tcommits\tp99\tmax\tdebt");
+      for (int i = 0; i < windows; i++) {
+        ps.println((i + 1) + "\t" + entryCounts[i] + "\t" + commitCounts[i]
+                       + "\t" + p99s[i] + "\t" + maxes[i] + "\t" + debts[i]);
+      }
+    } catch (final IOException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   * Records a commit that started at the given time, first closing any
+   * windows that ended before it completed.
+   *
+   * @param start   when the commit started, from {@link System#nanoTime()}
+   * @param written entries in the commit
+   */
+  void record(final long start, final int written) {
+    final long now = nanoTime();
+    if (windowEnd == 0) {
+      windowEnd = start + WINDOW;
+    }
+    while (now >= windowEnd) {
+      closeWindow();
+      windowEnd += WINDOW;
+    }
+    histogram.recordValue(min(now - start, HIGHEST));
+    commits++;
+    entries += written;
+  }
+
+  private void closeWindow() {
+    if (windows == entryCounts.length) {
+      final int capacity = windows * 2;
+      commitCounts = copyOf(commitCounts, capacity);
+      debts = copyOf(debts, capacity);
+      entryCounts = copyOf(entryCounts, capacity);
+      maxes = copyOf(maxes, capacity);
+      p99s = copyOf(p99s, capacity);
+    }
+    commitCounts[windows] = commits;
+    debts[windows] = debt.getAsLong();
+    entryCounts[windows] = entries;
+    maxes[windows] = histogram.getMaxValue();
+    p99s[windows] = histogram.getValueAtPercentile(P99);
+    windows++;
+    commits = 0;
+    entries = 0;
+    histogram.reset();
+  }
+}
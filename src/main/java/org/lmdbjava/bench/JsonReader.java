@@ -0,0 +1,204 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import java.io.IOException;
+import java.io.Reader;
+import static java.lang.Character.isWhitespace;
+import static java.lang.Integer.parseInt;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal streaming reader of the JSON emitted by JMH's <code>-rf json</code>.
+ *
+ * <p>
+ * Values are returned as {@link Map}, {@link List}, {@link String},
+ * {@link Double}, {@link Boolean} or null. The top-level array is read one
+ * element at a time via {@link #next(char)}, so a large multi-fork result file
+ * is never held in memory as a whole.
+ */
+final class JsonReader {
+
+  private static final int HEX = 16;
+  private static final int UNICODE_DIGITS = 4;
+  private int c;
+  private final Reader in;
+
+  JsonReader(final Reader in) throws IOException {
+    this.in = in;
+    read();
+  }
+
+  /**
+   * Consumes the given opening bracket.
+   *
+   * @param open '[' or '{'
+   * @throws IOException if the input cannot be read or is malformed
+   */
+  void begin(final char open) throws IOException {
+    expect(open);
+  }
+
+  /**
+   * Advances to the next element of the current array or object.
+   *
+   * @param close the closing bracket of the current array or object
+   * @return true if an element follows, false if the bracket was consumed
+   * @throws IOException if the input cannot be read or is malformed
+   */
+  boolean next(final char close) throws IOException {
+    skipWhitespace();
+    if (c == close) {
+      read();
+      return false;
+    }
+    if (c == ',') {
+      read();
+      skipWhitespace();
+    }
+    if (c == -1) {
+      throw new IOException("Unexpected end of JSON");
+    }
+    return true;
+  }
+
+  /**
+   * Reads the next complete value.
+   *
+   * @return the value
+   * @throws IOException if the input cannot be read or is malformed
+   */
+  Object value() throws IOException {
+    skipWhitespace();
+    switch (c) {
+      case '{':
+        read();
+        final Map<String, Object> obj = new LinkedHashMap<>();
+        while (next('}')) {
+          final String key = string();
+          skipWhitespace();
+          expect(':');
+          obj.put(key, value());
+        }
+        return obj;
+      case '[':
+        read();
+        final List<Object> arr = new ArrayList<>();
+        while (next(']')) {
+          arr.add(value());
+        }
+        return arr;
+      case '"':
+        return string();
+      default:
+        return literal();
+    }
+  }
+
+  private void expect(final char expected) throws IOException {
+    skipWhitespace();
+    if (c != expected) {
+      throw new IOException("Expected '" + expected + "' in JSON");
+    }
+    read();
+  }
+
+  private Object literal() throws IOException {
+    final StringBuilder sb = new StringBuilder();
+    while (c != -1 && c != ',' && c != '}' && c != ']' && !isWhitespace(c)) {
+      sb.append((char) c);
+      read();
+    }
+    final String s = sb.toString();
+    switch (s) {
+      case "true":
+        return Boolean.TRUE;
+      case "false":
+        return Boolean.FALSE;
+      case "null":
+        return null;
+      default:
+        try {
+          return Double.valueOf(s);
+        } catch (final NumberFormatException ex) {
+          throw new IOException("Invalid JSON literal '" + s + "'", ex);
+        }
+    }
+  }
+
+  private void read() throws IOException {
+    c = in.read();
+  }
+
+  private void skipWhitespace() throws IOException {
+    while (c != -1 && isWhitespace(c)) {
+      read();
+    }
+  }
+
+  private String string() throws IOException {
+    expect('"');
+    final StringBuilder sb = new StringBuilder();
+    while (c != '"') {
+      if (c == -1) {
+        throw new IOException("Unterminated JSON string");
+      }
+      if (c == '\\') {
+        read();
+        switch (c) {
+          case 'b':
+            sb.append('\b');
+            break;
+          case 'f':
+            sb.append('\f');
+            break;
+          case 'n':
+            sb.append('\n');
+            break;
+          case 'r':
+            sb.append('\r');
+            break;
+          case 't':
+            sb.append('\t');
+            break;
+          case 'u':
+            final char[] hex = new char[UNICODE_DIGITS];
+            for (int i = 0; i < UNICODE_DIGITS; i++) {
+              read();
+              hex[i] = (char) c;
+            }
+            sb.append((char) parseInt(new String(hex), HEX));
+            break;
+          default:
+            sb.append((char) c);
+        }
+      } else {
+        sb.append((char) c);
+      }
+      read();
+    }
+    read();
+    return sb.toString();
+  }
+}
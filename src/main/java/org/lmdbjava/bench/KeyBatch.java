@@ -0,0 +1,98 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.lang.Math.min;
+import static java.util.Arrays.sort;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.Param;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parameters and scratch space of the "readKeyBatch" benchmarks, which look up
+ * {@link Common#readKeys} in batches rather than one call per key.
+ *
+ * <p>
+ * Members do not reflect the typical code standards of the LmdbJava project due
+ * to compliance requirements with JMH {@link Param} and {@link State}.
+ */
+@State(Benchmark)
+@SuppressWarnings({"checkstyle:designforextension",
+                   "checkstyle:visibilitymodifier"})
+public class KeyBatch {
+
+  /**
+   * Number of keys looked up by each batch.
+   */
+  @Param("100")
+  int batchGetSize;
+
+  private MutableDirectBuffer[] buffers;
+  private int[] indexSource;
+  private int[] sortedIndexes;
+
+  /**
+   * Returns one key buffer per batch entry, for APIs that take a collection of
+   * keys. Backed by plain byte[]s and allocated on first use.
+   *
+   * @param keySize the size of each key
+   * @return the buffers
+   */
+  MutableDirectBuffer[] buffers(final int keySize) {
+    if (buffers == null || buffers[0].capacity() != keySize) {
+      buffers = new MutableDirectBuffer[batchGetSize];
+      for (int i = 0; i < batchGetSize; i++) {
+        buffers[i] = new UnsafeBuffer(new byte[keySize]);
+      }
+    }
+    return buffers;
+  }
+
+  /**
+   * Returns a copy of the indexes in which each batch is sorted into ascending
+   * order of the keys they index, which is also the store order of both integer
+   * and zero-padded string keys. Computed on first use.
+   *
+   * @param keys    the keys in lookup order
+   * @param indexes the {@link Common#dataset} index of each key
+   * @return the indexes with each batch sorted by key
+   */
+  int[] sortedIndexBatches(final int[] keys, final int[] indexes) {
+    if (indexSource != indexes) {
+      final long[] pairs = new long[indexes.length];
+      for (int i = 0; i < pairs.length; i++) {
+        pairs[i] = (long) keys[i] << Integer.SIZE | indexes[i];
+      }
+      sortedIndexes = new int[indexes.length];
+      for (int i = 0; i < pairs.length; i += batchGetSize) {
+        final int end = min(i + batchGetSize, pairs.length);
+        sort(pairs, i, end);
+        for (int j = i; j < end; j++) {
+          sortedIndexes[j] = (int) pairs[j];
+        }
+      }
+      indexSource = indexes;
+    }
+    return sortedIndexes;
+  }
+}
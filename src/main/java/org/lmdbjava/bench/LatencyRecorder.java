@@ -0,0 +1,104 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static java.lang.System.out;
+import static java.util.concurrent.TimeUnit.HOURS;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Records the latency of individual operations into a pre-allocated
+ * {@link Histogram}, so recording does not allocate.
+ *
+ * <p>
+ * A recorder is single-threaded. When disabled, {@link #start()} and
+ * {@link #stop(long)} do not read the clock, leaving only a predictable branch
+ * in the benchmark loop.
+ */
+final class LatencyRecorder {
+
+  private static final double[] PERCENTILES = {50.0, 99.0, 99.9};
+  private static final int SIGNIFICANT_DIGITS = 3;
+  private static final long HIGHEST = HOURS.toNanos(1);
+
+  private final boolean enabled;
+  private final Histogram histogram;
+  private boolean measuring;
+
+  LatencyRecorder(final boolean enabled) {
+    this.enabled = enabled;
+    histogram = enabled ? new Histogram(HIGHEST, SIGNIFICANT_DIGITS) : null;
+  }
+
+  /**
+   * Sets whether operations are currently recorded. Used to exclude setup and
+   * warm up iterations.
+   *
+   * @param measuring true during measurement iterations
+   */
+  void measuring(final boolean measuring) {
+    this.measuring = measuring;
+  }
+
+  /**
+   * Emits a <code>Latency</code> line (in nanoseconds) to
+   * <code>System.out</code>, in the same tab-separated style as the
+   * <code>Bytes</code> lines, and writes the full percentile distribution to
+   * <code>latency-benchId.hgrm</code> in the current directory.
+   *
+   * @param benchId the JMH benchmark ID
+   */
+  @SuppressWarnings("UseOfSystemOutOrSystemErr")
+  void report(final String benchId) {
+    if (!enabled || histogram.getTotalCount() == 0) {
+      return;
+    }
+    final StringBuilder sb = new StringBuilder(128);
+    sb.append("\nLatency\t").append(histogram.getTotalCount());
+    for (final double p : PERCENTILES) {
+      sb.append('\t').append(histogram.getValueAtPercentile(p));
+    }
+    sb.append('\t').append(histogram.getMaxValue());
+    sb.append('\t').append(benchId);
+    out.println(sb);
+    final File hgrm = new File("latency-" + benchId + ".hgrm");
+    try (PrintStream ps = new PrintStream(hgrm, "UTF-8")) {
+      histogram.outputPercentileDistribution(ps, 1.0);
+    } catch (final IOException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  long start() {
+    return enabled ? nanoTime() : 0L;
+  }
+
+  void stop(final long start) {
+    if (enabled && measuring) {
+      histogram.recordValue(min(nanoTime() - start, HIGHEST));
+    }
+  }
+}
@@ -21,36 +21,57 @@
 package org.lmdbjava.bench;
 
 import java.io.IOException;
-import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import java.util.Map.Entry;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
 import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 import static org.fusesource.leveldbjni.JniDBFactory.factory;
 import static org.fusesource.leveldbjni.JniDBFactory.popMemoryPool;
 import static org.fusesource.leveldbjni.JniDBFactory.pushMemoryPool;
+import org.iq80.leveldb.CompressionType;
 import static org.iq80.leveldb.CompressionType.NONE;
+import static org.iq80.leveldb.CompressionType.SNAPPY;
 import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBIterator;
 import org.iq80.leveldb.Options;
+import org.iq80.leveldb.ReadOptions;
+import org.iq80.leveldb.Snapshot;
 import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
+import static org.lmdbjava.bench.Common.startsWith;
+import static org.lmdbjava.bench.Crasher.configure;
+import static org.lmdbjava.bench.Crasher.crash;
+import static org.lmdbjava.bench.Crasher.writing;
+import static org.lmdbjava.bench.YcsbWorkload.READ;
+import static org.lmdbjava.bench.YcsbWorkload.RMW;
+import static org.lmdbjava.bench.YcsbWorkload.SCAN;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import static org.openjdk.jmh.annotations.Level.Invocation;
+import static org.openjdk.jmh.annotations.Level.Iteration;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import org.openjdk.jmh.annotations.Measurement;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.infra.ThreadParams;
 
 @OutputTimeUnit(MILLISECONDS)
 @Fork(1)
@@ -60,6 +81,76 @@ import org.openjdk.jmh.infra.Blackhole;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class LevelDb {
 
+  @Benchmark
+  public void churn(final Updater u, final Blackhole bh) throws
+      IOException {
+    u.churn();
+  }
+
+  @Benchmark
+  public void delete(final Updater u, final Blackhole bh) throws
+      IOException {
+    u.delete();
+  }
+
+  @Benchmark
+  public void dupRead(final DupReader r, final Blackhole bh) throws
+      IOException {
+    try (DBIterator iterator = r.db.iterator()) {
+      for (final int idx : r.readIndexes) {
+        r.dataset.key(idx, r.prefix);
+        final long start = r.latency.start();
+        iterator.seek(r.prefix);
+        while (iterator.hasNext()) {
+          final Entry<byte[], byte[]> entry = iterator.next();
+          if (!startsWith(entry.getKey(), r.prefix)) {
+            break;
+          }
+          bh.consume(entry.getValue());
+        }
+        r.latency.stop(start);
+      }
+    }
+  }
+
+  @Benchmark
+  public void dupWrite(final DupWriter w, final Blackhole bh) throws
+      IOException {
+    w.writeDups();
+  }
+
+  @Benchmark
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1, time = 1, timeUnit = MINUTES)
+  public void ingest(final Ingester i, final Blackhole bh) throws IOException {
+    i.ingest();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedRead(final MixedReader t, final Blackhole bh) {
+    t.m.dataset.key(t.nextIndex(), t.wkb.byteArray());
+    bh.consume(t.m.db.get(t.wkb.byteArray()));
+    t.m.throttle.read();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedWrite(final Mixed m, final Control c, final Blackhole bh) {
+    bh.consume(m.put(c));
+  }
+
+  @Benchmark
+  public void open(final Opener o, final Blackhole bh) throws IOException {
+    o.close();
+    o.open();
+    o.firstGet(bh);
+  }
+
   @Benchmark
   public void readCrc(final Reader r, final Blackhole bh) throws IOException {
     r.crc.reset();
@@ -75,13 +166,52 @@ public class LevelDb {
 
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) throws IOException {
-    for (final int key : r.keys) {
-      if (r.intKey) {
-        r.wkb.putInt(0, key);
-      } else {
-        r.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
-      }
+    for (final int idx : r.readIndexes) {
+      r.dataset.key(idx, r.wkb.byteArray());
+      final long start = r.latency.start();
       bh.consume(r.db.get(r.wkb.byteArray()));
+      r.latency.stop(start);
+    }
+  }
+
+  @Benchmark
+  public void readKeyBatch(final Reader r, final KeyBatch k,
+                           final Blackhole bh) throws IOException {
+    // LevelDB has no multi-get, so each batch shares a snapshot instead
+    final ReadOptions ro = new ReadOptions();
+    for (int i = 0; i < r.readKeys.length; i += k.batchGetSize) {
+      final int end = min(i + k.batchGetSize, r.readKeys.length);
+      try (Snapshot snapshot = r.db.getSnapshot()) {
+        ro.snapshot(snapshot);
+        for (int j = i; j < end; j++) {
+          r.dataset.key(r.readIndexes[j], r.wkb.byteArray());
+          bh.consume(r.db.get(r.wkb.byteArray(), ro));
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void readKeyMt(final ThreadReader t, final Blackhole bh) throws
+      IOException {
+    for (final int idx : t.r.readIndexes) {
+      t.r.dataset.key(idx, t.wkb.byteArray());
+      bh.consume(t.r.db.get(t.wkb.byteArray()));
+    }
+  }
+
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh)
+      throws IOException {
+    try (DBIterator iterator = r.db.iterator()) {
+      for (int s = 0; s < g.scans; s++) {
+        r.dataset.key(r.readIndexes[s % r.readIndexes.length],
+                      r.wkb.byteArray());
+        iterator.seek(r.wkb.byteArray());
+        for (int i = 0; iterator.hasNext() && i < g.rangeLength; i++) {
+          bh.consume(iterator.next().getValue());
+        }
+      }
     }
   }
 
@@ -105,6 +235,17 @@ public class LevelDb {
     }
   }
 
+  @Benchmark
+  public void readSeqMt(final ThreadReader t, final Blackhole bh) throws
+      IOException {
+    try (DBIterator iterator = t.r.db.iterator()) {
+      for (iterator.seekToFirst(); iterator.hasNext(); iterator.next()) {
+        final Entry<byte[], byte[]> peeked = iterator.peekNext();
+        bh.consume(peeked.getValue());
+      }
+    }
+  }
+
   @Benchmark
   public void readXxh64(final Reader r, final Blackhole bh) throws IOException {
     long result = 0;
@@ -118,6 +259,41 @@ public class LevelDb {
     bh.consume(result);
   }
 
+  @Benchmark
+  public void ycsb(final Ycsb y, final Blackhole bh) throws IOException {
+    final YcsbWorkload w = y.w;
+    for (int i = 0; i < w.ops.length; i++) {
+      final int key = w.opKeys[i];
+      switch (w.ops[i]) {
+        case READ:
+          y.read(key, bh);
+          break;
+        case SCAN:
+          y.scan(key, w.scanLengths[i], bh);
+          break;
+        case RMW:
+          y.rmw(key);
+          break;
+        default:
+          y.put(key);
+          break;
+      }
+    }
+  }
+
+  @Benchmark
+  public void recover(final Recoverer r, final Blackhole bh) throws
+      IOException {
+    r.open();
+    r.firstGet(bh);
+  }
+
+  @Benchmark
+  public void update(final Updater u, final Blackhole bh) throws
+      IOException {
+    u.write(u.batchSize);
+  }
+
   @Benchmark
   public void write(final Writer w, final Blackhole bh) throws IOException {
     w.write(w.batchSize);
@@ -125,7 +301,22 @@ public class LevelDb {
 
   @State(value = Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
-  public static class CommonLevelDb extends Common {
+  public static class CommonLevelDb extends CommonTxn {
+
+    static final WriteOptions NO_SYNC = new WriteOptions();
+    static final WriteOptions SYNC = new WriteOptions().sync(true);
+
+    /**
+     * Block compression of the store: "none" or "snappy" (the only codecs of
+     * LevelDB).
+     */
+    @Param("none")
+    String compression;
+
+    /**
+     * The codec of {@link #compression}, resolved by {@link #init()}.
+     */
+    CompressionType codec;
 
     DB db;
 
@@ -142,52 +333,225 @@ public class LevelDb {
     @Override
     public void setup(final BenchmarkParams b) throws IOException {
       super.setup(b);
+      init();
+      open();
+    }
+
+    @Override
+    public void teardown() throws IOException {
+      reportSpaceBeforeClose();
+      close();
+      popMemoryPool();
+      super.teardown();
+    }
+
+    void close() throws IOException {
+      db.close();
+    }
+
+    /**
+     * Resolves the parameters and creates the buffers of the store, before it
+     * is first opened by either the JMH setup or the "recover" child.
+     */
+    void init() {
       wkb = new UnsafeBuffer(new byte[keySize]);
       wvb = new UnsafeBuffer(new byte[valSize]);
+      codec = compressionType();
       pushMemoryPool(1_024 * 512);
+    }
+
+    /**
+     * Opens the store in {@link #tmp}, which may already hold data that was
+     * written before an earlier {@link #close()}.
+     */
+    void open() throws IOException {
       final Options options = new Options();
       options.createIfMissing(true);
-      options.compressionType(NONE);
+      options.compressionType(codec);
       db = factory.open(tmp, options);
     }
 
-    @Override
-    public void teardown() throws IOException {
-      reportSpaceBeforeClose();
-      db.close();
-      popMemoryPool();
-      super.teardown();
+    private CompressionType compressionType() {
+      switch (compression) {
+        case "none":
+          return NONE;
+        case "snappy":
+          return SNAPPY;
+        default:
+          throw new IllegalArgumentException("LevelDB has no compression "
+                                                 + compression);
+      }
     }
 
-    void write(final int batchSize) throws IOException {
-      final int rndByteMax = RND_MB.length - valSize;
-      int rndByteOffset = 0;
-      WriteBatch batch = db.createWriteBatch();
-      for (int i = 0; i < keys.length; i++) {
-        final int key = keys[i];
-        if (intKey) {
-          wkb.putInt(0, key, LITTLE_ENDIAN);
-        } else {
-          wkb.putStringWithoutLengthUtf8(0, padKey(key));
-        }
-        if (valRandom) {
-          wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
-          rndByteOffset += valSize;
-          if (rndByteOffset >= rndByteMax) {
-            rndByteOffset = 0;
+    @Override
+    void commit(final int from, final int to, final boolean last) throws
+        IOException {
+      try (WriteBatch batch = db.createWriteBatch()) {
+        for (int i = from; i < to; i++) {
+          dataset.key(i, wkb.byteArray());
+          dataset.val(i, wvb.byteArray());
+          // a batch-completing put also carries the cost of writing the batch
+          final long start = latency.start();
+          batch.put(wkb.byteArray(), wvb.byteArray());
+          if (i == to - 1) {
+            db.write(batch, durable.sync(last) ? SYNC : NO_SYNC);
           }
-        } else {
-          wvb.putInt(0, key);
+          latency.stop(start);
         }
-        batch.put(wkb.byteArray(), wvb.byteArray());
-        if (i % batchSize == 0) {
-          db.write(batch);
-          batch.close();
-          batch = db.createWriteBatch();
+      }
+    }
+  }
+
+  /**
+   * Store of {@link #valuesPerKey} values for each key, emulating duplicate
+   * keys with composite keys (see {@link Dataset#dupKey(int, int, byte[])}).
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Dups extends CommonLevelDb {
+
+    /**
+     * Entries per write batch unless {@link #txnSize} is set (in keys), as for
+     * the default "batchSize" of the "write" benchmark.
+     */
+    private static final int BATCH_ENTRIES = 1_000_000;
+
+    byte[] dupKey;
+    byte[] dupVal;
+
+    /**
+     * The key whose composite keys are read.
+     */
+    byte[] prefix;
+
+    /**
+     * Number of values of each key. Each value is {@link #valSize} bytes, of
+     * which the first four are its big-endian number.
+     */
+    @Param("10")
+    int valuesPerKey;
+
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      if (valSize < Integer.BYTES) {
+        throw new IllegalArgumentException("valSize must be at least 4");
+      }
+      super.setup(b);
+      dupKey = new byte[keySize + Integer.BYTES];
+      dupVal = new byte[valSize];
+      prefix = new byte[keySize];
+    }
+
+    void writeDups() throws IOException {
+      final int size = txnSize(max(BATCH_ENTRIES / valuesPerKey, 1));
+      for (int i = 0; i < keys.length; i += size) {
+        final int end = min(i + size, keys.length);
+        final long start = commits.start();
+        try (WriteBatch batch = db.createWriteBatch()) {
+          for (int j = i; j < end; j++) {
+            for (int v = 0; v < valuesPerKey; v++) {
+              dataset.dupKey(j, v, dupKey);
+              dataset.dupVal(j, v, dupVal);
+              batch.put(dupKey, dupVal);
+            }
+          }
+          db.write(batch, durable.sync(end == keys.length) ? SYNC : NO_SYNC);
         }
+        commits.stop(start, (end - i) * valuesPerKey);
       }
-      db.write(batch); // possible partial batch
-      batch.close();
+    }
+  }
+
+  /**
+   * Populated {@link Dups} store for the "dupRead" benchmark, which reads all
+   * values of each key (in {@link #keyDistribution} order) by seeking to the
+   * key and iterating while the composite keys start with it.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class DupReader extends Dups {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      writeDups();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Empty {@link Dups} store that the "dupWrite" benchmark fills.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class DupWriter extends Dups {
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Store that "ingest" writes continuously from empty, for the wall time of
+   * its single measurement iteration.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Ingester extends CommonLevelDb {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      reportSpaceUsed(tmp, "after-ingest");
+      super.teardown();
+    }
+  }
+
+  /**
+   * Populated store that the "open" benchmark closes and reopens, reading one
+   * key so that any work deferred until first access is included. Only
+   * meaningful with a single benchmark thread.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Opener extends CommonLevelDb {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write(num);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void firstGet(final Blackhole bh) {
+      dataset.key(0, wkb.byteArray());
+      bh.consume(db.get(wkb.byteArray()));
     }
   }
 
@@ -201,6 +565,16 @@ public class LevelDb {
       super.write(num);
     }
 
+    @Setup(Iteration)
+    public void coldCacheIteration() throws IOException {
+      if (!coldCache) {
+        return;
+      }
+      close();
+      dropPageCache(tmp);
+      open();
+    }
+
     @TearDown(Trial)
     @Override
     public void teardown() throws IOException {
@@ -208,6 +582,217 @@ public class LevelDb {
     }
   }
 
+  /**
+   * Shared, pre-populated store for the "mixed" group. A single writer thread
+   * updates existing keys (one entry per committed transaction) while the
+   * other threads perform point reads. Use <code>-tg</code> to change the
+   * number of reader threads; the writer count must remain one.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Mixed extends CommonLevelDb {
+
+    /**
+     * Maximum percentage of all mixed operations that are writes.
+     */
+    @Param("5")
+    int writePct;
+
+    WriteThrottle throttle;
+    private int rndByteOffset;
+    private int writeIdx;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write(num);
+      throttle = new WriteThrottle(writePct);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    boolean put(final Control control) {
+      if (!throttle.awaitWrite(control)) {
+        return false;
+      }
+      final int key = keys[writeIdx];
+      dataset.key(writeIdx, wkb.byteArray());
+      writeIdx++;
+      if (writeIdx == keys.length) {
+        writeIdx = 0;
+      }
+      if (valRandom) {
+        wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
+        rndByteOffset += valSize;
+        if (rndByteOffset >= RND_MB.length - valSize) {
+          rndByteOffset = 0;
+        }
+      } else {
+        wvb.putInt(0, key);
+      }
+      final long start = latency.start();
+      db.put(wkb.byteArray(), wvb.byteArray());
+      latency.stop(start);
+      return true;
+    }
+  }
+
+  /**
+   * Per-thread state for "mixed" readers. Each thread starts at a different
+   * offset into the key order.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class MixedReader {
+
+    int idx;
+    Mixed m;
+
+    /**
+     * Writable key buffer. Backed by a plain byte[] for LevelDB API ease.
+     */
+    MutableDirectBuffer wkb;
+
+    @Setup(Trial)
+    public void setup(final Mixed mixed, final ThreadParams tp) {
+      m = mixed;
+      idx = tp.getThreadIndex() * (m.readKeys.length / tp.getThreadCount());
+      wkb = new UnsafeBuffer(new byte[m.keySize]);
+    }
+
+    int nextIndex() {
+      idx++;
+      if (idx == m.readIndexes.length) {
+        idx = 0;
+      }
+      return m.readIndexes[idx];
+    }
+  }
+
+  /**
+   * {@link Opener} store that is left by an unclean shutdown before each
+   * "recover" invocation, as a child JVM writing to it is killed. The
+   * benchmark then measures the reopen (including any recovery) and first get.
+   */
+  @State(Benchmark)
+  public static class Recoverer extends Opener {
+
+    /**
+     * Entries per write batch in the child, so the killed child leaves a log
+     * holding many small writes to replay.
+     */
+    private static final int CHILD_BATCH_SIZE = 1_000;
+
+    public static void main(final String[] args) throws IOException {
+      final Recoverer r = new Recoverer();
+      configure(r, args);
+      r.init();
+      r.open();
+      writing();
+      while (true) {
+        r.write(CHILD_BATCH_SIZE);
+      }
+    }
+
+    @Setup(Invocation)
+    public void crashInvocation() throws IOException {
+      close();
+      crash(Recoverer.class, this);
+    }
+  }
+
+  /**
+   * Per-thread key buffer over the shared {@link Reader} store, allowing
+   * read benchmarks to be run with any JMH thread count.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    Reader r;
+
+    /**
+     * Writable key buffer. Backed by a plain byte[] for LevelDB API ease.
+     */
+    MutableDirectBuffer wkb;
+
+    @Setup(Trial)
+    public void setup(final Reader reader) {
+      r = reader;
+      wkb = new UnsafeBuffer(new byte[r.keySize]);
+    }
+  }
+
+  /**
+   * Populated store for the "update", "delete" and "churn" benchmarks. It is
+   * rebuilt before each invocation, so every invocation starts from a store
+   * holding all {@link #keys}.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Updater extends CommonLevelDb {
+
+    @Param("1000000")
+    int batchSize;
+
+    /**
+     * Number of delete-all and reinsert-all cycles in each "churn" invocation.
+     * Space used is reported after each cycle.
+     */
+    @Param("3")
+    int churnCycles;
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      // latency is only recorded by the "readKey" and "write" benchmarks
+      latency.measuring(false);
+      commits.paused(true);
+      super.write(batchSize);
+      commits.paused(false);
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void churn() throws IOException {
+      for (int cycle = 1; cycle <= churnCycles; cycle++) {
+        delete();
+        write(batchSize);
+        reportSpaceUsed(tmp, "churn-" + cycle);
+      }
+    }
+
+    void delete() throws IOException {
+      final int size = txnSize(batchSize);
+      for (int i = 0; i < keys.length; i += size) {
+        final int end = min(i + size, keys.length);
+        final long start = commits.start();
+        try (WriteBatch batch = db.createWriteBatch()) {
+          for (int j = i; j < end; j++) {
+            key(j);
+            batch.delete(wkb.byteArray());
+          }
+          db.write(batch, durable.sync(end == keys.length) ? SYNC : NO_SYNC);
+        }
+        commits.stop(start, end - i);
+      }
+    }
+
+    private void key(final int idx) {
+      dataset.key(idx, wkb.byteArray());
+    }
+  }
+
   @State(Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
   public static class Writer extends CommonLevelDb {
@@ -228,4 +813,75 @@ public class LevelDb {
     }
   }
 
+  /**
+   * Populated store driven by a {@link YcsbWorkload} operation stream. Each
+   * read, scan, update, insert and read-modify-write is its own transaction.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Ycsb extends CommonLevelDb {
+
+    private int rndByteOffset;
+    YcsbWorkload w;
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final YcsbWorkload workload)
+        throws IOException {
+      super.setup(b);
+      super.write(num);
+      w = workload;
+      w.generate(keys, sequential);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void put(final int key) {
+      key(key);
+      if (valRandom) {
+        wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
+        rndByteOffset += valSize;
+        if (rndByteOffset >= RND_MB.length - valSize) {
+          rndByteOffset = 0;
+        }
+      } else {
+        wvb.putInt(0, key);
+      }
+      db.put(wkb.byteArray(), wvb.byteArray());
+    }
+
+    void read(final int key, final Blackhole bh) {
+      key(key);
+      bh.consume(db.get(wkb.byteArray()));
+    }
+
+    void rmw(final int key) {
+      key(key);
+      final byte[] old = db.get(wkb.byteArray());
+      if (old != null) {
+        wvb.putBytes(0, old);
+      }
+      wvb.putInt(0, wvb.getInt(0) + 1);
+      db.put(wkb.byteArray(), wvb.byteArray());
+    }
+
+    void scan(final int key, final int length, final Blackhole bh) throws
+        IOException {
+      key(key);
+      try (DBIterator iterator = db.iterator()) {
+        iterator.seek(wkb.byteArray());
+        for (int i = 0; iterator.hasNext() && i < length; i++) {
+          bh.consume(iterator.next().getValue());
+        }
+      }
+    }
+
+    private void key(final int key) {
+      putKey(wkb, key);
+    }
+  }
+
 }
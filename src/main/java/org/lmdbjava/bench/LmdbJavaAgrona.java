@@ -22,10 +22,13 @@ package org.lmdbjava.bench;
 
 import java.io.IOException;
 import static java.lang.Boolean.TRUE;
+import static java.lang.Math.min;
 import static java.lang.System.setProperty;
 import static java.nio.ByteBuffer.allocateDirect;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
 import org.agrona.DirectBuffer;
 import org.agrona.MutableDirectBuffer;
@@ -35,6 +38,7 @@ import static org.lmdbjava.CopyFlags.MDB_CP_COMPACT;
 import org.lmdbjava.Cursor;
 import static org.lmdbjava.DirectBufferProxy.PROXY_DB;
 import static org.lmdbjava.GetOp.MDB_SET_KEY;
+import static org.lmdbjava.GetOp.MDB_SET_RANGE;
 import org.lmdbjava.PutFlags;
 import static org.lmdbjava.PutFlags.MDB_APPEND;
 import static org.lmdbjava.SeekOp.MDB_FIRST;
@@ -42,22 +46,34 @@ import static org.lmdbjava.SeekOp.MDB_LAST;
 import static org.lmdbjava.SeekOp.MDB_NEXT;
 import static org.lmdbjava.SeekOp.MDB_PREV;
 import org.lmdbjava.Txn;
+import static org.lmdbjava.bench.Crasher.configure;
+import static org.lmdbjava.bench.Crasher.crash;
+import static org.lmdbjava.bench.Crasher.writing;
+import static org.lmdbjava.bench.YcsbWorkload.READ;
+import static org.lmdbjava.bench.YcsbWorkload.RMW;
+import static org.lmdbjava.bench.YcsbWorkload.SCAN;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import static org.openjdk.jmh.annotations.Level.Invocation;
+import static org.openjdk.jmh.annotations.Level.Iteration;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import org.openjdk.jmh.annotations.Measurement;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.infra.ThreadParams;
 
 @OutputTimeUnit(MILLISECONDS)
 @Fork(1)
@@ -67,6 +83,73 @@ import org.openjdk.jmh.infra.Blackhole;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class LmdbJavaAgrona {
 
+  @Benchmark
+  @Group("backup")
+  @GroupThreads(1)
+  public void backupCopy(final Backup b, final Blackhole bh) {
+    b.copy();
+  }
+
+  @Benchmark
+  @Group("backup")
+  @GroupThreads(3)
+  @OutputTimeUnit(NANOSECONDS)
+  public void backupRead(final BackupReader t, final Blackhole bh) {
+    t.dsKey.wrap(t.b.dataset.key(t.nextIndex()), t.b.keySize);
+    t.txn.renew();
+    bh.consume(t.b.db.get(t.txn, t.dsKey));
+    t.txn.reset();
+  }
+
+  @Benchmark
+  public void bulkLoad(final BulkLoader l, final Blackhole bh) {
+    l.load();
+  }
+
+  @Benchmark
+  public void churn(final Updater u, final Blackhole bh) throws IOException {
+    u.churn();
+  }
+
+  @Benchmark
+  public void delete(final Updater u, final Blackhole bh) {
+    u.delete();
+  }
+
+  @Benchmark
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1, time = 1, timeUnit = MINUTES)
+  public void ingest(final Ingester i, final Blackhole bh) throws IOException {
+    i.ingest();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedRead(final MixedReader t, final Blackhole bh) {
+    t.dsKey.wrap(t.m.dataset.key(t.nextIndex()), t.m.keySize);
+    t.txn.renew();
+    bh.consume(t.m.db.get(t.txn, t.dsKey));
+    t.txn.reset();
+    t.m.throttle.read();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedWrite(final Mixed m, final Control c, final Blackhole bh) {
+    bh.consume(m.put(c));
+  }
+
+  @Benchmark
+  public void open(final Opener o, final Blackhole bh) {
+    o.close();
+    o.open(1, false);
+    o.firstGet(bh);
+  }
+
   @Benchmark
   public void readCrc(final Reader r, final Blackhole bh) {
     r.crc.reset();
@@ -82,17 +165,48 @@ public class LmdbJavaAgrona {
 
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) {
-    for (final int key : r.keys) {
-      if (r.intKey) {
-        r.rwKey.putInt(0, key);
-      } else {
-        r.rwKey.putStringWithoutLengthUtf8(0, r.padKey(key));
-      }
-      bh.consume(r.c.get(r.rwKey, MDB_SET_KEY));
+    for (int i = 0; i < r.readIndexes.length; i++) {
+      r.dsKey.wrap(r.dataset.key(r.readIndexes[i]), r.keySize);
+      final long start = r.latency.start();
+      bh.consume(r.cursors[r.readDbs[i]].get(r.dsKey, MDB_SET_KEY));
+      bh.consume(r.txn.val());
+      r.latency.stop(start);
+    }
+  }
+
+  @Benchmark
+  public void readKeyBatch(final Reader r, final KeyBatch k,
+                           final Blackhole bh) {
+    // one read transaction, visiting the keys of each batch in store order
+    for (final int idx : k.sortedIndexBatches(r.readKeys, r.readIndexes)) {
+      r.dsKey.wrap(r.dataset.key(idx), r.keySize);
+      bh.consume(r.c.get(r.dsKey, MDB_SET_KEY));
       bh.consume(r.txn.val());
     }
   }
 
+  @Benchmark
+  public void readKeyMt(final ThreadReader t, final Blackhole bh) {
+    for (final int idx : t.r.readIndexes) {
+      t.dsKey.wrap(t.r.dataset.key(idx), t.r.keySize);
+      bh.consume(t.c.get(t.dsKey, MDB_SET_KEY));
+      bh.consume(t.txn.val());
+    }
+  }
+
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh) {
+    for (int s = 0; s < g.scans; s++) {
+      final int idx = r.readIndexes[s % r.readIndexes.length];
+      r.dsKey.wrap(r.dataset.key(idx), r.keySize);
+      boolean found = r.c.get(r.dsKey, MDB_SET_RANGE);
+      for (int i = 0; found && i < g.rangeLength; i++) {
+        bh.consume(r.txn.val());
+        found = r.c.seek(MDB_NEXT);
+      }
+    }
+  }
+
   @Benchmark
   public void readRev(final Reader r, final Blackhole bh) {
     bh.consume(r.c.seek(MDB_LAST));
@@ -109,6 +223,14 @@ public class LmdbJavaAgrona {
     } while (r.c.seek(MDB_NEXT));
   }
 
+  @Benchmark
+  public void readSeqMt(final ThreadReader t, final Blackhole bh) {
+    bh.consume(t.c.seek(MDB_FIRST));
+    do {
+      bh.consume(t.txn.val());
+    } while (t.c.seek(MDB_NEXT));
+  }
+
   @Benchmark
   public void readXxh64(final Reader r, final Blackhole bh) {
     long result = 0;
@@ -121,7 +243,40 @@ public class LmdbJavaAgrona {
   }
 
   @Benchmark
-  public void write(final Writer w, final Blackhole bh) {
+  public void ycsb(final Ycsb y, final Blackhole bh) {
+    final YcsbWorkload w = y.w;
+    for (int i = 0; i < w.ops.length; i++) {
+      final int key = w.opKeys[i];
+      switch (w.ops[i]) {
+        case READ:
+          y.read(key, bh);
+          break;
+        case SCAN:
+          y.scan(key, w.scanLengths[i], bh);
+          break;
+        case RMW:
+          y.rmw(key);
+          break;
+        default:
+          y.put(key);
+          break;
+      }
+    }
+  }
+
+  @Benchmark
+  public void recover(final Recoverer r, final Blackhole bh) {
+    r.open(1, false);
+    r.firstGet(bh);
+  }
+
+  @Benchmark
+  public void update(final Updater u, final Blackhole bh) {
+    u.update();
+  }
+
+  @Benchmark
+  public void write(final Writer w, final Blackhole bh) throws IOException {
     w.write();
   }
 
@@ -129,6 +284,12 @@ public class LmdbJavaAgrona {
   @SuppressWarnings("checkstyle:visibilitymodifier")
   public static class LmdbJava extends CommonLmdbJava<DirectBuffer> {
 
+    /**
+     * Views of the {@link #dataset} key and value being written or read.
+     */
+    final UnsafeBuffer dsKey = new UnsafeBuffer(0, 0);
+    final UnsafeBuffer dsVal = new UnsafeBuffer(0, 0);
+
     /**
      * CRC scratch (memory-mapped MDB can't return a byte[] or ByteBuffer).
      */
@@ -155,34 +316,232 @@ public class LmdbJavaAgrona {
       rwVal = new UnsafeBuffer(allocateDirect(valSize));
     }
 
-    void write() {
+    @Override
+    void commit(final int from, final int to, final boolean last) {
       try (Txn<DirectBuffer> tx = env.txnWrite()) {
-        try (Cursor<DirectBuffer> c = db.openCursor(tx);) {
-          final PutFlags flags = sequential ? MDB_APPEND : null;
-          final int rndByteMax = RND_MB.length - valSize;
-          int rndByteOffset = 0;
-          for (final int key : keys) {
-            if (intKey) {
-              rwKey.putInt(0, key);
-            } else {
-              rwKey.putStringWithoutLengthUtf8(0, padKey(key));
-            }
-            if (valRandom) {
-              rwVal.putBytes(0, RND_MB, rndByteOffset, valSize);
-              rndByteOffset += valSize;
-              if (rndByteOffset >= rndByteMax) {
-                rndByteOffset = 0;
-              }
-            } else {
-              rwVal.putInt(0, key);
-            }
-            c.put(rwKey, rwVal, flags);
-          }
+        final Cursor<DirectBuffer>[] cursors = openCursors(tx);
+        final PutFlags flags = sequential ? MDB_APPEND : null;
+        for (int i = from; i < to; i++) {
+          dsKey.wrap(dataset.key(i), keySize);
+          dsVal.wrap(dataset.val(i), valSize);
+          final long start = latency.start();
+          cursors[dbIndex(keys[i])].put(dsKey, dsVal, flags);
+          latency.stop(start);
         }
+        closeCursors(cursors);
         tx.commit();
       }
+      if (durable.sync(last)) {
+        env.sync(true);
+      }
+    }
+
+    void write() throws IOException {
+      write(keys.length);
+    }
+
+  }
+
+  /**
+   * Shared, pre-populated store for the "backup" group. A single thread copies
+   * the open store with <code>mdb_env_copy2</code> (one copy per invocation)
+   * while the other threads perform point reads, whose latency shows the cost
+   * of a hot backup to concurrent readers. A "compact" {@link #backup} uses
+   * <code>MDB_CP_COMPACT</code>, which walks the tree omitting free pages
+   * (rather than copying the file as is). Use <code>-tg</code> to change the
+   * number of reader threads; the copying thread count must remain one.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Backup extends LmdbJava {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      bufferProxy = PROXY_DB;
+      super.setup(b, false);
+      super.write();
+    }
+
+    @TearDown(Invocation)
+    public void clear() {
+      clearCompact();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void copy() {
+      if (BACKUP_IDLE.equals(backup)) {
+        return;
+      }
+      final long start = backups.start();
+      if (BACKUP_COMPACT.equals(backup)) {
+        env.copy(compact, MDB_CP_COMPACT);
+      } else {
+        env.copy(compact);
+      }
+      backups.stop(start, compact);
+    }
+  }
+
+  /**
+   * Per-thread state for "backup" readers. Each thread starts at a different
+   * offset into the key order.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class BackupReader {
+
+    Backup b;
+    final UnsafeBuffer dsKey = new UnsafeBuffer(0, 0);
+    int idx;
+
+    /**
+     * Renewed for each read, so a reader does not pin the snapshot it began
+     * with for the whole of a copy.
+     */
+    Txn<DirectBuffer> txn;
+
+    @Setup(Trial)
+    public void setup(final Backup backup, final ThreadParams tp) {
+      b = backup;
+      idx = tp.getThreadIndex() * (b.readKeys.length / tp.getThreadCount());
+      txn = b.env.txnRead();
+      txn.reset();
+    }
+
+    @TearDown(Trial)
+    public void teardown() {
+      txn.close();
+    }
+
+    int nextIndex() {
+      idx++;
+      if (idx == b.readIndexes.length) {
+        idx = 0;
+      }
+      return b.readIndexes[idx];
+    }
+  }
+
+  /**
+   * Empty store that the "bulkLoad" benchmark fills with every entry in one
+   * <code>MDB_APPEND</code> transaction, whatever {@link #sequential} is. The
+   * sort and the copying of entries to the writer are part of each invocation
+   * (see {@link BulkLoad}), so its time is directly comparable with "write".
+   * The ring and worker threads are created by the first invocation and
+   * released when the trial ends.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class BulkLoader extends Writer {
+
+    BulkLoad bulk;
+
+    /**
+     * Threads that copy sorted entries to the writer, or 0 for one per spare
+     * processor.
+     */
+    @Param("0")
+    int loadThreads;
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      if (bulk == null) {
+        bulk = new BulkLoad(this, loadThreads);
+      }
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    @TearDown(Trial)
+    public void closeBulk() {
+      bulk.close();
+      bulk = null;
+    }
+
+    void load() {
+      final long start = commits.start();
+      try (Txn<DirectBuffer> tx = env.txnWrite()) {
+        try (Cursor<DirectBuffer> c = db.openCursor(tx)) {
+          bulk.load(record -> {
+            final long key = bulk.key(record);
+            dsKey.wrap(key, keySize);
+            dsVal.wrap(key + keySize, valSize);
+            c.put(dsKey, dsVal, MDB_APPEND);
+          });
+        }
+        tx.commit();
+      }
+      if (durable.sync(true)) {
+        env.sync(true);
+      }
+      commits.stop(start, keys.length);
+    }
+  }
+
+  /**
+   * Store that "ingest" writes continuously from empty, for the wall time of
+   * its single measurement iteration.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Ingester extends LmdbJava {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      bufferProxy = PROXY_DB;
+      super.setup(b, false);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      reportSpaceUsed(tmp, "after-ingest");
+      super.teardown();
+    }
+  }
+
+  /**
+   * Populated store that the "open" benchmark closes and reopens, reading one
+   * key so that any work deferred until first access is included. Only
+   * meaningful with a single benchmark thread.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Opener extends LmdbJava {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      bufferProxy = PROXY_DB;
+      super.setup(b, false);
+      super.write();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
     }
 
+    void firstGet(final Blackhole bh) {
+      dsKey.wrap(dataset.key(0), keySize);
+      try (Txn<DirectBuffer> tx = env.txnRead()) {
+        bh.consume(db.get(tx, dsKey));
+      }
+    }
   }
 
   @State(Benchmark)
@@ -190,6 +549,11 @@ public class LmdbJavaAgrona {
   public static class Reader extends LmdbJava {
 
     Cursor<DirectBuffer> c;
+
+    /**
+     * Cursor of each DBI, of which {@link #c} is the first.
+     */
+    Cursor<DirectBuffer>[] cursors;
     Txn<DirectBuffer> txn;
 
     @Setup(Trial)
@@ -204,16 +568,298 @@ public class LmdbJavaAgrona {
         reportSpaceUsed(compact, "compacted");
       }
       txn = env.txnRead();
-      c = db.openCursor(txn);
+      cursors = openCursors(txn);
+      c = cursors[0];
+    }
+
+    @Setup(Iteration)
+    public void coldCacheIteration(final BenchmarkParams b) {
+      if (!coldCache) {
+        return;
+      }
+      closeCursors(cursors);
+      txn.abort();
+      close();
+      dropPageCache(tmp);
+      open(b.getThreads(), false);
+      txn = env.txnRead();
+      cursors = openCursors(txn);
+      c = cursors[0];
     }
 
     @TearDown(Trial)
     @Override
     public void teardown() throws IOException {
+      closeCursors(cursors);
+      txn.abort();
+      super.teardown();
+    }
+  }
+
+  /**
+   * Shared, pre-populated store for the "mixed" group. A single writer thread
+   * updates existing keys (one entry per committed transaction) while the
+   * other threads perform point reads. Use <code>-tg</code> to change the
+   * number of reader threads; the writer count must remain one.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Mixed extends LmdbJava {
+
+    /**
+     * Maximum percentage of all mixed operations that are writes.
+     */
+    @Param("5")
+    int writePct;
+
+    WriteThrottle throttle;
+    private int rndByteOffset;
+    private int writeIdx;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      bufferProxy = PROXY_DB;
+      super.setup(b, false);
+      super.write();
+      throttle = new WriteThrottle(writePct);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    boolean put(final Control control) {
+      if (!throttle.awaitWrite(control)) {
+        return false;
+      }
+      final int key = keys[writeIdx];
+      dsKey.wrap(dataset.key(writeIdx), keySize);
+      writeIdx++;
+      if (writeIdx == keys.length) {
+        writeIdx = 0;
+      }
+      if (valRandom) {
+        rwVal.putBytes(0, RND_MB, rndByteOffset, valSize);
+        rndByteOffset += valSize;
+        if (rndByteOffset >= RND_MB.length - valSize) {
+          rndByteOffset = 0;
+        }
+      } else {
+        rwVal.putInt(0, key);
+      }
+      final long start = latency.start();
+      try (Txn<DirectBuffer> tx = env.txnWrite()) {
+        db.put(tx, dsKey, rwVal);
+        tx.commit();
+      }
+      latency.stop(start);
+      return true;
+    }
+  }
+
+  /**
+   * Per-thread state for "mixed" readers. Each thread starts at a different
+   * offset into the key order.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class MixedReader {
+
+    final UnsafeBuffer dsKey = new UnsafeBuffer(0, 0);
+    int idx;
+    Mixed m;
+
+    /**
+     * Renewed for each read, so the writer's commits are visible and old
+     * snapshots are not pinned.
+     */
+    Txn<DirectBuffer> txn;
+
+    @Setup(Trial)
+    public void setup(final Mixed mixed, final ThreadParams tp) {
+      m = mixed;
+      idx = tp.getThreadIndex() * (m.readKeys.length / tp.getThreadCount());
+      txn = m.env.txnRead();
+      txn.reset();
+    }
+
+    @TearDown(Trial)
+    public void teardown() {
+      txn.close();
+    }
+
+    int nextIndex() {
+      idx++;
+      if (idx == m.readIndexes.length) {
+        idx = 0;
+      }
+      return m.readIndexes[idx];
+    }
+  }
+
+  /**
+   * {@link Opener} store that is left by an unclean shutdown before each
+   * "recover" invocation, as a child JVM writing to it is killed. The
+   * benchmark then measures the reopen (including any recovery) and first get.
+   */
+  @State(Benchmark)
+  public static class Recoverer extends Opener {
+
+    public static void main(final String[] args) throws IOException {
+      final Recoverer r = new Recoverer();
+      configure(r, args);
+      r.bufferProxy = PROXY_DB;
+      r.rwKey = new UnsafeBuffer(allocateDirect(r.keySize)
+          .order(LITTLE_ENDIAN));
+      r.rwVal = new UnsafeBuffer(allocateDirect(r.valSize));
+      r.open(1, false);
+      writing();
+      while (true) {
+        r.write();
+      }
+    }
+
+    @Setup(Invocation)
+    public void crashInvocation() throws IOException {
+      close();
+      crash(Recoverer.class, this);
+    }
+  }
+
+  /**
+   * Per-thread read transaction and cursor over the shared {@link Reader}
+   * store, allowing read benchmarks to be run with any JMH thread count. These
+   * are opened per iteration, as the store may be reopened between iterations.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    Cursor<DirectBuffer> c;
+    final UnsafeBuffer dsKey = new UnsafeBuffer(0, 0);
+    Reader r;
+    Txn<DirectBuffer> txn;
+
+    @Setup(Iteration)
+    public void setup(final Reader reader) {
+      r = reader;
+      txn = r.env.txnRead();
+      c = r.db.openCursor(txn);
+    }
+
+    @TearDown(Iteration)
+    public void teardown() {
       c.close();
       txn.abort();
+    }
+  }
+
+  /**
+   * Populated store for the "update", "delete" and "churn" benchmarks. It is
+   * rebuilt before each invocation, so every invocation starts from a store
+   * holding all {@link #keys}.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Updater extends LmdbJava {
+
+    /**
+     * Entries per transaction for "update" and "delete", unless
+     * {@link #txnSize} is set. Rewriting every entry in one transaction would
+     * need a map large enough for two copies of the tree, whereas later
+     * transactions reuse the pages freed by earlier ones.
+     */
+    private static final int TXN_ENTRIES = 10_000;
+
+    /**
+     * Number of delete-all and reinsert-all cycles in each "churn" invocation.
+     * Space used is reported after each cycle.
+     */
+    @Param("3")
+    int churnCycles;
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      bufferProxy = PROXY_DB;
+      super.setup(b, false);
+      // latency is only recorded by the "readKey" and "write" benchmarks
+      latency.measuring(false);
+      commits.paused(true);
+      super.write();
+      commits.paused(false);
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
       super.teardown();
     }
+
+    void churn() throws IOException {
+      for (int cycle = 1; cycle <= churnCycles; cycle++) {
+        delete();
+        write();
+        reportSpaceUsed(tmp, "churn-" + cycle);
+      }
+    }
+
+    void delete() {
+      final int size = txnSize(TXN_ENTRIES);
+      for (int i = 0; i < keys.length; i += size) {
+        final int end = min(i + size, keys.length);
+        final long start = commits.start();
+        try (Txn<DirectBuffer> tx = env.txnWrite()) {
+          for (int j = i; j < end; j++) {
+            key(j);
+            db.delete(tx, dsKey);
+          }
+          tx.commit();
+        }
+        if (durable.sync(end == keys.length)) {
+          env.sync(true);
+        }
+        commits.stop(start, end - i);
+      }
+    }
+
+    void update() {
+      final int rndByteMax = RND_MB.length - valSize;
+      int rndByteOffset = 0;
+      final int size = txnSize(TXN_ENTRIES);
+      for (int i = 0; i < keys.length; i += size) {
+        final int end = min(i + size, keys.length);
+        final long start = commits.start();
+        try (Txn<DirectBuffer> tx = env.txnWrite()) {
+          for (int j = i; j < end; j++) {
+            final int key = keys[j];
+            key(j);
+            if (valRandom) {
+              rwVal.putBytes(0, RND_MB, rndByteOffset, valSize);
+              rndByteOffset += valSize;
+              if (rndByteOffset >= rndByteMax) {
+                rndByteOffset = 0;
+              }
+            } else {
+              rwVal.putInt(0, key);
+            }
+            db.put(tx, dsKey, rwVal);
+          }
+          tx.commit();
+        }
+        if (durable.sync(end == keys.length)) {
+          env.sync(true);
+        }
+        commits.stop(start, end - i);
+      }
+    }
+
+    private void key(final int idx) {
+      dsKey.wrap(dataset.key(idx), keySize);
+    }
   }
 
   @State(Benchmark)
@@ -240,4 +886,94 @@ public class LmdbJavaAgrona {
     }
   }
 
+  /**
+   * Populated store driven by a {@link YcsbWorkload} operation stream. Each
+   * read, scan, update, insert and read-modify-write is its own transaction.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Ycsb extends LmdbJava {
+
+    /**
+     * Renewed for each read and scan, so that the stream's writes are visible.
+     */
+    Txn<DirectBuffer> rtx;
+
+    private int rndByteOffset;
+    YcsbWorkload w;
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final YcsbWorkload workload)
+        throws IOException {
+      bufferProxy = PROXY_DB;
+      super.setup(b, false);
+      super.write();
+      rtx = env.txnRead();
+      rtx.reset();
+      w = workload;
+      w.generate(keys, sequential);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      rtx.close();
+      super.teardown();
+    }
+
+    void put(final int key) {
+      key(key);
+      if (valRandom) {
+        rwVal.putBytes(0, RND_MB, rndByteOffset, valSize);
+        rndByteOffset += valSize;
+        if (rndByteOffset >= RND_MB.length - valSize) {
+          rndByteOffset = 0;
+        }
+      } else {
+        rwVal.putInt(0, key);
+      }
+      try (Txn<DirectBuffer> tx = env.txnWrite()) {
+        db.put(tx, rwKey, rwVal);
+        tx.commit();
+      }
+    }
+
+    void read(final int key, final Blackhole bh) {
+      key(key);
+      rtx.renew();
+      bh.consume(db.get(rtx, rwKey));
+      rtx.reset();
+    }
+
+    void rmw(final int key) {
+      key(key);
+      try (Txn<DirectBuffer> tx = env.txnWrite()) {
+        final DirectBuffer old = db.get(tx, rwKey);
+        if (old != null) {
+          rwVal.putBytes(0, old, 0, valSize);
+        }
+        rwVal.putInt(0, rwVal.getInt(0) + 1);
+        db.put(tx, rwKey, rwVal);
+        tx.commit();
+      }
+    }
+
+    void scan(final int key, final int length, final Blackhole bh) {
+      key(key);
+      rtx.renew();
+      try (Cursor<DirectBuffer> c = db.openCursor(rtx)) {
+        boolean found = c.get(rwKey, MDB_SET_RANGE);
+        for (int i = 0; found && i < length; i++) {
+          bh.consume(rtx.val());
+          found = c.seek(MDB_NEXT);
+        }
+      }
+      rtx.reset();
+    }
+
+    private void key(final int key) {
+      putKey(rwKey, key);
+    }
+  }
+
 }
@@ -21,16 +21,18 @@
 package org.lmdbjava.bench;
 
 import java.io.IOException;
+import static java.lang.Math.min;
 import java.nio.ByteBuffer;
 import static java.nio.ByteBuffer.allocateDirect;
-import static java.nio.ByteOrder.LITTLE_ENDIAN;
-import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.ByteOrder.nativeOrder;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
 import static org.lmdbjava.ByteBufferProxy.PROXY_OPTIMAL;
 import static org.lmdbjava.ByteBufferProxy.PROXY_SAFE;
 import org.lmdbjava.Cursor;
 import static org.lmdbjava.GetOp.MDB_SET_KEY;
+import static org.lmdbjava.GetOp.MDB_SET_RANGE;
 import org.lmdbjava.PutFlags;
 import static org.lmdbjava.PutFlags.MDB_APPEND;
 import static org.lmdbjava.SeekOp.MDB_FIRST;
@@ -41,19 +43,25 @@ import org.lmdbjava.Txn;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import static org.openjdk.jmh.annotations.Level.Invocation;
+import static org.openjdk.jmh.annotations.Level.Iteration;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import org.openjdk.jmh.annotations.Measurement;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.infra.ThreadParams;
 
 @OutputTimeUnit(MILLISECONDS)
 @Fork(1)
@@ -63,6 +71,48 @@ import org.openjdk.jmh.infra.Blackhole;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class LmdbJavaByteBuffer {
 
+  @Benchmark
+  public void bulkLoad(final BulkLoader l, final Blackhole bh) {
+    l.load();
+  }
+
+  @Benchmark
+  public void churn(final Updater u, final Blackhole bh) throws IOException {
+    u.churn();
+  }
+
+  @Benchmark
+  public void delete(final Updater u, final Blackhole bh) {
+    u.delete();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedRead(final MixedReader t, final Blackhole bh) {
+    t.m.dataset.key(t.nextIndex(), t.rwKey);
+    t.txn.renew();
+    bh.consume(t.m.db.get(t.txn, t.rwKey));
+    t.txn.reset();
+    t.m.throttle.read();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedWrite(final Mixed m, final Control c, final Blackhole bh) {
+    bh.consume(m.put(c));
+  }
+
+  @Benchmark
+  public void open(final Opener o, final Blackhole bh) {
+    o.close();
+    o.open(1, false);
+    o.firstGet(bh);
+  }
+
   @Benchmark
   public void readCrc(final Reader r, final Blackhole bh) {
     r.crc.reset();
@@ -76,19 +126,47 @@ public class LmdbJavaByteBuffer {
 
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) {
-    for (final int key : r.keys) {
-      r.rwKey.clear();
-      if (r.intKey) {
-        r.rwKey.putInt(key).flip();
-      } else {
-        final byte[] str = r.padKey(key).getBytes(US_ASCII);
-        r.rwKey.put(str, 0, str.length).flip();
-      }
+    for (int i = 0; i < r.readIndexes.length; i++) {
+      r.dataset.key(r.readIndexes[i], r.rwKey);
+      final long start = r.latency.start();
+      bh.consume(r.cursors[r.readDbs[i]].get(r.rwKey, MDB_SET_KEY));
+      bh.consume(r.txn.val());
+      r.latency.stop(start);
+    }
+  }
+
+  @Benchmark
+  public void readKeyBatch(final Reader r, final KeyBatch k,
+                           final Blackhole bh) {
+    // one read transaction, visiting the keys of each batch in store order
+    for (final int idx : k.sortedIndexBatches(r.readKeys, r.readIndexes)) {
+      r.dataset.key(idx, r.rwKey);
       bh.consume(r.c.get(r.rwKey, MDB_SET_KEY));
       bh.consume(r.txn.val());
     }
   }
 
+  @Benchmark
+  public void readKeyMt(final ThreadReader t, final Blackhole bh) {
+    for (final int idx : t.r.readIndexes) {
+      t.r.dataset.key(idx, t.rwKey);
+      bh.consume(t.c.get(t.rwKey, MDB_SET_KEY));
+      bh.consume(t.txn.val());
+    }
+  }
+
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh) {
+    for (int s = 0; s < g.scans; s++) {
+      r.dataset.key(r.readIndexes[s % r.readIndexes.length], r.rwKey);
+      boolean found = r.c.get(r.rwKey, MDB_SET_RANGE);
+      for (int i = 0; found && i < g.rangeLength; i++) {
+        bh.consume(r.txn.val());
+        found = r.c.seek(MDB_NEXT);
+      }
+    }
+  }
+
   @Benchmark
   public void readRev(final Reader r, final Blackhole bh) {
     bh.consume(r.c.seek(MDB_LAST));
@@ -105,6 +183,14 @@ public class LmdbJavaByteBuffer {
     } while (r.c.seek(MDB_NEXT));
   }
 
+  @Benchmark
+  public void readSeqMt(final ThreadReader t, final Blackhole bh) {
+    bh.consume(t.c.seek(MDB_FIRST));
+    do {
+      bh.consume(t.txn.val());
+    } while (t.c.seek(MDB_NEXT));
+  }
+
   @Benchmark
   public void readXxh64(final Reader r, final Blackhole bh) {
     long result = 0;
@@ -117,7 +203,12 @@ public class LmdbJavaByteBuffer {
   }
 
   @Benchmark
-  public void write(final Writer w, final Blackhole bh) {
+  public void update(final Updater u, final Blackhole bh) {
+    u.update();
+  }
+
+  @Benchmark
+  public void write(final Writer w, final Blackhole bh) throws IOException {
     w.write();
   }
 
@@ -132,43 +223,137 @@ public class LmdbJavaByteBuffer {
     public void setup(final BenchmarkParams b, final boolean sync) throws
         IOException {
       super.setup(b, sync);
-      rwKey = allocateDirect(keySize).order(LITTLE_ENDIAN);
+      rwKey = allocateDirect(keySize).order(nativeOrder());
       rwVal = allocateDirect(valSize);
     }
 
-    void write() {
+    @Override
+    void commit(final int from, final int to, final boolean last) {
       try (Txn<ByteBuffer> tx = env.txnWrite();) {
-        try (Cursor<ByteBuffer> c = db.openCursor(tx);) {
-          final PutFlags flags = sequential ? MDB_APPEND : null;
-          final int rndByteMax = RND_MB.length - valSize;
-          int rndByteOffset = 0;
-          for (final int key : keys) {
-            rwKey.clear();
-            rwVal.clear();
-            if (intKey) {
-              rwKey.putInt(key).flip();
-            } else {
-              final byte[] str = padKey(key).getBytes(US_ASCII);
-              rwKey.put(str, 0, str.length).flip();
-            }
-            if (valRandom) {
-              rwVal.put(RND_MB, rndByteOffset, valSize).flip();
-              rndByteOffset += valSize;
-              if (rndByteOffset >= rndByteMax) {
-                rndByteOffset = 0;
-              }
-            } else {
-              rwVal.putInt(key);
-              rwVal.position(valSize);
-              rwVal.flip();
-            }
-            c.put(rwKey, rwVal, flags);
-          }
+        final Cursor<ByteBuffer>[] cursors = openCursors(tx);
+        final PutFlags flags = sequential ? MDB_APPEND : null;
+        for (int i = from; i < to; i++) {
+          // a single copy, as this proxy takes the buffer's address
+          dataset.key(i, rwKey);
+          dataset.val(i, rwVal);
+          final long start = latency.start();
+          cursors[dbIndex(keys[i])].put(rwKey, rwVal, flags);
+          latency.stop(start);
         }
+        closeCursors(cursors);
         tx.commit();
       }
+      if (durable.sync(last)) {
+        env.sync(true);
+      }
     }
 
+    void write() throws IOException {
+      write(keys.length);
+    }
+
+  }
+
+  /**
+   * Empty store that the "bulkLoad" benchmark fills with every entry in one
+   * <code>MDB_APPEND</code> transaction, whatever {@link #sequential} is. The
+   * sort and the copying of entries to the writer are part of each invocation
+   * (see {@link BulkLoad}), so its time is directly comparable with "write".
+   * The ring and worker threads are created by the first invocation and
+   * released when the trial ends.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class BulkLoader extends Writer {
+
+    BulkLoad bulk;
+
+    /**
+     * Threads that copy sorted entries to the writer, or 0 for one per spare
+     * processor.
+     */
+    @Param("0")
+    int loadThreads;
+
+    ByteBuffer[] keyViews;
+    ByteBuffer[] valViews;
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      if (bulk != null) {
+        return;
+      }
+      bulk = new BulkLoad(this, loadThreads);
+      // this proxy takes the buffer's address, so each record needs its views
+      keyViews = new ByteBuffer[bulk.records()];
+      valViews = new ByteBuffer[bulk.records()];
+      for (int i = 0; i < keyViews.length; i++) {
+        keyViews[i] = bulk.keyView(i);
+        valViews[i] = bulk.valView(i);
+      }
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    @TearDown(Trial)
+    public void closeBulk() {
+      bulk.close();
+      bulk = null;
+      keyViews = null;
+      valViews = null;
+    }
+
+    void load() {
+      final long start = commits.start();
+      try (Txn<ByteBuffer> tx = env.txnWrite()) {
+        try (Cursor<ByteBuffer> c = db.openCursor(tx)) {
+          bulk.load(record -> c.put(keyViews[record], valViews[record],
+                                    MDB_APPEND));
+        }
+        tx.commit();
+      }
+      if (durable.sync(true)) {
+        env.sync(true);
+      }
+      commits.stop(start, keys.length);
+    }
+  }
+
+  /**
+   * Populated store that the "open" benchmark closes and reopens, reading one
+   * key so that any work deferred until first access is included. Only
+   * meaningful with a single benchmark thread.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Opener extends LmdbJava {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      bufferProxy = PROXY_OPTIMAL;
+      super.setup(b, false);
+      super.write();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void firstGet(final Blackhole bh) {
+      dataset.key(0, rwKey);
+      try (Txn<ByteBuffer> tx = env.txnRead()) {
+        bh.consume(db.get(tx, rwKey));
+      }
+    }
   }
 
   @State(Benchmark)
@@ -177,6 +362,11 @@ public class LmdbJavaByteBuffer {
 
     Cursor<ByteBuffer> c;
 
+    /**
+     * Cursor of each DBI, of which {@link #c} is the first.
+     */
+    Cursor<ByteBuffer>[] cursors;
+
     /**
      * Whether the byte buffer accessor is safe or not.
      */
@@ -192,16 +382,277 @@ public class LmdbJavaByteBuffer {
       super.setup(b, false);
       super.write();
       txn = env.txnRead();
-      c = db.openCursor(txn);
+      cursors = openCursors(txn);
+      c = cursors[0];
+    }
+
+    @Setup(Iteration)
+    public void coldCacheIteration(final BenchmarkParams b) {
+      if (!coldCache) {
+        return;
+      }
+      closeCursors(cursors);
+      txn.abort();
+      close();
+      dropPageCache(tmp);
+      open(b.getThreads(), false);
+      txn = env.txnRead();
+      cursors = openCursors(txn);
+      c = cursors[0];
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      closeCursors(cursors);
+      txn.abort();
+      super.teardown();
+    }
+  }
+
+  /**
+   * Shared, pre-populated store for the "mixed" group. A single writer thread
+   * updates existing keys (one entry per committed transaction) while the
+   * other threads perform point reads. Use <code>-tg</code> to change the
+   * number of reader threads; the writer count must remain one.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Mixed extends LmdbJava {
+
+    /**
+     * Maximum percentage of all mixed operations that are writes.
+     */
+    @Param("5")
+    int writePct;
+
+    WriteThrottle throttle;
+    private int rndByteOffset;
+    private int writeIdx;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      bufferProxy = PROXY_OPTIMAL;
+      super.setup(b, false);
+      super.write();
+      throttle = new WriteThrottle(writePct);
     }
 
     @TearDown(Trial)
     @Override
     public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    boolean put(final Control control) {
+      if (!throttle.awaitWrite(control)) {
+        return false;
+      }
+      final int key = keys[writeIdx];
+      dataset.key(writeIdx, rwKey);
+      writeIdx++;
+      if (writeIdx == keys.length) {
+        writeIdx = 0;
+      }
+      rwVal.clear();
+      if (valRandom) {
+        rwVal.put(RND_MB, rndByteOffset, valSize).flip();
+        rndByteOffset += valSize;
+        if (rndByteOffset >= RND_MB.length - valSize) {
+          rndByteOffset = 0;
+        }
+      } else {
+        rwVal.putInt(key);
+        rwVal.position(valSize);
+        rwVal.flip();
+      }
+      final long start = latency.start();
+      try (Txn<ByteBuffer> tx = env.txnWrite()) {
+        db.put(tx, rwKey, rwVal);
+        tx.commit();
+      }
+      latency.stop(start);
+      return true;
+    }
+  }
+
+  /**
+   * Per-thread state for "mixed" readers. Each thread starts at a different
+   * offset into the key order.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class MixedReader {
+
+    int idx;
+    Mixed m;
+    ByteBuffer rwKey;
+
+    /**
+     * Renewed for each read, so the writer's commits are visible and old
+     * snapshots are not pinned.
+     */
+    Txn<ByteBuffer> txn;
+
+    @Setup(Trial)
+    public void setup(final Mixed mixed, final ThreadParams tp) {
+      m = mixed;
+      idx = tp.getThreadIndex() * (m.readKeys.length / tp.getThreadCount());
+      rwKey = allocateDirect(m.keySize).order(nativeOrder());
+      txn = m.env.txnRead();
+      txn.reset();
+    }
+
+    @TearDown(Trial)
+    public void teardown() {
+      txn.close();
+    }
+
+    int nextIndex() {
+      idx++;
+      if (idx == m.readIndexes.length) {
+        idx = 0;
+      }
+      return m.readIndexes[idx];
+    }
+  }
+
+  /**
+   * Per-thread read transaction and cursor over the shared {@link Reader}
+   * store, allowing read benchmarks to be run with any JMH thread count. These
+   * are opened per iteration, as the store may be reopened between iterations.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    Cursor<ByteBuffer> c;
+    Reader r;
+    ByteBuffer rwKey;
+    Txn<ByteBuffer> txn;
+
+    @Setup(Iteration)
+    public void setup(final Reader reader) {
+      r = reader;
+      rwKey = allocateDirect(r.keySize).order(nativeOrder());
+      txn = r.env.txnRead();
+      c = r.db.openCursor(txn);
+    }
+
+    @TearDown(Iteration)
+    public void teardown() {
       c.close();
       txn.abort();
+    }
+  }
+
+  /**
+   * Populated store for the "update", "delete" and "churn" benchmarks. It is
+   * rebuilt before each invocation, so every invocation starts from a store
+   * holding all {@link #keys}.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Updater extends LmdbJava {
+
+    /**
+     * Entries per transaction for "update" and "delete", unless
+     * {@link #txnSize} is set. Rewriting every entry in one transaction would
+     * need a map large enough for two copies of the tree, whereas later
+     * transactions reuse the pages freed by earlier ones.
+     */
+    private static final int TXN_ENTRIES = 10_000;
+
+    /**
+     * Number of delete-all and reinsert-all cycles in each "churn" invocation.
+     * Space used is reported after each cycle.
+     */
+    @Param("3")
+    int churnCycles;
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      bufferProxy = PROXY_OPTIMAL;
+      super.setup(b, false);
+      // latency is only recorded by the "readKey" and "write" benchmarks
+      latency.measuring(false);
+      commits.paused(true);
+      super.write();
+      commits.paused(false);
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
       super.teardown();
     }
+
+    void churn() throws IOException {
+      for (int cycle = 1; cycle <= churnCycles; cycle++) {
+        delete();
+        write();
+        reportSpaceUsed(tmp, "churn-" + cycle);
+      }
+    }
+
+    void delete() {
+      final int size = txnSize(TXN_ENTRIES);
+      for (int i = 0; i < keys.length; i += size) {
+        final int end = min(i + size, keys.length);
+        final long start = commits.start();
+        try (Txn<ByteBuffer> tx = env.txnWrite()) {
+          for (int j = i; j < end; j++) {
+            key(j);
+            db.delete(tx, rwKey);
+          }
+          tx.commit();
+        }
+        if (durable.sync(end == keys.length)) {
+          env.sync(true);
+        }
+        commits.stop(start, end - i);
+      }
+    }
+
+    void update() {
+      final int rndByteMax = RND_MB.length - valSize;
+      int rndByteOffset = 0;
+      final int size = txnSize(TXN_ENTRIES);
+      for (int i = 0; i < keys.length; i += size) {
+        final int end = min(i + size, keys.length);
+        final long start = commits.start();
+        try (Txn<ByteBuffer> tx = env.txnWrite()) {
+          for (int j = i; j < end; j++) {
+            final int key = keys[j];
+            key(j);
+            rwVal.clear();
+            if (valRandom) {
+              rwVal.put(RND_MB, rndByteOffset, valSize).flip();
+              rndByteOffset += valSize;
+              if (rndByteOffset >= rndByteMax) {
+                rndByteOffset = 0;
+              }
+            } else {
+              rwVal.putInt(key);
+              rwVal.position(valSize);
+              rwVal.flip();
+            }
+            db.put(tx, rwKey, rwVal);
+          }
+          tx.commit();
+        }
+        if (durable.sync(end == keys.length)) {
+          env.sync(true);
+        }
+        commits.stop(start, end - i);
+      }
+    }
+
+    private void key(final int idx) {
+      dataset.key(idx, rwKey);
+    }
   }
 
   @State(Benchmark)
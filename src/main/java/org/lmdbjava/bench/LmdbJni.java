@@ -22,9 +22,11 @@ package org.lmdbjava.bench;
 
 import java.io.IOException;
 import static java.lang.Boolean.TRUE;
+import static java.lang.Math.min;
 import static java.lang.System.setProperty;
 import static java.nio.ByteBuffer.allocateDirect;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
 import org.fusesource.lmdbjni.BufferCursor;
 import org.fusesource.lmdbjni.Database;
@@ -39,22 +41,30 @@ import static org.lmdbjava.bench.CommonLmdbJava.POSIX_MODE;
 import static org.lmdbjava.bench.CommonLmdbJava.dbiFlags;
 import static org.lmdbjava.bench.CommonLmdbJava.envFlags;
 import static org.lmdbjava.bench.CommonLmdbJava.mapSize;
+import static org.lmdbjava.bench.CommonLmdbJava.maxReaders;
+import static org.lmdbjava.bench.CommonLmdbJava.noTls;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import static org.openjdk.jmh.annotations.Level.Invocation;
+import static org.openjdk.jmh.annotations.Level.Iteration;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import org.openjdk.jmh.annotations.Measurement;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.infra.ThreadParams;
 
 @OutputTimeUnit(MILLISECONDS)
 @Fork(1)
@@ -64,6 +74,44 @@ import org.openjdk.jmh.infra.Blackhole;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class LmdbJni {
 
+  @Benchmark
+  public void churn(final Updater u, final Blackhole bh) throws IOException {
+    u.churn();
+  }
+
+  @Benchmark
+  public void delete(final Updater u, final Blackhole bh) {
+    u.delete();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedRead(final MixedReader t, final Blackhole bh) {
+    t.m.dataset.key(t.nextIndex(), t.wkb.byteArray());
+    t.tx.renew();
+    bh.consume(t.m.db.get(t.tx, t.wkb, t.rvb));
+    bh.consume(t.rvb);
+    t.tx.reset();
+    t.m.throttle.read();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedWrite(final Mixed m, final Control c, final Blackhole bh) {
+    bh.consume(m.put(c));
+  }
+
+  @Benchmark
+  public void open(final Opener o, final Blackhole bh) {
+    o.close();
+    o.open(1, false);
+    o.firstGet(bh);
+  }
+
   @Benchmark
   public void readCrc(final Reader r, final Blackhole bh) {
     r.crc.reset();
@@ -79,18 +127,51 @@ public class LmdbJni {
 
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) {
-    for (final int key : r.keys) {
-      if (r.intKey) {
-        r.wkb.putInt(0, key);
-      } else {
-        r.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
-      }
+    for (final int idx : r.readIndexes) {
+      r.dsKey.wrap(r.dataset.key(idx), r.keySize);
+      final long start = r.latency.start();
+      r.c.keyWrite(r.dsKey);
+      bh.consume(r.c.seekKey());
+      bh.consume(r.c.valBuffer());
+      r.latency.stop(start);
+    }
+  }
+
+  @Benchmark
+  public void readKeyBatch(final Reader r, final KeyBatch k,
+                           final Blackhole bh) {
+    // one read transaction, visiting the keys of each batch in store order
+    for (final int idx : k.sortedIndexBatches(r.readKeys, r.readIndexes)) {
+      r.dataset.key(idx, r.wkb.byteArray());
       r.c.keyWrite(r.wkb);
       bh.consume(r.c.seekKey());
       bh.consume(r.c.valBuffer());
     }
   }
 
+  @Benchmark
+  public void readKeyMt(final ThreadReader t, final Blackhole bh) {
+    for (final int idx : t.r.readIndexes) {
+      t.r.dataset.key(idx, t.wkb.byteArray());
+      t.c.keyWrite(t.wkb);
+      bh.consume(t.c.seekKey());
+      bh.consume(t.c.valBuffer());
+    }
+  }
+
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh) {
+    for (int s = 0; s < g.scans; s++) {
+      r.dataset.key(r.readIndexes[s % r.readIndexes.length], r.wkb.byteArray());
+      r.c.keyWrite(r.wkb);
+      boolean found = r.c.seekRange();
+      for (int i = 0; found && i < g.rangeLength; i++) {
+        bh.consume(r.c.valBuffer());
+        found = r.c.next();
+      }
+    }
+  }
+
   @Benchmark
   public void readRev(final Reader r, final Blackhole bh) {
     bh.consume(r.c.last());
@@ -107,6 +188,14 @@ public class LmdbJni {
     } while (r.c.next());
   }
 
+  @Benchmark
+  public void readSeqMt(final ThreadReader t, final Blackhole bh) {
+    bh.consume(t.c.first());
+    do {
+      bh.consume(t.c.valBuffer());
+    } while (t.c.next());
+  }
+
   @Benchmark
   public void readXxh64(final Reader r, final Blackhole bh) {
     long result = 0;
@@ -119,15 +208,27 @@ public class LmdbJni {
   }
 
   @Benchmark
-  public void write(final Writer w, final Blackhole bh) {
+  public void update(final Updater u, final Blackhole bh) {
+    u.update();
+  }
+
+  @Benchmark
+  public void write(final Writer w, final Blackhole bh) throws IOException {
     w.write();
   }
 
   @State(value = Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
-  public static class CommonLmdbJni extends Common {
+  public static class CommonLmdbJni extends CommonTxn {
 
     Database db;
+
+    /**
+     * Views of the {@link #dataset} key and value being written or read.
+     */
+    final DirectBuffer dsKey = new DirectBuffer(0, 0);
+    final DirectBuffer dsVal = new DirectBuffer(0, 0);
+
     Env env;
 
     /**
@@ -167,13 +268,34 @@ public class LmdbJni {
       wvb = new DirectBuffer(allocateDirect(valSize));
       keyBytes = new byte[keySize];
       valBytes = new byte[valSize];
+      open(b.getThreads(), sync);
+    }
 
-      final EnvFlags[] envFlags = envFlags(writeMap, sync);
+    @Override
+    public void teardown() throws IOException {
+      reportSpaceBeforeClose();
+      close();
+      super.teardown();
+    }
+
+    void close() {
+      env.close();
+    }
+
+    /**
+     * Opens the store in {@link #tmp}, which may already hold data that was
+     * written before an earlier {@link #close()}.
+     *
+     * @param threads the number of benchmark threads
+     * @param sync    whether to sync commits
+     */
+    void open(final int threads, final boolean sync) {
+      final EnvFlags[] envFlags = envFlags(writeMap, sync, noTls(threads));
 
       env = new Env();
       env.setMapSize(mapSize(num, valSize));
       env.setMaxDbs(1);
-      env.setMaxReaders(2);
+      env.setMaxReaders(maxReaders(threads));
       env.open(tmp.getAbsolutePath(), mask(envFlags), POSIX_MODE);
 
       try (Transaction tx = env.createWriteTransaction()) {
@@ -184,43 +306,62 @@ public class LmdbJni {
     }
 
     @Override
-    public void teardown() throws IOException {
-      reportSpaceBeforeClose();
-      env.close();
-      super.teardown();
-    }
-
-    void write() {
+    void commit(final int from, final int to, final boolean last) {
       try (Transaction tx = env.createWriteTransaction()) {
         try (BufferCursor c = db.bufferCursor(tx);) {
-          final int rndByteMax = RND_MB.length - valSize;
-          int rndByteOffset = 0;
-          for (final int key : keys) {
-            if (intKey) {
-              wkb.putInt(0, key);
-            } else {
-              wkb.putStringWithoutLengthUtf8(0, padKey(key));
-            }
-            if (valRandom) {
-              wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
-              rndByteOffset += valSize;
-              if (rndByteOffset >= rndByteMax) {
-                rndByteOffset = 0;
-              }
-            } else {
-              wvb.putInt(0, key);
-            }
-            c.keyWrite(wkb);
-            c.valWrite(wvb);
+          for (int i = from; i < to; i++) {
+            dsKey.wrap(dataset.key(i), keySize);
+            dsVal.wrap(dataset.val(i), valSize);
+            final long start = latency.start();
+            c.keyWrite(dsKey);
+            c.valWrite(dsVal);
             if (sequential) {
               c.append();
             } else {
               c.overwrite();
             }
+            latency.stop(start);
           }
         }
         tx.commit();
       }
+      if (durable.sync(last)) {
+        env.sync(true);
+      }
+    }
+
+    void write() throws IOException {
+      write(keys.length);
+    }
+  }
+
+  /**
+   * Populated store that the "open" benchmark closes and reopens, reading one
+   * key so that any work deferred until first access is included. Only
+   * meaningful with a single benchmark thread.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Opener extends CommonLmdbJni {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b, false);
+      super.write();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void firstGet(final Blackhole bh) {
+      dataset.key(0, wkb.byteArray());
+      try (Transaction tx = env.createReadTransaction()) {
+        bh.consume(db.get(tx, wkb, new DirectBuffer()));
+      }
     }
   }
 
@@ -240,13 +381,271 @@ public class LmdbJni {
       c = db.bufferCursor(tx);
     }
 
+    @Setup(Iteration)
+    public void coldCacheIteration(final BenchmarkParams b) {
+      if (!coldCache) {
+        return;
+      }
+      c.close();
+      tx.abort();
+      close();
+      dropPageCache(tmp);
+      open(b.getThreads(), false);
+      tx = env.createReadTransaction();
+      c = db.bufferCursor(tx);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      c.close();
+      tx.abort();
+      super.teardown();
+    }
+  }
+
+  /**
+   * Shared, pre-populated store for the "mixed" group. A single writer thread
+   * updates existing keys (one entry per committed transaction) while the
+   * other threads perform point reads. Use <code>-tg</code> to change the
+   * number of reader threads; the writer count must remain one.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Mixed extends CommonLmdbJni {
+
+    /**
+     * Maximum percentage of all mixed operations that are writes.
+     */
+    @Param("5")
+    int writePct;
+
+    WriteThrottle throttle;
+    private int rndByteOffset;
+    private int writeIdx;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b, false);
+      super.write();
+      throttle = new WriteThrottle(writePct);
+    }
+
     @TearDown(Trial)
     @Override
     public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    boolean put(final Control control) {
+      if (!throttle.awaitWrite(control)) {
+        return false;
+      }
+      final int key = keys[writeIdx];
+      dataset.key(writeIdx, wkb.byteArray());
+      writeIdx++;
+      if (writeIdx == keys.length) {
+        writeIdx = 0;
+      }
+      if (valRandom) {
+        wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
+        rndByteOffset += valSize;
+        if (rndByteOffset >= RND_MB.length - valSize) {
+          rndByteOffset = 0;
+        }
+      } else {
+        wvb.putInt(0, key);
+      }
+      final long start = latency.start();
+      try (Transaction tx = env.createWriteTransaction()) {
+        db.put(tx, wkb, wvb, 0);
+        tx.commit();
+      }
+      latency.stop(start);
+      return true;
+    }
+  }
+
+  /**
+   * Per-thread state for "mixed" readers. Each thread starts at a different
+   * offset into the key order.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class MixedReader {
+
+    int idx;
+    Mixed m;
+
+    /**
+     * Zero-copy value buffer, pointed at the value in the memory map.
+     */
+    DirectBuffer rvb;
+
+    /**
+     * Renewed for each read, so the writer's commits are visible and old
+     * snapshots are not pinned.
+     */
+    Transaction tx;
+
+    DirectBuffer wkb;
+
+    @Setup(Trial)
+    public void setup(final Mixed mixed, final ThreadParams tp) {
+      m = mixed;
+      idx = tp.getThreadIndex() * (m.readKeys.length / tp.getThreadCount());
+      wkb = new DirectBuffer(allocateDirect(m.keySize));
+      rvb = new DirectBuffer();
+      tx = m.env.createReadTransaction();
+      tx.reset();
+    }
+
+    @TearDown(Trial)
+    public void teardown() {
+      tx.close();
+    }
+
+    int nextIndex() {
+      idx++;
+      if (idx == m.readIndexes.length) {
+        idx = 0;
+      }
+      return m.readIndexes[idx];
+    }
+  }
+
+  /**
+   * Per-thread read transaction and cursor over the shared {@link Reader}
+   * store, allowing read benchmarks to be run with any JMH thread count. These
+   * are opened per iteration, as the store may be reopened between iterations.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    BufferCursor c;
+    Reader r;
+    Transaction tx;
+    DirectBuffer wkb;
+
+    @Setup(Iteration)
+    public void setup(final Reader reader) {
+      r = reader;
+      wkb = new DirectBuffer(allocateDirect(r.keySize));
+      tx = r.env.createReadTransaction();
+      c = r.db.bufferCursor(tx);
+    }
+
+    @TearDown(Iteration)
+    public void teardown() {
       c.close();
       tx.abort();
+    }
+  }
+
+  /**
+   * Populated store for the "update", "delete" and "churn" benchmarks. It is
+   * rebuilt before each invocation, so every invocation starts from a store
+   * holding all {@link #keys}.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Updater extends CommonLmdbJni {
+
+    /**
+     * Entries per transaction for "update" and "delete", unless
+     * {@link #txnSize} is set. Rewriting every entry in one transaction would
+     * need a map large enough for two copies of the tree, whereas later
+     * transactions reuse the pages freed by earlier ones.
+     */
+    private static final int TXN_ENTRIES = 10_000;
+
+    /**
+     * Number of delete-all and reinsert-all cycles in each "churn" invocation.
+     * Space used is reported after each cycle.
+     */
+    @Param("3")
+    int churnCycles;
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b, false);
+      // latency is only recorded by the "readKey" and "write" benchmarks
+      latency.measuring(false);
+      commits.paused(true);
+      super.write();
+      commits.paused(false);
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
       super.teardown();
     }
+
+    void churn() throws IOException {
+      for (int cycle = 1; cycle <= churnCycles; cycle++) {
+        delete();
+        write();
+        reportSpaceUsed(tmp, "churn-" + cycle);
+      }
+    }
+
+    void delete() {
+      final int size = txnSize(TXN_ENTRIES);
+      for (int i = 0; i < keys.length; i += size) {
+        final int end = min(i + size, keys.length);
+        final long start = commits.start();
+        try (Transaction tx = env.createWriteTransaction()) {
+          for (int j = i; j < end; j++) {
+            key(j);
+            db.delete(tx, wkb);
+          }
+          tx.commit();
+        }
+        if (durable.sync(end == keys.length)) {
+          env.sync(true);
+        }
+        commits.stop(start, end - i);
+      }
+    }
+
+    void update() {
+      final int rndByteMax = RND_MB.length - valSize;
+      int rndByteOffset = 0;
+      final int size = txnSize(TXN_ENTRIES);
+      for (int i = 0; i < keys.length; i += size) {
+        final int end = min(i + size, keys.length);
+        final long start = commits.start();
+        try (Transaction tx = env.createWriteTransaction()) {
+          for (int j = i; j < end; j++) {
+            final int key = keys[j];
+            key(j);
+            if (valRandom) {
+              wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
+              rndByteOffset += valSize;
+              if (rndByteOffset >= rndByteMax) {
+                rndByteOffset = 0;
+              }
+            } else {
+              wvb.putInt(0, key);
+            }
+            db.put(tx, wkb, wvb, 0);
+          }
+          tx.commit();
+        }
+        if (durable.sync(end == keys.length)) {
+          env.sync(true);
+        }
+        commits.stop(start, end - i);
+      }
+    }
+
+    private void key(final int idx) {
+      dataset.key(idx, wkb.byteArray());
+    }
   }
 
   @State(Benchmark)
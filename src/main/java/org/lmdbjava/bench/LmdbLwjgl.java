@@ -21,25 +21,35 @@
 package org.lmdbjava.bench;
 
 import java.io.IOException;
+import static java.lang.Math.min;
 import java.nio.ByteBuffer;
+import static java.nio.ByteBuffer.allocateDirect;
 import java.nio.IntBuffer;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
 import org.lwjgl.PointerBuffer;
 import org.lwjgl.system.MemoryStack;
 import static org.lwjgl.system.MemoryStack.stackPush;
 import static org.lwjgl.system.MemoryUtil.NULL;
+import static org.lwjgl.system.MemoryUtil.memPutAddress;
 import static org.lwjgl.util.lmdb.LMDB.MDB_APPEND;
 import static org.lwjgl.util.lmdb.LMDB.MDB_CREATE;
+import static org.lwjgl.util.lmdb.LMDB.MDB_DUPFIXED;
+import static org.lwjgl.util.lmdb.LMDB.MDB_DUPSORT;
 import static org.lwjgl.util.lmdb.LMDB.MDB_FIRST;
+import static org.lwjgl.util.lmdb.LMDB.MDB_GET_MULTIPLE;
 import static org.lwjgl.util.lmdb.LMDB.MDB_INTEGERKEY;
 import static org.lwjgl.util.lmdb.LMDB.MDB_LAST;
 import static org.lwjgl.util.lmdb.LMDB.MDB_NEXT;
+import static org.lwjgl.util.lmdb.LMDB.MDB_NEXT_MULTIPLE;
 import static org.lwjgl.util.lmdb.LMDB.MDB_NOSYNC;
+import static org.lwjgl.util.lmdb.LMDB.MDB_NOTLS;
 import static org.lwjgl.util.lmdb.LMDB.MDB_NOTFOUND;
 import static org.lwjgl.util.lmdb.LMDB.MDB_PREV;
 import static org.lwjgl.util.lmdb.LMDB.MDB_RDONLY;
 import static org.lwjgl.util.lmdb.LMDB.MDB_SET_KEY;
+import static org.lwjgl.util.lmdb.LMDB.MDB_SET_RANGE;
 import static org.lwjgl.util.lmdb.LMDB.MDB_SUCCESS;
 import static org.lwjgl.util.lmdb.LMDB.MDB_WRITEMAP;
 import static org.lwjgl.util.lmdb.LMDB.mdb_cursor_close;
@@ -47,34 +57,48 @@ import static org.lwjgl.util.lmdb.LMDB.mdb_cursor_get;
 import static org.lwjgl.util.lmdb.LMDB.mdb_cursor_open;
 import static org.lwjgl.util.lmdb.LMDB.mdb_cursor_put;
 import static org.lwjgl.util.lmdb.LMDB.mdb_dbi_open;
+import static org.lwjgl.util.lmdb.LMDB.mdb_del;
 import static org.lwjgl.util.lmdb.LMDB.mdb_env_close;
 import static org.lwjgl.util.lmdb.LMDB.mdb_env_create;
 import static org.lwjgl.util.lmdb.LMDB.mdb_env_open;
 import static org.lwjgl.util.lmdb.LMDB.mdb_env_set_mapsize;
 import static org.lwjgl.util.lmdb.LMDB.mdb_env_set_maxdbs;
 import static org.lwjgl.util.lmdb.LMDB.mdb_env_set_maxreaders;
+import static org.lwjgl.util.lmdb.LMDB.mdb_env_sync;
+import static org.lwjgl.util.lmdb.LMDB.mdb_get;
+import static org.lwjgl.util.lmdb.LMDB.mdb_put;
 import static org.lwjgl.util.lmdb.LMDB.mdb_strerror;
 import static org.lwjgl.util.lmdb.LMDB.mdb_txn_abort;
 import static org.lwjgl.util.lmdb.LMDB.mdb_txn_begin;
 import static org.lwjgl.util.lmdb.LMDB.mdb_txn_commit;
+import static org.lwjgl.util.lmdb.LMDB.mdb_txn_renew;
+import static org.lwjgl.util.lmdb.LMDB.mdb_txn_reset;
 import org.lwjgl.util.lmdb.MDBVal;
+import static org.lwjgl.util.lmdb.MDBVal.MV_DATA;
+import static org.lwjgl.util.lmdb.MDBVal.MV_SIZE;
 import static org.lwjgl.util.lmdb.MDBVal.mallocStack;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import static org.openjdk.jmh.annotations.Level.Invocation;
+import static org.openjdk.jmh.annotations.Level.Iteration;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import org.openjdk.jmh.annotations.Measurement;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.infra.ThreadParams;
 
 @OutputTimeUnit(MILLISECONDS)
 @Fork(value = 1, jvmArgsAppend = "-Dorg.lwjgl.util.NoChecks=true")
@@ -84,6 +108,78 @@ import org.openjdk.jmh.infra.Blackhole;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class LmdbLwjgl {
 
+  @Benchmark
+  public void churn(final Updater u, final Blackhole bh) throws IOException {
+    u.churn();
+  }
+
+  @Benchmark
+  public void delete(final Updater u, final Blackhole bh) {
+    u.delete();
+  }
+
+  @Benchmark
+  public void dupRead(final DupReader r, final Blackhole bh) {
+    try (MemoryStack stack = stackPush()) {
+      final MDBVal rwKey = mallocStack(stack);
+      final MDBVal rwVal = mallocStack(stack);
+
+      for (final int idx : r.readIndexes) {
+        CommonLmdbLwjgl.slice(rwKey, r.dataset.key(idx), r.keySize);
+        final long start = r.latency.start();
+        // each MDB_GET_MULTIPLE/MDB_NEXT_MULTIPLE returns a page of values
+        int status = mdb_cursor_get(r.c, rwKey, rwVal, MDB_SET_KEY);
+        if (status == MDB_SUCCESS) {
+          status = mdb_cursor_get(r.c, rwKey, rwVal, MDB_GET_MULTIPLE);
+        }
+        while (status == MDB_SUCCESS) {
+          bh.consume(rwVal.mv_data());
+          status = mdb_cursor_get(r.c, rwKey, rwVal, MDB_NEXT_MULTIPLE);
+        }
+        r.latency.stop(start);
+      }
+    }
+  }
+
+  @Benchmark
+  public void dupWrite(final DupWriter w, final Blackhole bh) {
+    w.writeDups();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedRead(final MixedReader t, final Blackhole bh) {
+    try (MemoryStack stack = stackPush()) {
+      final MDBVal rwKey = mallocStack(stack);
+      final MDBVal rwVal = mallocStack(stack);
+
+      CommonLmdbLwjgl.slice(rwKey, t.m.dataset.key(t.nextIndex()),
+                            t.m.keySize);
+      mdb_txn_renew(t.txn);
+      bh.consume(mdb_get(t.txn, t.m.db, rwKey, rwVal));
+      bh.consume(rwVal.mv_data());
+      mdb_txn_reset(t.txn);
+    }
+    t.m.throttle.read();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedWrite(final Mixed m, final Control c, final Blackhole bh) {
+    bh.consume(m.put(c));
+  }
+
+  @Benchmark
+  public void open(final Opener o, final Blackhole bh) {
+    o.close();
+    o.open(1, false);
+    o.firstGet(bh);
+  }
+
   @Benchmark
   public void readCrc(final Reader r, final Blackhole bh) {
     try (MemoryStack stack = stackPush()) {
@@ -107,16 +203,60 @@ public class LmdbLwjgl {
       final MDBVal rwKey = mallocStack(stack);
       final MDBVal rwVal = mallocStack(stack);
 
-      for (final int key : r.keys) {
-        stack.push();
-        if (r.intKey) {
-          rwKey.mv_data(stack.malloc(4).putInt(0, key));
-        } else {
-          rwKey.mv_data(stack.ASCII(r.padKey(key), false));
-        }
+      for (final int idx : r.readIndexes) {
+        CommonLmdbLwjgl.slice(rwKey, r.dataset.key(idx), r.keySize);
+        final long start = r.latency.start();
         bh.consume(mdb_cursor_get(r.c, rwKey, rwVal, MDB_SET_KEY));
         bh.consume(rwVal.mv_data());
-        stack.pop();
+        r.latency.stop(start);
+      }
+    }
+  }
+
+  @Benchmark
+  public void readKeyBatch(final Reader r, final KeyBatch k,
+                           final Blackhole bh) {
+    // one read transaction, visiting the keys of each batch in store order
+    try (MemoryStack stack = stackPush()) {
+      final MDBVal rwKey = mallocStack(stack);
+      final MDBVal rwVal = mallocStack(stack);
+
+      for (final int idx : k.sortedIndexBatches(r.readKeys, r.readIndexes)) {
+        CommonLmdbLwjgl.slice(rwKey, r.dataset.key(idx), r.keySize);
+        bh.consume(mdb_cursor_get(r.c, rwKey, rwVal, MDB_SET_KEY));
+        bh.consume(rwVal.mv_data());
+      }
+    }
+  }
+
+  @Benchmark
+  public void readKeyMt(final ThreadReader t, final Blackhole bh) {
+    try (MemoryStack stack = stackPush()) {
+      final MDBVal rwKey = mallocStack(stack);
+      final MDBVal rwVal = mallocStack(stack);
+
+      for (final int idx : t.r.readIndexes) {
+        CommonLmdbLwjgl.slice(rwKey, t.r.dataset.key(idx), t.r.keySize);
+        bh.consume(mdb_cursor_get(t.c, rwKey, rwVal, MDB_SET_KEY));
+        bh.consume(rwVal.mv_data());
+      }
+    }
+  }
+
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh) {
+    try (MemoryStack stack = stackPush()) {
+      final MDBVal rwKey = mallocStack(stack);
+      final MDBVal rwVal = mallocStack(stack);
+
+      for (int s = 0; s < g.scans; s++) {
+        final int idx = r.readIndexes[s % r.readIndexes.length];
+        CommonLmdbLwjgl.slice(rwKey, r.dataset.key(idx), r.keySize);
+        int status = mdb_cursor_get(r.c, rwKey, rwVal, MDB_SET_RANGE);
+        for (int i = 0; status != MDB_NOTFOUND && i < g.rangeLength; i++) {
+          bh.consume(rwVal.mv_data());
+          status = mdb_cursor_get(r.c, rwKey, rwVal, MDB_NEXT);
+        }
       }
     }
   }
@@ -150,6 +290,20 @@ public class LmdbLwjgl {
     }
   }
 
+  @Benchmark
+  public void readSeqMt(final ThreadReader t, final Blackhole bh) {
+    try (MemoryStack stack = stackPush()) {
+      final MDBVal key = mallocStack(stack);
+      final MDBVal val = mallocStack(stack);
+
+      int status = mdb_cursor_get(t.c, key, val, MDB_FIRST);
+      while (status != MDB_NOTFOUND) {
+        bh.consume(val.mv_data());
+        status = mdb_cursor_get(t.c, key, val, MDB_NEXT);
+      }
+    }
+  }
+
   @Benchmark
   public void readXxh64(final Reader r, final Blackhole bh) {
     try (MemoryStack stack = stackPush()) {
@@ -170,13 +324,18 @@ public class LmdbLwjgl {
   }
 
   @Benchmark
-  public void write(final Writer w, final Blackhole bh) {
+  public void update(final Updater u, final Blackhole bh) {
+    u.update();
+  }
+
+  @Benchmark
+  public void write(final Writer w, final Blackhole bh) throws IOException {
     w.write();
   }
 
   @State(Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
-  public static class CommonLmdbLwjgl extends Common {
+  public static class CommonLmdbLwjgl extends CommonTxn {
 
     private static final int POSIX_MODE = 664;
 
@@ -196,6 +355,19 @@ public class LmdbLwjgl {
       }
     }
 
+    /**
+     * Points the given value at off-heap memory, such as a {@link Dataset}
+     * entry, without copying it.
+     *
+     * @param val     the value to point
+     * @param address the address of the data
+     * @param size    the number of bytes
+     */
+    static void slice(final MDBVal val, final long address, final int size) {
+      memPutAddress(val.address() + MV_SIZE, size);
+      memPutAddress(val.address() + MV_DATA, address);
+    }
+
     private static int dbiFlags(final boolean intKey) {
       final int flags;
       if (intKey) {
@@ -206,7 +378,8 @@ public class LmdbLwjgl {
       return flags;
     }
 
-    private static int envFlags(final boolean writeMap, final boolean sync) {
+    private static int envFlags(final boolean writeMap, final boolean sync,
+                                final boolean noTls) {
       int envFlags = 0;
       if (writeMap) {
         envFlags |= MDB_WRITEMAP;
@@ -214,6 +387,9 @@ public class LmdbLwjgl {
       if (!sync) {
         envFlags |= MDB_NOSYNC;
       }
+      if (noTls) {
+        envFlags |= MDB_NOTLS;
+      }
       return envFlags;
     }
 
@@ -224,7 +400,46 @@ public class LmdbLwjgl {
     public void setup(final BenchmarkParams b, final boolean sync) throws
         IOException {
       super.setup(b);
+      open(b.getThreads(), sync);
+    }
+
+    @Override
+    public void teardown() throws IOException {
+      reportSpaceBeforeClose();
+      close();
+      super.teardown();
+    }
+
+    void close() {
+      mdb_env_close(env);
+    }
+
+    /**
+     * Flags of the database, which subclasses may add to.
+     *
+     * @return the flags
+     */
+    int dbiFlags() {
+      return dbiFlags(intKey);
+    }
 
+    /**
+     * Size of the memory map, which subclasses storing more may increase.
+     *
+     * @return the map size
+     */
+    long mapSize() {
+      return mapSize(num, valSize);
+    }
+
+    /**
+     * Opens the store in {@link #tmp}, which may already hold data that was
+     * written before an earlier {@link #close()}.
+     *
+     * @param threads the number of benchmark threads
+     * @param sync    whether to sync commits
+     */
+    void open(final int threads, final boolean sync) {
       try (MemoryStack stack = stackPush()) {
         final PointerBuffer pp = stack.mallocPointer(1);
 
@@ -232,32 +447,29 @@ public class LmdbLwjgl {
         env = pp.get(0);
 
         E(mdb_env_set_maxdbs(env, 1));
-        E(mdb_env_set_maxreaders(env, 2));
-        E(mdb_env_set_mapsize(env, mapSize(num, valSize)));
+        // one read txn per benchmark thread, plus the shared Reader txn
+        E(mdb_env_set_maxreaders(env, threads + 1));
+        E(mdb_env_set_mapsize(env, mapSize()));
 
         // Open environment
-        E(mdb_env_open(env, tmp.getPath(), envFlags(writeMap, sync), POSIX_MODE));
+        final boolean noTls = threads > 1;
+        E(mdb_env_open(env, tmp.getPath(), envFlags(writeMap, sync, noTls),
+                       POSIX_MODE));
 
         // Open database
         E(mdb_txn_begin(env, NULL, 0, pp));
         final long txn = pp.get(0);
 
         final IntBuffer ip = stack.mallocInt(1);
-        E(mdb_dbi_open(txn, "db", dbiFlags(intKey), ip));
+        E(mdb_dbi_open(txn, "db", dbiFlags(), ip));
         db = ip.get(0);
 
-        mdb_txn_commit(txn);
+        E(mdb_txn_commit(txn));
       }
     }
 
     @Override
-    public void teardown() throws IOException {
-      reportSpaceBeforeClose();
-      mdb_env_close(env);
-      super.teardown();
-    }
-
-    void write() {
+    void commit(final int from, final int to, final boolean last) {
       try (MemoryStack stack = stackPush()) {
         final PointerBuffer pp = stack.mallocPointer(1);
 
@@ -271,38 +483,200 @@ public class LmdbLwjgl {
         final long c = pp.get(0);
 
         final int flags = sequential ? MDB_APPEND : 0;
-        final int rndByteMax = RND_MB.length - valSize;
-        int rndByteOffset = 0;
-        for (final int key : keys) {
-          stack.push();
-          if (intKey) {
-            rwKey.mv_data(stack.malloc(4).putInt(0, key));
-          } else {
-            rwKey.mv_data(stack.ASCII(padKey(key), false));
-          }
-          if (valRandom) {
-            final ByteBuffer rnd = stack.malloc(valSize).put(RND_MB,
-                                                             rndByteOffset,
-                                                             valSize);
-            rnd.flip();
-            rwVal.mv_data(rnd);
-            rndByteOffset += valSize;
-            if (rndByteOffset >= rndByteMax) {
-              rndByteOffset = 0;
-            }
-          } else {
-            rwVal.mv_data(stack.malloc(valSize).putInt(0, key));
-          }
+        for (int i = from; i < to; i++) {
+          slice(rwKey, dataset.key(i), keySize);
+          slice(rwVal, dataset.val(i), valSize);
 
+          final long start = latency.start();
           E(mdb_cursor_put(c, rwKey, rwVal, flags));
-          stack.pop();
+          latency.stop(start);
         }
 
         mdb_cursor_close(c);
-        mdb_txn_commit(tx);
+        E(mdb_txn_commit(tx));
+      }
+      if (durable.sync(last)) {
+        E(mdb_env_sync(env, true));
       }
     }
 
+    void write() throws IOException {
+      write(keys.length);
+    }
+
+  }
+
+  /**
+   * Store of {@link #valuesPerKey} values for each key, in a
+   * <code>MDB_DUPSORT</code> and <code>MDB_DUPFIXED</code> database.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Dups extends CommonLmdbLwjgl {
+
+    /**
+     * Largest value of an <code>MDB_DUPSORT</code> database, whose values are
+     * stored as keys of a sub-database (LMDB's default maximum key size).
+     */
+    private static final int MAX_DUP_VAL_SIZE = 511;
+
+    /**
+     * Number of values of each key. Each value is {@link #valSize} bytes, of
+     * which the first four are its big-endian number.
+     */
+    @Param("10")
+    int valuesPerKey;
+
+    ByteBuffer wvb;
+
+    @Override
+    public void setup(final BenchmarkParams b, final boolean sync) throws
+        IOException {
+      if (valSize < Integer.BYTES) {
+        throw new IllegalArgumentException("valSize must be at least 4");
+      }
+      if (valSize > MAX_DUP_VAL_SIZE) {
+        throw new IllegalArgumentException("MDB_DUPSORT values must be at most "
+                                               + MAX_DUP_VAL_SIZE + " bytes");
+      }
+      super.setup(b, sync);
+      wvb = allocateDirect(valSize);
+    }
+
+    @Override
+    int dbiFlags() {
+      return super.dbiFlags() | MDB_DUPSORT | MDB_DUPFIXED;
+    }
+
+    @Override
+    long mapSize() {
+      return super.mapSize() * valuesPerKey;
+    }
+
+    void writeDups() {
+      final int size = txnSize(keys.length);
+      try (MemoryStack stack = stackPush()) {
+        final PointerBuffer pp = stack.mallocPointer(1);
+        final MDBVal rwKey = mallocStack(stack);
+        final MDBVal rwVal = mallocStack(stack);
+
+        for (int i = 0; i < keys.length; i += size) {
+          final int end = min(i + size, keys.length);
+          final long start = commits.start();
+          E(mdb_txn_begin(env, NULL, 0, pp));
+          final long tx = pp.get(0);
+          E(mdb_cursor_open(tx, db, pp));
+          final long c = pp.get(0);
+          for (int j = i; j < end; j++) {
+            slice(rwKey, dataset.key(j), keySize);
+            for (int v = 0; v < valuesPerKey; v++) {
+              dataset.dupVal(j, v, wvb);
+              rwVal.mv_data(wvb);
+              E(mdb_cursor_put(c, rwKey, rwVal, 0));
+            }
+          }
+          mdb_cursor_close(c);
+          E(mdb_txn_commit(tx));
+          commits.stop(start, (end - i) * valuesPerKey);
+        }
+      }
+    }
+  }
+
+  /**
+   * Populated {@link Dups} store for the "dupRead" benchmark, which reads all
+   * values of each key (in {@link #keyDistribution} order) via
+   * <code>MDB_GET_MULTIPLE</code> and <code>MDB_NEXT_MULTIPLE</code>.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class DupReader extends Dups {
+
+    long c;
+    long txn;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b, false);
+      writeDups();
+
+      try (MemoryStack stack = stackPush()) {
+        final PointerBuffer pp = stack.mallocPointer(1);
+
+        E(mdb_txn_begin(env, NULL, MDB_RDONLY, pp));
+        txn = pp.get(0);
+
+        E(mdb_cursor_open(txn, db, pp));
+        c = pp.get(0);
+      }
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      mdb_cursor_close(c);
+      mdb_txn_abort(txn);
+      super.teardown();
+    }
+  }
+
+  /**
+   * Empty {@link Dups} store that the "dupWrite" benchmark fills.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class DupWriter extends Dups {
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b, false);
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Populated store that the "open" benchmark closes and reopens, reading one
+   * key so that any work deferred until first access is included. Only
+   * meaningful with a single benchmark thread.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Opener extends CommonLmdbLwjgl {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b, false);
+      super.write();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void firstGet(final Blackhole bh) {
+      try (MemoryStack stack = stackPush()) {
+        final PointerBuffer pp = stack.mallocPointer(1);
+        final MDBVal rwKey = mallocStack(stack);
+        final MDBVal rwVal = mallocStack(stack);
+        slice(rwKey, dataset.key(0), keySize);
+
+        E(mdb_txn_begin(env, NULL, MDB_RDONLY, pp));
+        final long tx = pp.get(0);
+        bh.consume(mdb_get(tx, db, rwKey, rwVal));
+        bh.consume(rwVal.mv_data());
+        mdb_txn_abort(tx);
+      }
+    }
   }
 
   @State(Benchmark)
@@ -329,6 +703,28 @@ public class LmdbLwjgl {
       }
     }
 
+    @Setup(Iteration)
+    public void coldCacheIteration(final BenchmarkParams b) {
+      if (!coldCache) {
+        return;
+      }
+      mdb_cursor_close(c);
+      mdb_txn_abort(txn);
+      close();
+      dropPageCache(tmp);
+      open(b.getThreads(), false);
+
+      try (MemoryStack stack = stackPush()) {
+        final PointerBuffer pp = stack.mallocPointer(1);
+
+        E(mdb_txn_begin(env, NULL, MDB_RDONLY, pp));
+        txn = pp.get(0);
+
+        E(mdb_cursor_open(txn, db, pp));
+        c = pp.get(0);
+      }
+    }
+
     @TearDown(Trial)
     @Override
     public void teardown() throws IOException {
@@ -338,6 +734,275 @@ public class LmdbLwjgl {
     }
   }
 
+  /**
+   * Shared, pre-populated store for the "mixed" group. A single writer thread
+   * updates existing keys (one entry per committed transaction) while the
+   * other threads perform point reads. Use <code>-tg</code> to change the
+   * number of reader threads; the writer count must remain one.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Mixed extends CommonLmdbLwjgl {
+
+    /**
+     * Maximum percentage of all mixed operations that are writes.
+     */
+    @Param("5")
+    int writePct;
+
+    WriteThrottle throttle;
+    private int rndByteOffset;
+    private int writeIdx;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b, false);
+      super.write();
+      throttle = new WriteThrottle(writePct);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    boolean put(final Control control) {
+      if (!throttle.awaitWrite(control)) {
+        return false;
+      }
+      final int key = keys[writeIdx];
+      final long keyAddress = dataset.key(writeIdx);
+      writeIdx++;
+      if (writeIdx == keys.length) {
+        writeIdx = 0;
+      }
+      try (MemoryStack stack = stackPush()) {
+        final PointerBuffer pp = stack.mallocPointer(1);
+        final MDBVal rwKey = mallocStack(stack);
+        final MDBVal rwVal = mallocStack(stack);
+
+        slice(rwKey, keyAddress, keySize);
+        if (valRandom) {
+          final ByteBuffer rnd = stack.malloc(valSize).put(RND_MB,
+                                                           rndByteOffset,
+                                                           valSize);
+          rnd.flip();
+          rwVal.mv_data(rnd);
+          rndByteOffset += valSize;
+          if (rndByteOffset >= RND_MB.length - valSize) {
+            rndByteOffset = 0;
+          }
+        } else {
+          rwVal.mv_data(stack.malloc(valSize).putInt(0, key));
+        }
+
+        final long start = latency.start();
+        E(mdb_txn_begin(env, NULL, 0, pp));
+        final long tx = pp.get(0);
+        E(mdb_put(tx, db, rwKey, rwVal, 0));
+        E(mdb_txn_commit(tx));
+        latency.stop(start);
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Per-thread read transaction for "mixed" readers. Each thread starts at a
+   * different offset into the key order.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class MixedReader {
+
+    int idx;
+    Mixed m;
+
+    /**
+     * Renewed for each read, so the writer's commits are visible and old
+     * snapshots are not pinned.
+     */
+    long txn;
+
+    @Setup(Trial)
+    public void setup(final Mixed mixed, final ThreadParams tp) {
+      m = mixed;
+      idx = tp.getThreadIndex() * (m.readKeys.length / tp.getThreadCount());
+      try (MemoryStack stack = stackPush()) {
+        final PointerBuffer pp = stack.mallocPointer(1);
+        CommonLmdbLwjgl.E(mdb_txn_begin(m.env, NULL, MDB_RDONLY, pp));
+        txn = pp.get(0);
+      }
+      mdb_txn_reset(txn);
+    }
+
+    @TearDown(Trial)
+    public void teardown() {
+      mdb_txn_abort(txn);
+    }
+
+    int nextIndex() {
+      idx++;
+      if (idx == m.readIndexes.length) {
+        idx = 0;
+      }
+      return m.readIndexes[idx];
+    }
+  }
+
+  /**
+   * Per-thread read transaction and cursor over the shared {@link Reader}
+   * store, allowing read benchmarks to be run with any JMH thread count. These
+   * are opened per iteration, as the store may be reopened between iterations.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    long c;
+    Reader r;
+    long txn;
+
+    @Setup(Iteration)
+    public void setup(final Reader reader) {
+      r = reader;
+      try (MemoryStack stack = stackPush()) {
+        final PointerBuffer pp = stack.mallocPointer(1);
+
+        CommonLmdbLwjgl.E(mdb_txn_begin(r.env, NULL, MDB_RDONLY, pp));
+        txn = pp.get(0);
+
+        CommonLmdbLwjgl.E(mdb_cursor_open(txn, r.db, pp));
+        c = pp.get(0);
+      }
+    }
+
+    @TearDown(Iteration)
+    public void teardown() {
+      mdb_cursor_close(c);
+      mdb_txn_abort(txn);
+    }
+  }
+
+  /**
+   * Populated store for the "update", "delete" and "churn" benchmarks. It is
+   * rebuilt before each invocation, so every invocation starts from a store
+   * holding all {@link #keys}.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Updater extends CommonLmdbLwjgl {
+
+    /**
+     * Entries per transaction for "update" and "delete", unless
+     * {@link #txnSize} is set. Rewriting every entry in one transaction would
+     * need a map large enough for two copies of the tree, whereas later
+     * transactions reuse the pages freed by earlier ones.
+     */
+    private static final int TXN_ENTRIES = 10_000;
+
+    /**
+     * Number of delete-all and reinsert-all cycles in each "churn" invocation.
+     * Space used is reported after each cycle.
+     */
+    @Param("3")
+    int churnCycles;
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b, false);
+      // latency is only recorded by the "readKey" and "write" benchmarks
+      latency.measuring(false);
+      commits.paused(true);
+      super.write();
+      commits.paused(false);
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void churn() throws IOException {
+      for (int cycle = 1; cycle <= churnCycles; cycle++) {
+        delete();
+        write();
+        reportSpaceUsed(tmp, "churn-" + cycle);
+      }
+    }
+
+    void delete() {
+      final int size = txnSize(TXN_ENTRIES);
+      for (int i = 0; i < keys.length; i += size) {
+        final int end = min(i + size, keys.length);
+        final long start = commits.start();
+        try (MemoryStack stack = stackPush()) {
+          final PointerBuffer pp = stack.mallocPointer(1);
+          final MDBVal rwKey = mallocStack(stack);
+
+          E(mdb_txn_begin(env, NULL, 0, pp));
+          final long tx = pp.get(0);
+          for (int j = i; j < end; j++) {
+            slice(rwKey, dataset.key(j), keySize);
+            E(mdb_del(tx, db, rwKey, null));
+          }
+          E(mdb_txn_commit(tx));
+        }
+        if (durable.sync(end == keys.length)) {
+          E(mdb_env_sync(env, true));
+        }
+        commits.stop(start, end - i);
+      }
+    }
+
+    void update() {
+      final int rndByteMax = RND_MB.length - valSize;
+      int rndByteOffset = 0;
+      final int size = txnSize(TXN_ENTRIES);
+      for (int i = 0; i < keys.length; i += size) {
+        final int end = min(i + size, keys.length);
+        final long start = commits.start();
+        try (MemoryStack stack = stackPush()) {
+          final PointerBuffer pp = stack.mallocPointer(1);
+          final MDBVal rwKey = mallocStack(stack);
+          final MDBVal rwVal = mallocStack(stack);
+
+          E(mdb_txn_begin(env, NULL, 0, pp));
+          final long tx = pp.get(0);
+          for (int j = i; j < end; j++) {
+            final int key = keys[j];
+            stack.push();
+            slice(rwKey, dataset.key(j), keySize);
+            if (valRandom) {
+              final ByteBuffer rnd = stack.malloc(valSize).put(RND_MB,
+                                                               rndByteOffset,
+                                                               valSize);
+              rnd.flip();
+              rwVal.mv_data(rnd);
+              rndByteOffset += valSize;
+              if (rndByteOffset >= rndByteMax) {
+                rndByteOffset = 0;
+              }
+            } else {
+              rwVal.mv_data(stack.malloc(valSize).putInt(0, key));
+            }
+            E(mdb_put(tx, db, rwKey, rwVal, 0));
+            stack.pop();
+          }
+          E(mdb_txn_commit(tx));
+        }
+        if (durable.sync(end == keys.length)) {
+          E(mdb_env_sync(env, true));
+        }
+        commits.stop(start, end - i);
+      }
+    }
+  }
+
   @State(Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
   public static class Writer extends CommonLmdbLwjgl {
@@ -22,32 +22,44 @@ package org.lmdbjava.bench;
 
 import java.io.File;
 import java.io.IOException;
-import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.lang.Math.min;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
 import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.mapdb.BTreeMap;
 import org.mapdb.DB;
+import org.mapdb.DBMaker.Maker;
 import static org.mapdb.DBMaker.fileDB;
 import static org.mapdb.Serializer.BYTE_ARRAY;
+import static org.lmdbjava.bench.YcsbWorkload.READ;
+import static org.lmdbjava.bench.YcsbWorkload.RMW;
+import static org.lmdbjava.bench.YcsbWorkload.SCAN;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import static org.openjdk.jmh.annotations.Level.Invocation;
+import static org.openjdk.jmh.annotations.Level.Iteration;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import org.openjdk.jmh.annotations.Measurement;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.infra.ThreadParams;
 
 @OutputTimeUnit(MILLISECONDS)
 @Fork(1)
@@ -57,6 +69,41 @@ import org.openjdk.jmh.infra.Blackhole;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class MapDb {
 
+  @Benchmark
+  public void churn(final Updater u, final Blackhole bh) throws IOException {
+    u.churn();
+  }
+
+  @Benchmark
+  public void delete(final Updater u, final Blackhole bh) {
+    u.delete();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedRead(final MixedReader t, final Blackhole bh) {
+    t.m.dataset.key(t.nextIndex(), t.wkb.byteArray());
+    bh.consume(t.m.map.get(t.wkb.byteArray()));
+    t.m.throttle.read();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedWrite(final Mixed m, final Control c, final Blackhole bh) {
+    bh.consume(m.put(c));
+  }
+
+  @Benchmark
+  public void open(final Opener o, final Blackhole bh) {
+    o.close();
+    o.open(1);
+    o.firstGet(bh);
+  }
+
   @Benchmark
   public void readCrc(final Reader r, final Blackhole bh) {
     r.crc.reset();
@@ -71,13 +118,31 @@ public class MapDb {
 
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) {
-    for (final int key : r.keys) {
-      if (r.intKey) {
-        r.wkb.putInt(0, key);
-      } else {
-        r.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+    for (int i = 0; i < r.readIndexes.length; i++) {
+      r.dataset.key(r.readIndexes[i], r.wkb.byteArray());
+      final long start = r.latency.start();
+      bh.consume(r.maps[r.readDbs[i]].get(r.wkb.byteArray()));
+      r.latency.stop(start);
+    }
+  }
+
+  @Benchmark
+  public void readKeyMt(final ThreadReader t, final Blackhole bh) {
+    for (final int idx : t.r.readIndexes) {
+      t.r.dataset.key(idx, t.wkb.byteArray());
+      bh.consume(t.r.map.get(t.wkb.byteArray()));
+    }
+  }
+
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh) {
+    for (int s = 0; s < g.scans; s++) {
+      r.dataset.key(r.readIndexes[s % r.readIndexes.length], r.wkb.byteArray());
+      final Iterator<Entry<byte[], byte[]>> iterator = r.map
+          .tailMap(r.wkb.byteArray(), true).entrySet().iterator();
+      for (int i = 0; iterator.hasNext() && i < g.rangeLength; i++) {
+        bh.consume(iterator.next().getValue());
       }
-      bh.consume(r.map.get(r.wkb.byteArray()));
     }
   }
 
@@ -100,6 +165,15 @@ public class MapDb {
     }
   }
 
+  @Benchmark
+  public void readSeqMt(final ThreadReader t, final Blackhole bh) {
+    final Iterator<Entry<byte[], byte[]>> iterator = t.r.map.entryIterator();
+    while (iterator.hasNext()) {
+      final Entry<byte[], byte[]> entry = iterator.next();
+      bh.consume(entry.getValue());
+    }
+  }
+
   @Benchmark
   public void readXxh64(final Reader r, final Blackhole bh) {
     long result = 0;
@@ -113,17 +187,55 @@ public class MapDb {
   }
 
   @Benchmark
-  public void write(final Writer w, final Blackhole bh) {
+  public void ycsb(final Ycsb y, final Blackhole bh) {
+    final YcsbWorkload w = y.w;
+    for (int i = 0; i < w.ops.length; i++) {
+      final int key = w.opKeys[i];
+      switch (w.ops[i]) {
+        case READ:
+          y.read(key, bh);
+          break;
+        case SCAN:
+          y.scan(key, w.scanLengths[i], bh);
+          break;
+        case RMW:
+          y.rmw(key);
+          break;
+        default:
+          y.put(key);
+          break;
+      }
+    }
+  }
+
+  @Benchmark
+  public void update(final Updater u, final Blackhole bh) throws
+      IOException {
+    u.write();
+  }
+
+  @Benchmark
+  public void write(final Writer w, final Blackhole bh) throws IOException {
     w.write();
   }
 
   @State(value = Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
-  public static class CommonMapDb extends Common {
+  public static class CommonMapDb extends CommonTxn {
 
     DB db;
+
+    /**
+     * The first of the {@link #maps}, used by the benchmarks that only support
+     * a single database.
+     */
     BTreeMap<byte[], byte[]> map;
 
+    /**
+     * One tree map per {@link #numDbs}.
+     */
+    BTreeMap<byte[], byte[]>[] maps;
+
     /**
      * Writable key buffer. Backed by a plain byte[] for MapDb API ease.
      */
@@ -139,44 +251,98 @@ public class MapDb {
       super.setup(b);
       wkb = new UnsafeBuffer(new byte[keySize]);
       wvb = new UnsafeBuffer(new byte[valSize]);
-      db = fileDB(new File(tmp, "map.db"))
-          .fileMmapEnable()
-          .concurrencyDisable()
-          .allocateStartSize(num * valSize)
-          .make();
-      map = db.treeMap("ba2ba")
-          .keySerializer(BYTE_ARRAY)
-          .valueSerializer(BYTE_ARRAY)
-          .createOrOpen();
+      open(b.getThreads());
+      // MapDB's only commit also syncs, so the slices of other durabilities
+      // are not committed and would inflate commits/sec
+      if (!durable.everyCommit()) {
+        commits.unsupported("MapDB only commits with durability=commit-sync");
+      }
     }
 
     @Override
     public void teardown() throws IOException {
       reportSpaceBeforeClose();
-      db.close();
+      close();
       super.teardown();
     }
 
-    void write() {
-      final int rndByteMax = RND_MB.length - valSize;
-      int rndByteOffset = 0;
-      for (final int key : keys) {
-        if (intKey) {
-          wkb.putInt(0, key, LITTLE_ENDIAN);
-        } else {
-          wkb.putStringWithoutLengthUtf8(0, padKey(key));
-        }
-        if (valRandom) {
-          wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
-          rndByteOffset += valSize;
-          if (rndByteOffset >= rndByteMax) {
-            rndByteOffset = 0;
-          }
-        } else {
-          wvb.putInt(0, key);
-        }
-        map.put(wkb.byteArray(), wvb.byteArray());
+    void close() {
+      db.close();
+    }
+
+    /**
+     * Opens the store in {@link #tmp}, which may already hold data that was
+     * written before an earlier {@link #close()}.
+     *
+     * @param threads the number of benchmark threads
+     */
+    @SuppressWarnings("unchecked")
+    void open(final int threads) {
+      final Maker maker = fileDB(new File(tmp, "map.db"))
+          .fileMmapEnable()
+          .allocateStartSize(num * valSize);
+      if (threads == 1) {
+        maker.concurrencyDisable();
+      }
+      if (!durable.none()) {
+        maker.transactionEnable();
+      }
+      db = maker.make();
+      maps = new BTreeMap[numDbs];
+      for (int i = 0; i < numDbs; i++) {
+        maps[i] = db.treeMap(i == 0 ? "ba2ba" : "ba2ba" + i)
+            .keySerializer(BYTE_ARRAY)
+            .valueSerializer(BYTE_ARRAY)
+            .createOrOpen();
       }
+      map = maps[0];
+    }
+
+    @Override
+    void commit(final int from, final int to, final boolean last) {
+      for (int i = from; i < to; i++) {
+        dataset.key(i, wkb.byteArray());
+        dataset.val(i, wvb.byteArray());
+        final long start = latency.start();
+        maps[dbIndex(keys[i])].put(wkb.byteArray(), wvb.byteArray());
+        latency.stop(start);
+      }
+      // MapDB only makes transactions durable (and syncs) when committing
+      if (durable.sync(last)) {
+        db.commit();
+      }
+    }
+
+    void write() throws IOException {
+      write(keys.length);
+    }
+  }
+
+  /**
+   * Populated store that the "open" benchmark closes and reopens, reading one
+   * key so that any work deferred until first access is included. Only
+   * meaningful with a single benchmark thread.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Opener extends CommonMapDb {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void firstGet(final Blackhole bh) {
+      dataset.key(0, wkb.byteArray());
+      bh.consume(map.get(wkb.byteArray()));
     }
   }
 
@@ -190,6 +356,16 @@ public class MapDb {
       super.write();
     }
 
+    @Setup(Iteration)
+    public void coldCacheIteration(final BenchmarkParams b) {
+      if (!coldCache) {
+        return;
+      }
+      close();
+      dropPageCache(tmp);
+      open(b.getThreads());
+    }
+
     @TearDown(Trial)
     @Override
     public void teardown() throws IOException {
@@ -197,6 +373,182 @@ public class MapDb {
     }
   }
 
+  /**
+   * Shared, pre-populated store for the "mixed" group. A single writer thread
+   * updates existing keys (one entry per committed transaction) while the
+   * other threads perform point reads. Use <code>-tg</code> to change the
+   * number of reader threads; the writer count must remain one.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Mixed extends CommonMapDb {
+
+    /**
+     * Maximum percentage of all mixed operations that are writes.
+     */
+    @Param("5")
+    int writePct;
+
+    WriteThrottle throttle;
+    private int rndByteOffset;
+    private int writeIdx;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write();
+      throttle = new WriteThrottle(writePct);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    boolean put(final Control control) {
+      if (!throttle.awaitWrite(control)) {
+        return false;
+      }
+      final int key = keys[writeIdx];
+      dataset.key(writeIdx, wkb.byteArray());
+      writeIdx++;
+      if (writeIdx == keys.length) {
+        writeIdx = 0;
+      }
+      if (valRandom) {
+        wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
+        rndByteOffset += valSize;
+        if (rndByteOffset >= RND_MB.length - valSize) {
+          rndByteOffset = 0;
+        }
+      } else {
+        wvb.putInt(0, key);
+      }
+      final long start = latency.start();
+      map.put(wkb.byteArray(), wvb.byteArray());
+      latency.stop(start);
+      return true;
+    }
+  }
+
+  /**
+   * Per-thread state for "mixed" readers. Each thread starts at a different
+   * offset into the key order.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class MixedReader {
+
+    int idx;
+    Mixed m;
+
+    /**
+     * Writable key buffer. Backed by a plain byte[] for MapDb API ease.
+     */
+    MutableDirectBuffer wkb;
+
+    @Setup(Trial)
+    public void setup(final Mixed mixed, final ThreadParams tp) {
+      m = mixed;
+      idx = tp.getThreadIndex() * (m.readKeys.length / tp.getThreadCount());
+      wkb = new UnsafeBuffer(new byte[m.keySize]);
+    }
+
+    int nextIndex() {
+      idx++;
+      if (idx == m.readIndexes.length) {
+        idx = 0;
+      }
+      return m.readIndexes[idx];
+    }
+  }
+
+  /**
+   * Per-thread key buffer over the shared {@link Reader} store, allowing
+   * read benchmarks to be run with any JMH thread count.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    Reader r;
+
+    /**
+     * Writable key buffer. Backed by a plain byte[] for MapDb API ease.
+     */
+    MutableDirectBuffer wkb;
+
+    @Setup(Trial)
+    public void setup(final Reader reader) {
+      r = reader;
+      wkb = new UnsafeBuffer(new byte[r.keySize]);
+    }
+  }
+
+  /**
+   * Populated store for the "update", "delete" and "churn" benchmarks. It is
+   * rebuilt before each invocation, so every invocation starts from a store
+   * holding all {@link #keys}.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Updater extends CommonMapDb {
+
+    /**
+     * Number of delete-all and reinsert-all cycles in each "churn" invocation.
+     * Space used is reported after each cycle.
+     */
+    @Param("3")
+    int churnCycles;
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      // latency is only recorded by the "readKey" and "write" benchmarks
+      latency.measuring(false);
+      commits.paused(true);
+      super.write();
+      commits.paused(false);
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void churn() throws IOException {
+      for (int cycle = 1; cycle <= churnCycles; cycle++) {
+        delete();
+        write();
+        reportSpaceUsed(tmp, "churn-" + cycle);
+      }
+    }
+
+    void delete() {
+      final int size = txnSize(keys.length);
+      for (int i = 0; i < keys.length; i += size) {
+        final int end = min(i + size, keys.length);
+        final long start = commits.start();
+        for (int j = i; j < end; j++) {
+          key(j);
+          map.remove(wkb.byteArray());
+        }
+        if (durable.sync(end == keys.length)) {
+          db.commit();
+        }
+        commits.stop(start, end - i);
+      }
+    }
+
+    private void key(final int idx) {
+      dataset.key(idx, wkb.byteArray());
+    }
+  }
+
   @State(Benchmark)
   public static class Writer extends CommonMapDb {
 
@@ -213,4 +565,73 @@ public class MapDb {
     }
   }
 
+  /**
+   * Populated store driven by a {@link YcsbWorkload} operation stream. Each
+   * read, scan, update, insert and read-modify-write is its own transaction.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Ycsb extends CommonMapDb {
+
+    private int rndByteOffset;
+    YcsbWorkload w;
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final YcsbWorkload workload)
+        throws IOException {
+      super.setup(b);
+      super.write();
+      w = workload;
+      w.generate(keys, sequential);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void put(final int key) {
+      key(key);
+      if (valRandom) {
+        wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
+        rndByteOffset += valSize;
+        if (rndByteOffset >= RND_MB.length - valSize) {
+          rndByteOffset = 0;
+        }
+      } else {
+        wvb.putInt(0, key);
+      }
+      map.put(wkb.byteArray(), wvb.byteArray());
+    }
+
+    void read(final int key, final Blackhole bh) {
+      key(key);
+      bh.consume(map.get(wkb.byteArray()));
+    }
+
+    void rmw(final int key) {
+      key(key);
+      final byte[] old = map.get(wkb.byteArray());
+      if (old != null) {
+        wvb.putBytes(0, old);
+      }
+      wvb.putInt(0, wvb.getInt(0) + 1);
+      map.put(wkb.byteArray(), wvb.byteArray());
+    }
+
+    void scan(final int key, final int length, final Blackhole bh) {
+      key(key);
+      final Iterator<Entry<byte[], byte[]>> iterator = map
+          .tailMap(wkb.byteArray(), true).entrySet().iterator();
+      for (int i = 0; iterator.hasNext() && i < length; i++) {
+        bh.consume(iterator.next().getValue());
+      }
+    }
+
+    private void key(final int key) {
+      putKey(wkb, key);
+    }
+  }
+
 }
@@ -22,30 +22,47 @@ package org.lmdbjava.bench;
 
 import java.io.File;
 import java.io.IOException;
-import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.lang.Math.min;
 import static java.util.Arrays.copyOf;
 import java.util.Iterator;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
 import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
+import org.h2.mvstore.Cursor;
 import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
+import static org.lmdbjava.bench.BackupRecorder.copyFile;
+import static org.lmdbjava.bench.Crasher.configure;
+import static org.lmdbjava.bench.Crasher.crash;
+import static org.lmdbjava.bench.Crasher.writing;
+import static org.lmdbjava.bench.YcsbWorkload.READ;
+import static org.lmdbjava.bench.YcsbWorkload.RMW;
+import static org.lmdbjava.bench.YcsbWorkload.SCAN;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import static org.openjdk.jmh.annotations.Level.Invocation;
+import static org.openjdk.jmh.annotations.Level.Iteration;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import org.openjdk.jmh.annotations.Measurement;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.infra.ThreadParams;
 
 @OutputTimeUnit(MILLISECONDS)
 @Fork(1)
@@ -55,6 +72,65 @@ import org.openjdk.jmh.infra.Blackhole;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class MvStore {
 
+  @Benchmark
+  @Group("backup")
+  @GroupThreads(1)
+  public void backupCopy(final Backup b, final Blackhole bh) throws
+      IOException {
+    b.copy();
+  }
+
+  @Benchmark
+  @Group("backup")
+  @GroupThreads(3)
+  @OutputTimeUnit(NANOSECONDS)
+  public void backupRead(final BackupReader t, final Blackhole bh) {
+    t.b.dataset.key(t.nextIndex(), t.wkb.byteArray());
+    bh.consume(t.b.map.get(copyOf(t.wkb.byteArray(), t.b.keySize)));
+  }
+
+  @Benchmark
+  public void churn(final Updater u, final Blackhole bh) throws IOException {
+    u.churn();
+  }
+
+  @Benchmark
+  public void delete(final Updater u, final Blackhole bh) {
+    u.delete();
+  }
+
+  @Benchmark
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1, time = 1, timeUnit = MINUTES)
+  public void ingest(final Ingester i, final Blackhole bh) throws IOException {
+    i.ingest();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedRead(final MixedReader t, final Blackhole bh) {
+    t.m.dataset.key(t.nextIndex(), t.wkb.byteArray());
+    bh.consume(t.m.map.get(copyOf(t.wkb.byteArray(), t.m.keySize)));
+    t.m.throttle.read();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedWrite(final Mixed m, final Control c, final Blackhole bh) {
+    bh.consume(m.put(c));
+  }
+
+  @Benchmark
+  public void open(final Opener o, final Blackhole bh) {
+    o.close();
+    o.open();
+    o.firstGet(bh);
+  }
+
   @Benchmark
   public void readCrc(final Reader r, final Blackhole bh) {
     r.crc.reset();
@@ -70,13 +146,32 @@ public class MvStore {
 
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) {
-    for (final int key : r.keys) {
-      if (r.intKey) {
-        r.wkb.putInt(0, key);
-      } else {
-        r.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
-      }
+    for (final int idx : r.readIndexes) {
+      r.dataset.key(idx, r.wkb.byteArray());
+      final long start = r.latency.start();
       bh.consume(r.map.get(copyOf(r.wkb.byteArray(), r.keySize)));
+      r.latency.stop(start);
+    }
+  }
+
+  @Benchmark
+  public void readKeyMt(final ThreadReader t, final Blackhole bh) {
+    for (final int idx : t.r.readIndexes) {
+      t.r.dataset.key(idx, t.wkb.byteArray());
+      bh.consume(t.r.map.get(copyOf(t.wkb.byteArray(), t.r.keySize)));
+    }
+  }
+
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh) {
+    for (int s = 0; s < g.scans; s++) {
+      r.dataset.key(r.readIndexes[s % r.readIndexes.length], r.wkb.byteArray());
+      final Cursor<byte[], byte[]> c = r.map.cursor(copyOf(r.wkb.byteArray(),
+                                                            r.keySize));
+      for (int i = 0; c.hasNext() && i < g.rangeLength; i++) {
+        c.next();
+        bh.consume(c.getValue());
+      }
     }
   }
 
@@ -97,6 +192,15 @@ public class MvStore {
     }
   }
 
+  @Benchmark
+  public void readSeqMt(final ThreadReader t, final Blackhole bh) {
+    final Iterator<byte[]> iter = t.r.map.keyIterator(null);
+    while (iter.hasNext()) {
+      final byte[] k = iter.next();
+      bh.consume(t.r.map.get(k));
+    }
+  }
+
   @Benchmark
   public void readXxh64(final Reader r, final Blackhole bh) {
     long result = 0;
@@ -111,13 +215,47 @@ public class MvStore {
   }
 
   @Benchmark
-  public void write(final Writer w, final Blackhole bh) {
+  public void ycsb(final Ycsb y, final Blackhole bh) {
+    final YcsbWorkload w = y.w;
+    for (int i = 0; i < w.ops.length; i++) {
+      final int key = w.opKeys[i];
+      switch (w.ops[i]) {
+        case READ:
+          y.read(key, bh);
+          break;
+        case SCAN:
+          y.scan(key, w.scanLengths[i], bh);
+          break;
+        case RMW:
+          y.rmw(key);
+          break;
+        default:
+          y.put(key);
+          break;
+      }
+    }
+  }
+
+  @Benchmark
+  public void recover(final Recoverer r, final Blackhole bh) {
+    r.open();
+    r.firstGet(bh);
+  }
+
+  @Benchmark
+  public void update(final Updater u, final Blackhole bh) throws
+      IOException {
+    u.write();
+  }
+
+  @Benchmark
+  public void write(final Writer w, final Blackhole bh) throws IOException {
     w.write();
   }
 
   @State(value = Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
-  public static class CommonMvStore extends Common {
+  public static class CommonMvStore extends CommonTxn {
 
     MVMap<byte[], byte[]> map;
     MVStore s;
@@ -137,6 +275,25 @@ public class MvStore {
       super.setup(b);
       wkb = new UnsafeBuffer(new byte[keySize]);
       wvb = new UnsafeBuffer(new byte[valSize]);
+      open();
+    }
+
+    @Override
+    public void teardown() throws IOException {
+      reportSpaceBeforeClose();
+      close();
+      super.teardown();
+    }
+
+    void close() {
+      s.close();
+    }
+
+    /**
+     * Opens the store in {@link #tmp}, which may already hold data that was
+     * written before an earlier {@link #close()}.
+     */
+    void open() {
       s = new MVStore.Builder()
           .fileName(new File(tmp, "mvstore.db").getAbsolutePath())
           .autoCommitDisabled()
@@ -144,36 +301,160 @@ public class MvStore {
       map = s.openMap("ba2ba");
     }
 
+    @Override
+    void commit(final int from, final int to, final boolean last) {
+      for (int i = from; i < to; i++) {
+        // MvStore requires new arrays, otherwise it never stores > 1 entry
+        final byte[] key = new byte[keySize];
+        final byte[] val = new byte[valSize];
+        dataset.key(i, key);
+        dataset.val(i, val);
+        final long start = latency.start();
+        map.put(key, val);
+        latency.stop(start);
+      }
+      s.commit();
+      if (durable.sync(last)) {
+        s.sync();
+      }
+    }
+
+    void write() throws IOException {
+      write(keys.length);
+    }
+  }
+
+  /**
+   * Shared, pre-populated store for the "backup" group. A single thread copies
+   * the open store file (one copy per invocation) while the other threads
+   * perform point reads, whose latency shows the cost of a hot backup to
+   * concurrent readers. Space reuse is disabled during the copy, which is the
+   * online backup procedure of MVStore: chunks are then only appended, so the
+   * file is consistent up to the length it had when the copy began. Use
+   * <code>-tg</code> to change the number of reader threads; the copying
+   * thread count must remain one.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Backup extends CommonMvStore {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      if (BACKUP_COMPACT.equals(backup)) {
+        throw new IllegalArgumentException("MVStore has no compacting backup");
+      }
+      super.write();
+    }
+
+    @TearDown(Invocation)
+    public void clear() {
+      clearCompact();
+    }
+
+    @TearDown(Trial)
     @Override
     public void teardown() throws IOException {
-      reportSpaceBeforeClose();
-      s.close();
       super.teardown();
     }
 
-    void write() {
-      final int rndByteMax = RND_MB.length - valSize;
-      int rndByteOffset = 0;
-      for (final int key : keys) {
-        if (intKey) {
-          wkb.putInt(0, key, LITTLE_ENDIAN);
-        } else {
-          wkb.putStringWithoutLengthUtf8(0, padKey(key));
-        }
-        if (valRandom) {
-          wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
-          rndByteOffset += valSize;
-          if (rndByteOffset >= rndByteMax) {
-            rndByteOffset = 0;
-          }
-        } else {
-          wvb.putInt(0, key);
-        }
-        // MvStore requires this copy, otherwise it never stores > 1 entry
-        map.put(copyOf(wkb.byteArray(), keySize),
-                copyOf(wvb.byteArray(), valSize));
+    void copy() throws IOException {
+      if (BACKUP_IDLE.equals(backup)) {
+        return;
       }
-      s.commit();
+      final long start = backups.start();
+      final File from = new File(tmp, "mvstore.db");
+      final File to = new File(compact, from.getName());
+      s.setReuseSpace(false);
+      try {
+        copyFile(from, to, from.length());
+      } finally {
+        s.setReuseSpace(true);
+      }
+      backups.stop(start, to);
+    }
+  }
+
+  /**
+   * Per-thread state for "backup" readers. Each thread starts at a different
+   * offset into the key order.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class BackupReader {
+
+    Backup b;
+    int idx;
+
+    /**
+     * Writable key buffer. Backed by a plain byte[] for MvStore API ease.
+     */
+    MutableDirectBuffer wkb;
+
+    @Setup(Trial)
+    public void setup(final Backup backup, final ThreadParams tp) {
+      b = backup;
+      idx = tp.getThreadIndex() * (b.readKeys.length / tp.getThreadCount());
+      wkb = new UnsafeBuffer(new byte[b.keySize]);
+    }
+
+    int nextIndex() {
+      idx++;
+      if (idx == b.readIndexes.length) {
+        idx = 0;
+      }
+      return b.readIndexes[idx];
+    }
+  }
+
+  /**
+   * Store that "ingest" writes continuously from empty, for the wall time of
+   * its single measurement iteration.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Ingester extends CommonMvStore {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      reportSpaceUsed(tmp, "after-ingest");
+      super.teardown();
+    }
+  }
+
+  /**
+   * Populated store that the "open" benchmark closes and reopens, reading one
+   * key so that any work deferred until first access is included. Only
+   * meaningful with a single benchmark thread.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Opener extends CommonMvStore {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void firstGet(final Blackhole bh) {
+      dataset.key(0, wkb.byteArray());
+      bh.consume(map.get(copyOf(wkb.byteArray(), keySize)));
     }
   }
 
@@ -187,6 +468,16 @@ public class MvStore {
       super.write();
     }
 
+    @Setup(Iteration)
+    public void coldCacheIteration() {
+      if (!coldCache) {
+        return;
+      }
+      close();
+      dropPageCache(tmp);
+      open();
+    }
+
     @TearDown(Trial)
     @Override
     public void teardown() throws IOException {
@@ -194,6 +485,212 @@ public class MvStore {
     }
   }
 
+  /**
+   * Shared, pre-populated store for the "mixed" group. A single writer thread
+   * updates existing keys (one entry per committed transaction) while the
+   * other threads perform point reads. Use <code>-tg</code> to change the
+   * number of reader threads; the writer count must remain one.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Mixed extends CommonMvStore {
+
+    /**
+     * Maximum percentage of all mixed operations that are writes.
+     */
+    @Param("5")
+    int writePct;
+
+    WriteThrottle throttle;
+    private int rndByteOffset;
+    private int writeIdx;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write();
+      throttle = new WriteThrottle(writePct);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    boolean put(final Control control) {
+      if (!throttle.awaitWrite(control)) {
+        return false;
+      }
+      final int key = keys[writeIdx];
+      dataset.key(writeIdx, wkb.byteArray());
+      writeIdx++;
+      if (writeIdx == keys.length) {
+        writeIdx = 0;
+      }
+      if (valRandom) {
+        wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
+        rndByteOffset += valSize;
+        if (rndByteOffset >= RND_MB.length - valSize) {
+          rndByteOffset = 0;
+        }
+      } else {
+        wvb.putInt(0, key);
+      }
+      final long start = latency.start();
+      map.put(copyOf(wkb.byteArray(), keySize),
+              copyOf(wvb.byteArray(), valSize));
+      s.commit();
+      latency.stop(start);
+      return true;
+    }
+  }
+
+  /**
+   * Per-thread state for "mixed" readers. Each thread starts at a different
+   * offset into the key order.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class MixedReader {
+
+    int idx;
+    Mixed m;
+
+    /**
+     * Writable key buffer. Backed by a plain byte[] for MvStore API ease.
+     */
+    MutableDirectBuffer wkb;
+
+    @Setup(Trial)
+    public void setup(final Mixed mixed, final ThreadParams tp) {
+      m = mixed;
+      idx = tp.getThreadIndex() * (m.readKeys.length / tp.getThreadCount());
+      wkb = new UnsafeBuffer(new byte[m.keySize]);
+    }
+
+    int nextIndex() {
+      idx++;
+      if (idx == m.readIndexes.length) {
+        idx = 0;
+      }
+      return m.readIndexes[idx];
+    }
+  }
+
+  /**
+   * {@link Opener} store that is left by an unclean shutdown before each
+   * "recover" invocation, as a child JVM writing to it is killed. The
+   * benchmark then measures the reopen (including any recovery) and first get.
+   */
+  @State(Benchmark)
+  public static class Recoverer extends Opener {
+
+    public static void main(final String[] args) throws IOException {
+      final Recoverer r = new Recoverer();
+      configure(r, args);
+      r.wkb = new UnsafeBuffer(new byte[r.keySize]);
+      r.wvb = new UnsafeBuffer(new byte[r.valSize]);
+      r.open();
+      writing();
+      while (true) {
+        r.write();
+      }
+    }
+
+    @Setup(Invocation)
+    public void crashInvocation() throws IOException {
+      close();
+      crash(Recoverer.class, this);
+    }
+  }
+
+  /**
+   * Per-thread key buffer over the shared {@link Reader} store, allowing
+   * read benchmarks to be run with any JMH thread count.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    Reader r;
+
+    /**
+     * Writable key buffer. Backed by a plain byte[] for MvStore API ease.
+     */
+    MutableDirectBuffer wkb;
+
+    @Setup(Trial)
+    public void setup(final Reader reader) {
+      r = reader;
+      wkb = new UnsafeBuffer(new byte[r.keySize]);
+    }
+  }
+
+  /**
+   * Populated store for the "update", "delete" and "churn" benchmarks. It is
+   * rebuilt before each invocation, so every invocation starts from a store
+   * holding all {@link #keys}.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Updater extends CommonMvStore {
+
+    /**
+     * Number of delete-all and reinsert-all cycles in each "churn" invocation.
+     * Space used is reported after each cycle.
+     */
+    @Param("3")
+    int churnCycles;
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      // latency is only recorded by the "readKey" and "write" benchmarks
+      latency.measuring(false);
+      commits.paused(true);
+      super.write();
+      commits.paused(false);
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void churn() throws IOException {
+      for (int cycle = 1; cycle <= churnCycles; cycle++) {
+        delete();
+        write();
+        reportSpaceUsed(tmp, "churn-" + cycle);
+      }
+    }
+
+    void delete() {
+      final int size = txnSize(keys.length);
+      for (int i = 0; i < keys.length; i += size) {
+        final int end = min(i + size, keys.length);
+        final long start = commits.start();
+        for (int j = i; j < end; j++) {
+          key(j);
+          map.remove(wkb.byteArray());
+        }
+        s.commit();
+        if (durable.sync(end == keys.length)) {
+          s.sync();
+        }
+        commits.stop(start, end - i);
+      }
+    }
+
+    private void key(final int idx) {
+      dataset.key(idx, wkb.byteArray());
+    }
+  }
+
   @State(Benchmark)
   public static class Writer extends CommonMvStore {
 
@@ -210,4 +707,78 @@ public class MvStore {
     }
   }
 
+  /**
+   * Populated store driven by a {@link YcsbWorkload} operation stream. Each
+   * read, scan, update, insert and read-modify-write is its own transaction.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Ycsb extends CommonMvStore {
+
+    private int rndByteOffset;
+    YcsbWorkload w;
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final YcsbWorkload workload)
+        throws IOException {
+      super.setup(b);
+      super.write();
+      w = workload;
+      w.generate(keys, sequential);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void put(final int key) {
+      key(key);
+      if (valRandom) {
+        wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
+        rndByteOffset += valSize;
+        if (rndByteOffset >= RND_MB.length - valSize) {
+          rndByteOffset = 0;
+        }
+      } else {
+        wvb.putInt(0, key);
+      }
+      map.put(copyOf(wkb.byteArray(), keySize),
+              copyOf(wvb.byteArray(), valSize));
+      s.commit();
+    }
+
+    void read(final int key, final Blackhole bh) {
+      key(key);
+      bh.consume(map.get(copyOf(wkb.byteArray(), keySize)));
+    }
+
+    void rmw(final int key) {
+      key(key);
+      final byte[] k = copyOf(wkb.byteArray(), keySize);
+      final byte[] old = map.get(k);
+      if (old != null) {
+        wvb.putBytes(0, old);
+      }
+      wvb.putInt(0, wvb.getInt(0) + 1);
+      map.put(k, copyOf(wvb.byteArray(), valSize));
+      s.commit();
+    }
+
+    void scan(final int key, final int length, final Blackhole bh) {
+      key(key);
+      final Cursor<byte[], byte[]> c = map.cursor(copyOf(wkb.byteArray(),
+                                                          keySize));
+      for (int i = 0; c.hasNext() && i < length; i++) {
+        c.next();
+        bh.consume(c.getValue());
+      }
+    }
+
+    private void key(final int key) {
+      putKey(wkb, key);
+    }
+  }
+
 }
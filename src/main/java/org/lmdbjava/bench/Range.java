@@ -0,0 +1,56 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import org.openjdk.jmh.annotations.Param;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parameters of the "readRange" benchmarks, which seek to a start key and then
+ * iterate forward over a bounded number of entries.
+ *
+ * <p>
+ * Start keys are taken in order from {@link Common#readKeys}, so they follow
+ * the configured key distribution.
+ *
+ * <p>
+ * Members do not reflect the typical code standards of the LmdbJava project due
+ * to compliance requirements with JMH {@link Param} and {@link State}.
+ */
+@State(Benchmark)
+@SuppressWarnings({"checkstyle:designforextension",
+                   "checkstyle:visibilitymodifier"})
+public class Range {
+
+  /**
+   * Maximum number of entries read after seeking to each start key (including
+   * the entry found by the seek).
+   */
+  @Param("100")
+  int rangeLength;
+
+  /**
+   * Number of seek and iterate operations performed by each invocation.
+   */
+  @Param("10000")
+  int scans;
+}
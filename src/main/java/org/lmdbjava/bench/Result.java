@@ -0,0 +1,294 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import static java.lang.Double.parseDouble;
+import static java.lang.Long.parseLong;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.file.Files.newBufferedReader;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import static org.lmdbjava.bench.Results.NAMES;
+import static org.openjdk.jmh.annotations.Mode.deepValueOf;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Primary result of one benchmark method and parameter combination, as read
+ * from a JMH <code>-rf csv</code> or <code>-rf json</code> file.
+ *
+ * <p>
+ * Secondary results (eg of <code>-prof gc</code>) are skipped. JSON files also
+ * provide the score of each measurement iteration (or, for sample time, the
+ * mean of each iteration's histogram) as {@link #samples}.
+ */
+final class Result {
+
+  private static final String PARAM = "Param: ";
+
+  final String benchmark;
+  final long count;
+  final double error;
+  final String method;
+  final String mode;
+  final Map<String, String> params;
+  final double[] samples;
+  final double score;
+  final String store;
+  final String unit;
+
+  Result(final String benchmark, final String mode,
+         final Map<String, String> params, final double score,
+         final double error, final String unit, final long count,
+         final double[] samples) {
+    this.benchmark = benchmark;
+    this.mode = mode;
+    this.params = params;
+    this.score = score;
+    this.error = error;
+    this.unit = unit;
+    this.count = count;
+    this.samples = samples;
+    final int dot = benchmark.lastIndexOf('.');
+    final String cls = benchmark.substring(benchmark.lastIndexOf('.', dot - 1)
+                                               + 1, dot);
+    this.store = NAMES.getOrDefault(cls, cls);
+    this.method = benchmark.substring(dot + 1);
+  }
+
+  /**
+   * Reads the primary results of a JMH result file, which must have a
+   * <code>.csv</code> or <code>.json</code> extension.
+   *
+   * @param file    to read
+   * @param results to add the results to
+   * @throws IOException if the file cannot be read or is malformed
+   */
+  static void read(final Path file, final List<Result> results)
+      throws IOException {
+    final String name = file.getFileName().toString();
+    try (BufferedReader in = newBufferedReader(file, ISO_8859_1)) {
+      if (name.endsWith(".csv")) {
+        readCsv(in, results);
+      } else if (name.endsWith(".json")) {
+        readJson(in, results);
+      } else {
+        throw new IllegalArgumentException("Unknown result file " + file);
+      }
+    }
+  }
+
+  private static void add(final List<Result> results, final Result r) {
+    // secondary results (eg "-prof gc") are reported as "benchmark:metric"
+    if (r.benchmark.indexOf(':') < 0) {
+      results.add(r);
+    }
+  }
+
+  private static List<String> csv(final String line) {
+    final List<String> fields = new ArrayList<>();
+    final StringBuilder sb = new StringBuilder();
+    boolean quoted = false;
+    boolean closed = false;
+    for (int i = 0; i < line.length(); i++) {
+      final char ch = line.charAt(i);
+      if (quoted) {
+        if (ch == '"') {
+          quoted = false;
+          closed = true;
+        } else {
+          sb.append(ch);
+        }
+        continue;
+      }
+      if (ch == '"') {
+        if (closed) {
+          sb.append('"');
+        }
+        quoted = true;
+      } else if (ch == ',') {
+        fields.add(sb.toString());
+        sb.setLength(0);
+      } else if (ch != '\r') {
+        sb.append(ch);
+      }
+      closed = false;
+    }
+    fields.add(sb.toString());
+    return fields;
+  }
+
+  private static int column(final List<String> header, final String prefix)
+      throws IOException {
+    for (int i = 0; i < header.size(); i++) {
+      if (header.get(i).startsWith(prefix)) {
+        return i;
+      }
+    }
+    throw new IOException("No '" + prefix + "' column in CSV header");
+  }
+
+  private static double number(final Object value) {
+    return value instanceof Number ? ((Number) value).doubleValue()
+               : parseDouble(String.valueOf(value));
+  }
+
+  private static void readCsv(final BufferedReader in,
+                              final List<Result> results) throws IOException {
+    // skip any annotations above the header (eg column numbers)
+    String line;
+    do {
+      line = in.readLine();
+      if (line == null) {
+        return;
+      }
+    } while (!line.startsWith("\"Benchmark\""));
+    final List<String> header = csv(line);
+    final int bench = column(header, "Benchmark");
+    final int mode = column(header, "Mode");
+    final int count = column(header, "Samples");
+    final int score = column(header, "Score");
+    final int error = column(header, "Score Error");
+    final int unit = column(header, "Unit");
+    String row;
+    while ((row = in.readLine()) != null) {
+      final List<String> f = csv(row);
+      if (f.size() < header.size()) {
+        continue;
+      }
+      final Map<String, String> params = new TreeMap<>();
+      for (int i = 0; i < header.size(); i++) {
+        final String name = header.get(i);
+        if (name.startsWith(PARAM) && !f.get(i).isEmpty()) {
+          params.put(name.substring(PARAM.length()), f.get(i));
+        }
+      }
+      add(results, new Result(f.get(bench), f.get(mode), params,
+                              parseDouble(f.get(score)),
+                              parseDouble(f.get(error)), f.get(unit),
+                              parseLong(f.get(count)), null));
+    }
+  }
+
+  private static void readJson(final BufferedReader in,
+                               final List<Result> results) throws IOException {
+    final JsonReader json = new JsonReader(in);
+    json.begin('[');
+    while (json.next(']')) {
+      final Map<?, ?> r = (Map<?, ?>) json.value();
+      final Map<?, ?> metric = (Map<?, ?>) r.get("primaryMetric");
+      final Map<String, String> params = new TreeMap<>();
+      final Map<?, ?> p = (Map<?, ?>) r.get("params");
+      if (p != null) {
+        p.forEach((k, v) -> params.put(k.toString(), v.toString()));
+      }
+      final double[] samples = samples(metric);
+      add(results, new Result((String) r.get("benchmark"),
+                              (String) r.get("mode"), params,
+                              number(metric.get("score")),
+                              number(metric.get("scoreError")),
+                              (String) metric.get("scoreUnit"),
+                              samples.length, samples));
+    }
+  }
+
+  /**
+   * Extracts the score of each measurement iteration of each fork from the
+   * "rawData" of a JSON metric, or the mean of each iteration from its
+   * "rawDataHistogram" (of [value, count] pairs) for sample time.
+   */
+  private static double[] samples(final Map<?, ?> metric) {
+    final List<Double> samples = new ArrayList<>();
+    final List<?> raw = (List<?>) metric.get("rawData");
+    final List<?> histograms = (List<?>) metric.get("rawDataHistogram");
+    if (raw == null && histograms == null) {
+      return new double[0];
+    }
+    for (final Object fork : raw == null ? histograms : raw) {
+      for (final Object iteration : (List<?>) fork) {
+        if (raw != null) {
+          samples.add(number(iteration));
+          continue;
+        }
+        double sum = 0;
+        double n = 0;
+        for (final Object bucket : (List<?>) iteration) {
+          final List<?> b = (List<?>) bucket;
+          sum += number(b.get(0)) * number(b.get(1));
+          n += number(b.get(1));
+        }
+        // an iteration without samples has no mean
+        if (n > 0) {
+          samples.add(sum / n);
+        }
+      }
+    }
+    final double[] arr = new double[samples.size()];
+    for (int i = 0; i < arr.length; i++) {
+      arr[i] = samples.get(i);
+    }
+    return arr;
+  }
+
+  boolean higherIsBetter() {
+    return !unit.endsWith("/op");
+  }
+
+  /**
+   * The JMH benchmark ID, as used in the <code>System.out</code> lines.
+   *
+   * @return the ID
+   */
+  String id() {
+    final StringBuilder sb = new StringBuilder(benchmark);
+    sb.append('-').append(deepValueOf(mode));
+    params.forEach((k, v) -> sb.append('-').append(k).append('-').append(v));
+    return sb.toString();
+  }
+
+  /**
+   * Returns the value of a parameter, or its {@link Common} default if the run
+   * did not record it.
+   *
+   * @param name of the parameter
+   * @return the value
+   */
+  String param(final String name) {
+    final String value = params.get(name);
+    if (value != null) {
+      return value;
+    }
+    try {
+      return Common.class.getDeclaredField(name).getAnnotation(Param.class)
+          .value()[0];
+    } catch (final NoSuchFieldException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  boolean worseThan(final double other) {
+    return higherIsBetter() ? score < other : score > other;
+  }
+}
@@ -0,0 +1,374 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import static java.lang.Boolean.parseBoolean;
+import static java.lang.Double.NaN;
+import static java.lang.Double.isNaN;
+import static java.lang.Integer.BYTES;
+import static java.lang.Long.parseLong;
+import static java.lang.Math.exp;
+import static java.lang.Math.log;
+import static java.lang.String.format;
+import static java.lang.System.err;
+import static java.lang.System.exit;
+import static java.lang.System.out;
+import static java.net.URLDecoder.decode;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.newBufferedReader;
+import static java.nio.file.Files.newBufferedWriter;
+import java.nio.file.Path;
+import static java.nio.file.Paths.get;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import static java.util.Comparator.comparing;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import static java.util.Locale.ROOT;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import static java.util.regex.Pattern.compile;
+import static org.lmdbjava.bench.Common.STRING_KEY_LENGTH;
+
+/**
+ * Summarises the results of one or more benchmark runs in a single pass.
+ *
+ * <p>
+ * Each argument is a JMH result file (<code>-rf csv</code> or
+ * <code>-rf json</code>) or the captured <code>System.out</code> of a run.
+ * Files sharing a run name are processed together (eg <code>out-4.csv</code>
+ * and <code>out-4.txt</code> are run "4"). Columns and parameters are located
+ * by name rather than by position, so the output does not depend on the CSV
+ * layout of a given JMH version or parameter set.
+ *
+ * <p>
+ * Results are grouped as the <code>.dat</code> files always have been: by the
+ * parameters whose values vary within the run, with one row per benchmark
+ * method and store in sorted order. For each run and group this writes:
+ * <ul>
+ * <li><code>run-group.dat</code>: the score, error, unit and speedup of each
+ * store over the baseline store of the same benchmark method</li>
+ * <li><code>run-group-size.dat</code> and <code>run-group-size.md</code>: the
+ * median <code>after-close</code> "Bytes" of each store, and its overhead over
+ * a flat array of the same keys and values</li>
+ * </ul>
+ * plus <code>run-summary.md</code>, which holds the geometric mean speedup of
+ * each store for each benchmark method across all groups of the run.
+ *
+ * <p>
+ * The baseline store defaults to the slowest store of each benchmark method, so
+ * every speedup is at least 1. Use <code>-b</code> to name a store instead.
+ */
+@SuppressWarnings("UseOfSystemOutOrSystemErr")
+public final class Results {
+
+  static final Map<String, String> NAMES = new HashMap<>();
+  private static final String AFTER_CLOSE = "after-close";
+  private static final String FLAT_ARRAY = "(Flat Array)";
+  private static final double PERCENT = 100.0;
+  private static final Pattern RUN = compile("(?:out-)?(.+)\\.(csv|json|txt)");
+  private static final Pattern UNSAFE = compile("[^A-Za-z0-9.-]");
+
+  static {
+    NAMES.put("LevelDb", "LevelDB");
+    NAMES.put("LmdbJavaAgrona", "LMDB DB");
+    NAMES.put("LmdbJavaByteBuffer", "LMDB BB");
+    NAMES.put("LmdbJni", "LMDB JNI");
+    NAMES.put("LmdbLwjgl", "LMDB JGL");
+    NAMES.put("MapDb", "MapDB");
+    NAMES.put("MvStore", "MVStore");
+    NAMES.put("RocksDb", "RocksDB");
+  }
+
+  private final String baseline;
+  private final Path dir;
+  private final Map<String, Run> runs = new TreeMap<>();
+
+  Results(final String baseline, final Path dir) {
+    this.baseline = baseline;
+    this.dir = dir;
+  }
+
+  public static void main(final String[] args) throws IOException {
+    String baseline = null;
+    Path dir = get(".");
+    final List<Path> files = new ArrayList<>();
+    int i = 0;
+    while (i < args.length) {
+      final String arg = args[i++];
+      if ("-b".equals(arg) && i < args.length) {
+        baseline = args[i++];
+      } else if ("-o".equals(arg) && i < args.length) {
+        dir = get(args[i++]);
+      } else {
+        files.add(get(arg));
+      }
+    }
+    if (files.isEmpty()) {
+      err.println("Usage: Results [-b baselineStore] [-o outputDir] "
+                      + "out-N.csv|out-N.json|out-N.txt...");
+      exit(1);
+    }
+    final Results results = new Results(baseline, dir);
+    for (final Path f : files) {
+      results.read(f);
+    }
+    results.write();
+  }
+
+  private static double geometricMean(final List<Double> values) {
+    double sum = 0;
+    for (final double v : values) {
+      sum += log(v);
+    }
+    return exp(sum / values.size());
+  }
+
+  void read(final Path file) throws IOException {
+    final Matcher m = RUN.matcher(file.getFileName().toString());
+    if (!m.matches()) {
+      throw new IllegalArgumentException("Unknown result file " + file);
+    }
+    final Run run = runs.computeIfAbsent(m.group(1), Run::new);
+    if (!"txt".equals(m.group(2))) {
+      Result.read(file, run.results);
+      return;
+    }
+    try (BufferedReader in = newBufferedReader(file, ISO_8859_1)) {
+      readOut(in, run);
+    }
+  }
+
+  void write() throws IOException {
+    createDirectories(dir);
+    for (final Run run : runs.values()) {
+      write(run);
+    }
+  }
+
+  private void readOut(final BufferedReader in, final Run run)
+      throws IOException {
+    String line;
+    while ((line = in.readLine()) != null) {
+      final String[] f = line.split("\t");
+      if (f.length == 4 && "Bytes".equals(f[0]) && AFTER_CLOSE.equals(f[1])) {
+        run.bytes.computeIfAbsent(decode(f[3], UTF_8.name()),
+                                  k -> new ArrayList<>())
+            .add(parseLong(f[2]));
+      }
+    }
+  }
+
+  private double speedup(final Result r, final List<Result> rows) {
+    double base = NaN;
+    for (final Result o : rows) {
+      if (!o.method.equals(r.method) || !o.unit.equals(r.unit)) {
+        continue;
+      }
+      if (baseline == null ? isNaN(base) || o.worseThan(base)
+              : baseline.equals(o.store)) {
+        base = o.score;
+      }
+    }
+    return r.higherIsBetter() ? r.score / base : base / r.score;
+  }
+
+  private void write(final Run run) throws IOException {
+    final Map<String, Map<String, List<Double>>> speedups = new TreeMap<>();
+    final Set<String> methods = new TreeSet<>();
+    for (final Map.Entry<String, List<Result>> g : run.groups().entrySet()) {
+      final String prefix = run.name + "-" + g.getKey();
+      final List<Result> rows = g.getValue();
+      rows.sort(comparing((Result r) -> r.method).thenComparing(r -> r.store));
+      try (PrintWriter w = writer(prefix + ".dat")) {
+        w.println("# \"Benchmark\" \"Score\" \"Error\" \"Unit\" \"Speedup\"");
+        for (final Result r : rows) {
+          final double speedup = speedup(r, rows);
+          w.printf(ROOT, "\"%s.%s\" %f %f %s %.2f%n", r.method, r.store,
+                   r.score, r.error, r.unit, speedup);
+          if (!isNaN(speedup)) {
+            methods.add(r.method);
+            speedups.computeIfAbsent(r.store, k -> new TreeMap<>())
+                .computeIfAbsent(r.method, k -> new ArrayList<>())
+                .add(speedup);
+          }
+        }
+      }
+      writeSizes(prefix, run, rows);
+    }
+    if (!speedups.isEmpty()) {
+      writeSummary(run.name, methods, speedups);
+    }
+  }
+
+  private void writeSizes(final String prefix, final Run run,
+                          final List<Result> rows) throws IOException {
+    final Map<String, List<Long>> bytes = new TreeMap<>();
+    final Map<String, String> units = new TreeMap<>();
+    final Map<String, Map<String, Double>> scores = new HashMap<>();
+    for (final Result r : rows) {
+      final List<Long> b = run.bytes.get(r.id());
+      if (b != null) {
+        bytes.computeIfAbsent(r.store, k -> new ArrayList<>()).addAll(b);
+      }
+      units.putIfAbsent(r.method, r.unit);
+      scores.computeIfAbsent(r.store, k -> new HashMap<>())
+          .put(r.method, r.score);
+    }
+    if (bytes.isEmpty()) {
+      return;
+    }
+    final List<Map.Entry<String, Long>> sizes = new ArrayList<>();
+    for (final Map.Entry<String, List<Long>> e : bytes.entrySet()) {
+      final List<Long> b = e.getValue();
+      Collections.sort(b);
+      sizes.add(new SimpleEntry<>(e.getKey(), b.get(b.size() / 2)));
+    }
+    sizes.sort(comparing(Map.Entry::getValue));
+
+    final Result r = rows.get(0);
+    final int keySize = parseBoolean(r.param("intKey")) ? BYTES
+                            : STRING_KEY_LENGTH;
+    final long flat = parseLong(r.param("num"))
+                          * (keySize + parseLong(r.param("valSize")));
+    try (PrintWriter dat = writer(prefix + "-size.dat");
+         PrintWriter md = writer(prefix + "-size.md")) {
+      dat.println(flat + " \"" + FLAT_ARRAY + "\"");
+      // the scores alongside show what any saving in space costs in speed
+      final StringBuilder header = new StringBuilder(
+          "| Implementation | Bytes | Overhead % |");
+      final StringBuilder align = new StringBuilder(
+          "| -------------- | ----: | ---------: |");
+      final StringBuilder blank = new StringBuilder();
+      units.forEach((m, u) -> {
+        header.append(' ').append(m).append(' ').append(u).append(" |");
+        align.append(" ----: |");
+        blank.append("  |");
+      });
+      md.println(header);
+      md.println(align);
+      md.println("| " + FLAT_ARRAY + " | " + flat + " |  |" + blank);
+      for (final Map.Entry<String, Long> e : sizes) {
+        final long size = e.getValue();
+        dat.println(size + " \"" + e.getKey() + "\"");
+        md.printf(ROOT, "| %s | %d | %.2f |", e.getKey(), size,
+                  (size - flat) * PERCENT / flat);
+        final Map<String, Double> s = scores.get(e.getKey());
+        for (final String m : units.keySet()) {
+          final Double score = s.get(m);
+          md.print(score == null ? "  |" : format(ROOT, " %.3f |", score));
+        }
+        md.println();
+      }
+    }
+  }
+
+  private void writeSummary(final String name, final Set<String> methods,
+                            final Map<String, Map<String, List<Double>>> s)
+      throws IOException {
+    try (PrintWriter md = writer(name + "-summary.md")) {
+      final StringBuilder header = new StringBuilder("| Store |");
+      final StringBuilder align = new StringBuilder("| ----- |");
+      for (final String m : methods) {
+        header.append(' ').append(m).append(" |");
+        align.append(" ----: |");
+      }
+      md.println(header);
+      md.println(align);
+      for (final Map.Entry<String, Map<String, List<Double>>> e
+               : s.entrySet()) {
+        md.print("| " + e.getKey() + " |");
+        for (final String m : methods) {
+          final List<Double> v = e.getValue().get(m);
+          md.print(v == null ? "  |"
+                       : format(ROOT, " %.2f |", geometricMean(v)));
+        }
+        md.println();
+      }
+    }
+  }
+
+  private PrintWriter writer(final String name) throws IOException {
+    final Path file = dir.resolve(name);
+    out.println(file);
+    return new PrintWriter(newBufferedWriter(file, UTF_8));
+  }
+
+  /**
+   * Results and "Bytes" lines of all files sharing a run name.
+   */
+  private static final class Run {
+
+    final Map<String, List<Long>> bytes = new HashMap<>();
+    final String name;
+    final List<Result> results = new ArrayList<>();
+
+    Run(final String name) {
+      this.name = name;
+    }
+
+    /**
+     * Groups the results by the parameters (and mode) that vary within the
+     * run. Each group is keyed by its "name-value" pairs, or "all" if nothing
+     * varies.
+     *
+     * @return results by group key, in sorted order
+     */
+    Map<String, List<Result>> groups() {
+      final Set<String> modes = new HashSet<>();
+      final Map<String, Set<String>> values = new TreeMap<>();
+      for (final Result r : results) {
+        modes.add(r.mode);
+        r.params.forEach((k, v) -> values
+                         .computeIfAbsent(k, x -> new HashSet<>()).add(v));
+      }
+      final Map<String, List<Result>> groups = new TreeMap<>();
+      for (final Result r : results) {
+        final StringBuilder sb = new StringBuilder();
+        if (modes.size() > 1) {
+          sb.append(r.mode);
+        }
+        values.forEach((k, v) -> {
+          final String value = r.params.get(k);
+          if (v.size() > 1 && value != null) {
+            sb.append(sb.length() == 0 ? "" : "-").append(k).append('-')
+                .append(value);
+          }
+        });
+        final String key = sb.length() == 0 ? "all"
+                               : UNSAFE.matcher(sb).replaceAll("_");
+        groups.computeIfAbsent(key, k -> new ArrayList<>()).add(r);
+      }
+      return groups;
+    }
+  }
+}
@@ -20,33 +20,66 @@
 
 package org.lmdbjava.bench;
 
+import java.io.File;
 import java.io.IOException;
-import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.lang.Long.parseLong;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.out;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import java.util.ArrayList;
+import java.util.List;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
 import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
+import static org.lmdbjava.bench.Common.startsWith;
+import static org.lmdbjava.bench.Crasher.configure;
+import static org.lmdbjava.bench.Crasher.crash;
+import static org.lmdbjava.bench.Crasher.writing;
+import static org.lmdbjava.bench.YcsbWorkload.READ;
+import static org.lmdbjava.bench.YcsbWorkload.RMW;
+import static org.lmdbjava.bench.YcsbWorkload.SCAN;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import static org.openjdk.jmh.annotations.Level.Invocation;
+import static org.openjdk.jmh.annotations.Level.Iteration;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import org.openjdk.jmh.annotations.Measurement;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
+import org.rocksdb.Checkpoint;
+import org.rocksdb.ColumnFamilyDescriptor;
+import org.rocksdb.ColumnFamilyHandle;
+import org.rocksdb.ColumnFamilyOptions;
+import org.rocksdb.CompressionType;
+import static org.rocksdb.CompressionType.LZ4_COMPRESSION;
 import static org.rocksdb.CompressionType.NO_COMPRESSION;
+import static org.rocksdb.CompressionType.SNAPPY_COMPRESSION;
+import org.rocksdb.DBOptions;
+import org.rocksdb.FlushOptions;
 import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
+import static org.rocksdb.RocksDB.DEFAULT_COLUMN_FAMILY;
 import static org.rocksdb.RocksDB.loadLibrary;
-import static org.rocksdb.RocksDB.open;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
 import org.rocksdb.WriteBatch;
@@ -60,6 +93,92 @@ import org.rocksdb.WriteOptions;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class RocksDb {
 
+  @Benchmark
+  @Group("backup")
+  @GroupThreads(1)
+  public void backupCopy(final Backup b, final Blackhole bh) throws
+      IOException {
+    b.copy();
+  }
+
+  @Benchmark
+  @Group("backup")
+  @GroupThreads(3)
+  @OutputTimeUnit(NANOSECONDS)
+  public void backupRead(final BackupReader t, final Blackhole bh) throws
+      RocksDBException {
+    t.b.dataset.key(t.nextIndex(), t.wkb.byteArray());
+    bh.consume(t.b.db.get(t.wkb.byteArray(), t.wvb.byteArray()));
+  }
+
+  @Benchmark
+  public void churn(final Updater u, final Blackhole bh) throws
+      IOException {
+    u.churn();
+  }
+
+  @Benchmark
+  public void delete(final Updater u, final Blackhole bh) throws
+      IOException {
+    u.delete();
+  }
+
+  @Benchmark
+  public void dupRead(final DupReader r, final Blackhole bh) {
+    try (RocksIterator iterator = r.db.newIterator()) {
+      for (final int idx : r.readIndexes) {
+        r.dataset.key(idx, r.prefix);
+        final long start = r.latency.start();
+        iterator.seek(r.prefix);
+        while (iterator.isValid() && startsWith(iterator.key(), r.prefix)) {
+          bh.consume(iterator.value());
+          iterator.next();
+        }
+        r.latency.stop(start);
+      }
+    }
+  }
+
+  @Benchmark
+  public void dupWrite(final DupWriter w, final Blackhole bh) throws
+      IOException {
+    w.writeDups();
+  }
+
+  @Benchmark
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1, time = 1, timeUnit = MINUTES)
+  public void ingest(final Ingester i, final Blackhole bh) throws IOException {
+    i.ingest();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedRead(final MixedReader t, final Blackhole bh) throws
+      RocksDBException {
+    t.m.dataset.key(t.nextIndex(), t.wkb.byteArray());
+    bh.consume(t.m.db.get(t.wkb.byteArray(), t.wvb.byteArray()));
+    t.m.throttle.read();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedWrite(final Mixed m, final Control c,
+                         final Blackhole bh) throws IOException {
+    bh.consume(m.put(c));
+  }
+
+  @Benchmark
+  public void open(final Opener o, final Blackhole bh) throws IOException {
+    o.close();
+    o.open();
+    o.firstGet(bh);
+  }
+
   @Benchmark
   public void readCrc(final Reader r, final Blackhole bh) {
     r.crc.reset();
@@ -76,13 +195,57 @@ public class RocksDb {
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) throws
       RocksDBException {
-    for (final int key : r.keys) {
-      if (r.intKey) {
-        r.wkb.putInt(0, key);
+    for (int i = 0; i < r.readIndexes.length; i++) {
+      r.dataset.key(r.readIndexes[i], r.wkb.byteArray());
+      final long start = r.latency.start();
+      if (r.cfs == null) {
+        bh.consume(r.db.get(r.wkb.byteArray(), r.wvb.byteArray()));
       } else {
-        r.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+        bh.consume(r.db.get(r.cfs[r.readDbs[i]], r.wkb.byteArray(),
+                            r.wvb.byteArray()));
+      }
+      r.latency.stop(start);
+    }
+  }
+
+  @Benchmark
+  public void readKeyBatch(final Reader r, final KeyBatch k,
+                           final Blackhole bh) throws RocksDBException {
+    final MutableDirectBuffer[] buffers = k.buffers(r.keySize);
+    final List<byte[]> batch = new ArrayList<>(k.batchGetSize);
+    for (int i = 0; i < r.readKeys.length; i += k.batchGetSize) {
+      final int end = min(i + k.batchGetSize, r.readKeys.length);
+      batch.clear();
+      for (int j = i; j < end; j++) {
+        final MutableDirectBuffer kb = buffers[j - i];
+        r.dataset.key(r.readIndexes[j], kb.byteArray());
+        batch.add(kb.byteArray());
+      }
+      bh.consume(r.db.multiGet(batch));
+    }
+  }
+
+  @Benchmark
+  public void readKeyMt(final ThreadReader t, final Blackhole bh) throws
+      RocksDBException {
+    for (final int idx : t.r.readIndexes) {
+      t.r.dataset.key(idx, t.wkb.byteArray());
+      bh.consume(t.r.db.get(t.wkb.byteArray(), t.wvb.byteArray()));
+    }
+  }
+
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh) {
+    try (RocksIterator iterator = r.db.newIterator()) {
+      for (int s = 0; s < g.scans; s++) {
+        r.dataset.key(r.readIndexes[s % r.readIndexes.length],
+                      r.wkb.byteArray());
+        iterator.seek(r.wkb.byteArray());
+        for (int i = 0; iterator.isValid() && i < g.rangeLength; i++) {
+          bh.consume(iterator.value());
+          iterator.next();
+        }
       }
-      bh.consume(r.db.get(r.wkb.byteArray(), r.wvb.byteArray()));
     }
   }
 
@@ -106,6 +269,16 @@ public class RocksDb {
     }
   }
 
+  @Benchmark
+  public void readSeqMt(final ThreadReader t, final Blackhole bh) {
+    final RocksIterator iterator = t.r.db.newIterator();
+    iterator.seekToFirst();
+    while (iterator.isValid()) {
+      bh.consume(iterator.value());
+      iterator.next();
+    }
+  }
+
   @Benchmark
   public void readXxh64(final Reader r, final Blackhole bh) {
     long result = 0;
@@ -119,6 +292,41 @@ public class RocksDb {
     bh.consume(result);
   }
 
+  @Benchmark
+  public void ycsb(final Ycsb y, final Blackhole bh) throws IOException {
+    final YcsbWorkload w = y.w;
+    for (int i = 0; i < w.ops.length; i++) {
+      final int key = w.opKeys[i];
+      switch (w.ops[i]) {
+        case READ:
+          y.read(key, bh);
+          break;
+        case SCAN:
+          y.scan(key, w.scanLengths[i], bh);
+          break;
+        case RMW:
+          y.rmw(key);
+          break;
+        default:
+          y.put(key);
+          break;
+      }
+    }
+  }
+
+  @Benchmark
+  public void recover(final Recoverer r, final Blackhole bh) throws
+      IOException {
+    r.open();
+    r.firstGet(bh);
+  }
+
+  @Benchmark
+  public void update(final Updater u, final Blackhole bh) throws
+      IOException {
+    u.write(u.batchSize);
+  }
+
   @Benchmark
   public void write(final Writer w, final Blackhole bh) throws IOException {
     w.write(w.batchSize);
@@ -126,10 +334,112 @@ public class RocksDb {
 
   @State(value = Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
-  public static class CommonRocksDb extends Common {
+  public static class CommonRocksDb extends CommonTxn {
+
+    private static final int BLOOM_BITS_PER_KEY = 10;
+    private static final String BULK_LOAD = "bulk-load";
+    private static final String DIRECT_READS = "direct-reads";
+    private static final long LOOKUP_CACHE_BYTES = 1L << 30;
+    private static final String NO_WAL = "no-wal";
+    private static final String PINNED_INDEX = "pinned-index";
+    private static final String TABLE_READERS_MEM
+        = "rocksdb.estimate-table-readers-mem";
+    private static final String WAL = "wal";
+
+    /**
+     * Reused by each commit, as it holds native memory.
+     */
+    WriteBatch batch;
+
+    /**
+     * Bytes the block cache and memtables of the open store may use, as
+     * configured by {@link #rocksProfile}.
+     */
+    long budget;
+
+    /**
+     * Column family handles if {@link #numDbs} is above 1, otherwise null (and
+     * only the default column family is used, as before column families).
+     */
+    ColumnFamilyHandle[] cfs;
+
+    /**
+     * Block compression of the store: "none", "snappy", "lz4" or "zstd". The
+     * RocksDB library in use must offer the codec (rocksdbjni 4.8 predates
+     * zstd, so it fails the setup).
+     */
+    @Param("none")
+    String compression;
+
+    /**
+     * The codec of {@link #compression}, resolved by {@link #init()}.
+     */
+    CompressionType codec;
 
     RocksDB db;
 
+    /**
+     * Options of the open store: {@link #options} for a single database,
+     * otherwise {@link #dbOptions} and {@link #cfOptions}. Closed with the
+     * store, as they hold native memory.
+     */
+    Options options;
+    DBOptions dbOptions;
+    ColumnFamilyOptions cfOptions;
+
+    /**
+     * Bloom filter of {@link #table}, or null if it has none. Closed by the
+     * teardown, as it holds native memory.
+     */
+    BloomFilter filter;
+
+    /**
+     * Read path configuration of the store's block based tables:
+     * <ul>
+     * <li>"default": the RocksDB defaults (an 8 MB block cache, no filter)</li>
+     * <li>"point-lookup": a 10 bits per key bloom filter and a 1 GB LRU block
+     * cache, which also holds the index and filter blocks</li>
+     * <li>"pinned-index": as "point-lookup", but with the index and filter
+     * blocks of every table kept outside the cache, as all tables stay
+     * open</li>
+     * <li>"direct-reads": as "point-lookup", with the OS page cache bypassed
+     * (so the block cache is the only cache)</li>
+     * </ul>
+     * The memory budget of the profile and the memory of its table readers are
+     * displayed as "Budget" and "TableReaders" lines in the style of the
+     * "Bytes" lines.
+     */
+    @Param("default")
+    String rocksProfile;
+
+    /**
+     * The table configuration of {@link #rocksProfile}, resolved by
+     * {@link #init()}.
+     */
+    BlockBasedTableConfig table;
+
+    /**
+     * How the store is loaded by commits:
+     * <ul>
+     * <li>"wal": batches are written through the write ahead log (the
+     * default)</li>
+     * <li>"no-wal": batches skip the log, and the memtables are flushed after
+     * the last batch so the load is durable</li>
+     * <li>"bulk-load": as "no-wal", but the store is opened for bulk loading
+     * (without automatic compaction) and fully compacted after the flush</li>
+     * </ul>
+     * The modes without a log need "durability" none, and "bulk-load" needs a
+     * single database.
+     */
+    @Param("wal")
+    String writeMode;
+
+    /**
+     * Write options of synced and unsynced commits.
+     */
+    WriteOptions syncOptions;
+    WriteOptions writeOptions;
+
     /**
      * Writable key buffer. Backed by a plain byte[] for RocksDB API ease.
      */
@@ -143,66 +453,509 @@ public class RocksDb {
     @Override
     public void setup(final BenchmarkParams b) throws IOException {
       super.setup(b);
-      wkb = new UnsafeBuffer(new byte[keySize]);
-      wvb = new UnsafeBuffer(new byte[valSize]);
-      loadLibrary();
-      final Options options = new Options();
-      options.setCreateIfMissing(true);
-      options.setCompressionType(NO_COMPRESSION);
-      try {
-        db = open(options, tmp.getAbsolutePath());
-      } catch (final RocksDBException ex) {
-        throw new IOException(ex);
-      }
+      init();
+      open();
     }
 
     @Override
     public void teardown() throws IOException {
       reportSpaceBeforeClose();
+      reportMemoryBudget();
+      close();
+      batch.close();
+      syncOptions.close();
+      writeOptions.close();
+      if (filter != null) {
+        filter.close();
+      }
+      super.teardown();
+    }
+
+    void close() {
+      if (cfs != null) {
+        for (final ColumnFamilyHandle cf : cfs) {
+          cf.close();
+        }
+      }
       if (db != null) {
         db.close();
       }
-      super.teardown();
+      if (options != null) {
+        options.close();
+      }
+      if (dbOptions != null) {
+        dbOptions.close();
+        cfOptions.close();
+      }
     }
 
-    void write(final int batchSize) throws IOException {
-      final int rndByteMax = RND_MB.length - valSize;
-      int rndByteOffset = 0;
+    /**
+     * Validates and resolves the parameters and creates the buffers and write
+     * options of the store, before it is first opened by either the JMH setup
+     * or the "recover" child.
+     */
+    void init() {
+      if (!WAL.equals(writeMode) && !NO_WAL.equals(writeMode)
+              && !BULK_LOAD.equals(writeMode)) {
+        throw new IllegalArgumentException("Unknown writeMode " + writeMode);
+      }
+      if (!WAL.equals(writeMode) && !durable.none()) {
+        throw new IllegalArgumentException(writeMode + " needs no durability");
+      }
+      if (BULK_LOAD.equals(writeMode) && numDbs > 1) {
+        throw new IllegalArgumentException("bulk-load needs numDbs=1");
+      }
+      wkb = new UnsafeBuffer(new byte[keySize]);
+      wvb = new UnsafeBuffer(new byte[valSize]);
+      codec = compressionType();
+      loadLibrary();
+      table = tableConfig();
+      batch = new WriteBatch();
+      syncOptions = new WriteOptions().setSync(true);
+      writeOptions = new WriteOptions().setDisableWAL(!WAL.equals(writeMode));
+    }
 
-      final WriteBatch batch = new WriteBatch();
-      final WriteOptions opt = new WriteOptions();
-      for (int i = 0; i < keys.length; i++) {
-        final int key = keys[i];
-        if (intKey) {
-          wkb.putInt(0, key, LITTLE_ENDIAN);
+    /**
+     * Opens the store in {@link #tmp}, which may already hold data that was
+     * written before an earlier {@link #close()}.
+     */
+    void open() throws IOException {
+      try {
+        if (numDbs > 1) {
+          openColumnFamilies();
         } else {
-          wkb.putStringWithoutLengthUtf8(0, padKey(key));
+          options = new Options();
+          options.setCreateIfMissing(true);
+          options.setCompressionType(codec);
+          options.setTableFormatConfig(table);
+          if (PINNED_INDEX.equals(rocksProfile)) {
+            options.setMaxOpenFiles(-1);
+          }
+          options.setAllowOsBuffer(!DIRECT_READS.equals(rocksProfile));
+          if (BULK_LOAD.equals(writeMode)) {
+            options.prepareForBulkLoad();
+          }
+          budget = table.blockCacheSize()
+                       + options.writeBufferSize()
+                             * options.maxWriteBufferNumber();
+          db = RocksDB.open(options, tmp.getAbsolutePath());
         }
-        if (valRandom) {
-          wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
-          rndByteOffset += valSize;
-          if (rndByteOffset >= rndByteMax) {
-            rndByteOffset = 0;
+      } catch (final RocksDBException ex) {
+        throw new IOException(ex);
+      }
+    }
+
+    private CompressionType compressionType() {
+      switch (compression) {
+        case "none":
+          return NO_COMPRESSION;
+        case "snappy":
+          return SNAPPY_COMPRESSION;
+        case "lz4":
+          return LZ4_COMPRESSION;
+        case "zstd":
+          // by name, as only later versions of the enum have it
+          return CompressionType.valueOf("ZSTD_COMPRESSION");
+        default:
+          throw new IllegalArgumentException("Unknown compression "
+                                                 + compression);
+      }
+    }
+
+    /**
+     * Emits "Budget" and "TableReaders" lines for "readKey", alongside its
+     * footprint lines. Table readers hold any index and filter blocks that are
+     * not in the block cache, so they are memory outside the budget.
+     */
+    @SuppressWarnings("UseOfSystemOutOrSystemErr")
+    private void reportMemoryBudget() {
+      final String name = tmp.getName();
+      if (!name.contains(".readKey-")) {
+        return;
+      }
+      long readers = 0;
+      try {
+        if (cfs == null) {
+          readers = parseLong(db.getProperty(TABLE_READERS_MEM));
+        } else {
+          for (final ColumnFamilyHandle cf : cfs) {
+            readers += parseLong(db.getProperty(cf, TABLE_READERS_MEM));
           }
+        }
+      } catch (final RocksDBException ex) {
+        throw new IllegalStateException(ex);
+      }
+      out.println("\nBudget\tbefore-close\t" + budget + "\t" + name);
+      out.println("\nTableReaders\tbefore-close\t" + readers + "\t" + name);
+    }
+
+    private BlockBasedTableConfig tableConfig() {
+      final BlockBasedTableConfig config = new BlockBasedTableConfig();
+      switch (rocksProfile) {
+        case "default":
+          return config;
+        case "point-lookup":
+        case DIRECT_READS:
+          config.setCacheIndexAndFilterBlocks(true);
+          break;
+        case PINNED_INDEX:
+          break;
+        default:
+          throw new IllegalArgumentException("Unknown rocksProfile "
+                                                 + rocksProfile);
+      }
+      filter = new BloomFilter(BLOOM_BITS_PER_KEY, false);
+      return config.setFilter(filter).setBlockCacheSize(LOOKUP_CACHE_BYTES);
+    }
+
+    /**
+     * Opens the store with the default column family plus one more for each
+     * additional database of {@link #numDbs}, all using the same options.
+     */
+    private void openColumnFamilies() throws RocksDBException {
+      dbOptions = new DBOptions()
+          .setCreateIfMissing(true)
+          .setCreateMissingColumnFamilies(true)
+          .setAllowOsBuffer(!DIRECT_READS.equals(rocksProfile));
+      if (PINNED_INDEX.equals(rocksProfile)) {
+        dbOptions.setMaxOpenFiles(-1);
+      }
+      cfOptions = new ColumnFamilyOptions()
+          .setCompressionType(codec)
+          .setTableFormatConfig(table);
+      // the block cache is shared by all column families, unlike memtables
+      budget = table.blockCacheSize() + numDbs * cfOptions.writeBufferSize()
+                                            * cfOptions.maxWriteBufferNumber();
+      final List<ColumnFamilyDescriptor> descriptors = new ArrayList<>(numDbs);
+      descriptors.add(new ColumnFamilyDescriptor(DEFAULT_COLUMN_FAMILY,
+                                                 cfOptions));
+      for (int i = 1; i < numDbs; i++) {
+        descriptors.add(new ColumnFamilyDescriptor(("cf" + i).getBytes(UTF_8),
+                                                   cfOptions));
+      }
+      final List<ColumnFamilyHandle> handles = new ArrayList<>(numDbs);
+      db = RocksDB.open(dbOptions, tmp.getAbsolutePath(), descriptors,
+                        handles);
+      cfs = handles.toArray(new ColumnFamilyHandle[numDbs]);
+    }
+
+    @Override
+    void commit(final int from, final int to, final boolean last) throws
+        IOException {
+      for (int i = from; i < to; i++) {
+        dataset.key(i, wkb.byteArray());
+        dataset.val(i, wvb.byteArray());
+        // a batch-completing put also carries the cost of writing the batch
+        final long start = latency.start();
+        if (cfs == null) {
+          batch.put(wkb.byteArray(), wvb.byteArray());
         } else {
-          wvb.putInt(0, key);
+          batch.put(cfs[dbIndex(keys[i])], wkb.byteArray(), wvb.byteArray());
         }
-        batch.put(wkb.byteArray(), wvb.byteArray());
-        if (i % batchSize == 0) {
+        if (i == to - 1) {
           try {
-            db.write(opt, batch);
+            db.write(durable.sync(last) ? syncOptions : writeOptions, batch);
+            if (last && !WAL.equals(writeMode)) {
+              finishLoad();
+            }
           } catch (final RocksDBException ex) {
             throw new IOException(ex);
           }
           batch.clear();
         }
+        latency.stop(start);
       }
+    }
+
+    /**
+     * Flushes the memtables written without a log to table files, then (for
+     * "bulk-load") compacts them, as automatic compaction is disabled.
+     */
+    private void finishLoad() throws RocksDBException {
+      final FlushOptions flush = new FlushOptions().setWaitForFlush(true);
       try {
-        db.write(opt, batch); // possible partial batch
+        if (cfs == null) {
+          db.flush(flush);
+        } else {
+          for (final ColumnFamilyHandle cf : cfs) {
+            db.flush(flush, cf);
+          }
+        }
+      } finally {
+        flush.close();
+      }
+      if (BULK_LOAD.equals(writeMode)) {
+        db.compactRange();
+      }
+    }
+  }
+
+  /**
+   * Store of {@link #valuesPerKey} values for each key, emulating duplicate
+   * keys with composite keys (see {@link Dataset#dupKey(int, int, byte[])}).
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Dups extends CommonRocksDb {
+
+    /**
+     * Entries per write batch unless {@link #txnSize} is set (in keys), as for
+     * the default "batchSize" of the "write" benchmark.
+     */
+    private static final int BATCH_ENTRIES = 1_000_000;
+
+    byte[] dupKey;
+    byte[] dupVal;
+
+    /**
+     * The key whose composite keys are read.
+     */
+    byte[] prefix;
+
+    /**
+     * Number of values of each key. Each value is {@link #valSize} bytes, of
+     * which the first four are its big-endian number.
+     */
+    @Param("10")
+    int valuesPerKey;
+
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      if (valSize < Integer.BYTES) {
+        throw new IllegalArgumentException("valSize must be at least 4");
+      }
+      super.setup(b);
+      dupKey = new byte[keySize + Integer.BYTES];
+      dupVal = new byte[valSize];
+      prefix = new byte[keySize];
+    }
+
+    void writeDups() throws IOException {
+      final int size = txnSize(max(BATCH_ENTRIES / valuesPerKey, 1));
+      try {
+        for (int i = 0; i < keys.length; i += size) {
+          final int end = min(i + size, keys.length);
+          final long start = commits.start();
+          for (int j = i; j < end; j++) {
+            for (int v = 0; v < valuesPerKey; v++) {
+              dataset.dupKey(j, v, dupKey);
+              dataset.dupVal(j, v, dupVal);
+              batch.put(dupKey, dupVal);
+            }
+          }
+          final boolean sync = durable.sync(end == keys.length);
+          db.write(sync ? syncOptions : writeOptions, batch);
+          batch.clear();
+          commits.stop(start, (end - i) * valuesPerKey);
+        }
+      } catch (final RocksDBException ex) {
+        throw new IOException(ex);
+      }
+    }
+  }
+
+  /**
+   * Populated {@link Dups} store for the "dupRead" benchmark, which reads all
+   * values of each key (in {@link #keyDistribution} order) by seeking to the
+   * key and iterating while the composite keys start with it.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class DupReader extends Dups {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      writeDups();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Empty {@link Dups} store that the "dupWrite" benchmark fills.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class DupWriter extends Dups {
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Shared, pre-populated store for the "backup" group. A single thread takes
+   * a {@link Checkpoint} of the open store (one per invocation) while the
+   * other threads perform point reads, whose latency shows the cost of a hot
+   * backup to concurrent readers. A checkpoint hard links the immutable SST
+   * files and copies only the others, so its bytes/sec counts linked bytes as
+   * copied. Use <code>-tg</code> to change the number of reader threads; the
+   * copying thread count must remain one.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Backup extends CommonRocksDb {
+
+    Checkpoint checkpoint;
+
+    /**
+     * Checkpoint directory, which RocksDB requires not to exist.
+     */
+    File target;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      if (BACKUP_COMPACT.equals(backup)) {
+        throw new IllegalArgumentException("RocksDB has no compacting backup");
+      }
+      super.write(num);
+      checkpoint = Checkpoint.create(db);
+      target = new File(compact, "checkpoint");
+    }
+
+    @TearDown(Invocation)
+    public void clear() {
+      clearCompact();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      checkpoint.close();
+      super.teardown();
+    }
+
+    void copy() throws IOException {
+      if (BACKUP_IDLE.equals(backup)) {
+        return;
+      }
+      final long start = backups.start();
+      try {
+        checkpoint.createCheckpoint(target.getAbsolutePath());
+      } catch (final RocksDBException ex) {
+        throw new IOException(ex);
+      }
+      backups.stop(start, target);
+    }
+  }
+
+  /**
+   * Per-thread state for "backup" readers. Each thread starts at a different
+   * offset into the key order.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class BackupReader {
+
+    Backup b;
+    int idx;
+
+    /**
+     * Writable key buffer. Backed by a plain byte[] for RocksDB API ease.
+     */
+    MutableDirectBuffer wkb;
+
+    /**
+     * Writable value buffer. Backed by a plain byte[] for RocksDB API ease.
+     */
+    MutableDirectBuffer wvb;
+
+    @Setup(Trial)
+    public void setup(final Backup backup, final ThreadParams tp) {
+      b = backup;
+      idx = tp.getThreadIndex() * (b.readKeys.length / tp.getThreadCount());
+      wkb = new UnsafeBuffer(new byte[b.keySize]);
+      wvb = new UnsafeBuffer(new byte[b.valSize]);
+    }
+
+    int nextIndex() {
+      idx++;
+      if (idx == b.readIndexes.length) {
+        idx = 0;
+      }
+      return b.readIndexes[idx];
+    }
+  }
+
+  /**
+   * Store that "ingest" writes continuously from empty, for the wall time of
+   * its single measurement iteration.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Ingester extends CommonRocksDb {
+
+    private static final String PENDING_COMPACTION_BYTES
+        = "rocksdb.estimate-pending-compaction-bytes";
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      reportSpaceUsed(tmp, "after-ingest");
+      super.teardown();
+    }
+
+    @Override
+    long compactionDebt() {
+      try {
+        return parseLong(db.getProperty(PENDING_COMPACTION_BYTES));
+      } catch (final RocksDBException ex) {
+        throw new IllegalStateException(ex);
+      }
+    }
+  }
+
+  /**
+   * Populated store that the "open" benchmark closes and reopens, reading one
+   * key so that any work deferred until first access is included. Only
+   * meaningful with a single benchmark thread.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Opener extends CommonRocksDb {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write(num);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void firstGet(final Blackhole bh) throws IOException {
+      dataset.key(0, wkb.byteArray());
+      try {
+        bh.consume(db.get(wkb.byteArray()));
       } catch (final RocksDBException ex) {
         throw new IOException(ex);
       }
-      batch.clear();
     }
   }
 
@@ -216,6 +969,16 @@ public class RocksDb {
       super.write(num);
     }
 
+    @Setup(Iteration)
+    public void coldCacheIteration() throws IOException {
+      if (!coldCache) {
+        return;
+      }
+      close();
+      dropPageCache(tmp);
+      open();
+    }
+
     @TearDown(Trial)
     @Override
     public void teardown() throws IOException {
@@ -223,6 +986,237 @@ public class RocksDb {
     }
   }
 
+  /**
+   * Shared, pre-populated store for the "mixed" group. A single writer thread
+   * updates existing keys (one entry per committed transaction) while the
+   * other threads perform point reads. Use <code>-tg</code> to change the
+   * number of reader threads; the writer count must remain one.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Mixed extends CommonRocksDb {
+
+    /**
+     * Maximum percentage of all mixed operations that are writes.
+     */
+    @Param("5")
+    int writePct;
+
+    WriteThrottle throttle;
+    private int rndByteOffset;
+    private int writeIdx;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write(num);
+      throttle = new WriteThrottle(writePct);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    boolean put(final Control control) throws IOException {
+      if (!throttle.awaitWrite(control)) {
+        return false;
+      }
+      final int key = keys[writeIdx];
+      dataset.key(writeIdx, wkb.byteArray());
+      writeIdx++;
+      if (writeIdx == keys.length) {
+        writeIdx = 0;
+      }
+      if (valRandom) {
+        wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
+        rndByteOffset += valSize;
+        if (rndByteOffset >= RND_MB.length - valSize) {
+          rndByteOffset = 0;
+        }
+      } else {
+        wvb.putInt(0, key);
+      }
+      final long start = latency.start();
+      try {
+        db.put(wkb.byteArray(), wvb.byteArray());
+      } catch (final RocksDBException ex) {
+        throw new IOException(ex);
+      }
+      latency.stop(start);
+      return true;
+    }
+  }
+
+  /**
+   * Per-thread state for "mixed" readers. Each thread starts at a different
+   * offset into the key order.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class MixedReader {
+
+    int idx;
+    Mixed m;
+
+    /**
+     * Writable key buffer. Backed by a plain byte[] for RocksDB API ease.
+     */
+    MutableDirectBuffer wkb;
+
+    /**
+     * Writable value buffer. Backed by a plain byte[] for RocksDB API ease.
+     */
+    MutableDirectBuffer wvb;
+
+    @Setup(Trial)
+    public void setup(final Mixed mixed, final ThreadParams tp) {
+      m = mixed;
+      idx = tp.getThreadIndex() * (m.readKeys.length / tp.getThreadCount());
+      wkb = new UnsafeBuffer(new byte[m.keySize]);
+      wvb = new UnsafeBuffer(new byte[m.valSize]);
+    }
+
+    int nextIndex() {
+      idx++;
+      if (idx == m.readIndexes.length) {
+        idx = 0;
+      }
+      return m.readIndexes[idx];
+    }
+  }
+
+  /**
+   * {@link Opener} store that is left by an unclean shutdown before each
+   * "recover" invocation, as a child JVM writing to it is killed. The
+   * benchmark then measures the reopen (including any recovery) and first get.
+   */
+  @State(Benchmark)
+  public static class Recoverer extends Opener {
+
+    /**
+     * Entries per write batch in the child, so the killed child leaves a log
+     * holding many small writes to replay.
+     */
+    private static final int CHILD_BATCH_SIZE = 1_000;
+
+    public static void main(final String[] args) throws IOException {
+      final Recoverer r = new Recoverer();
+      configure(r, args);
+      r.init();
+      r.open();
+      writing();
+      while (true) {
+        r.write(CHILD_BATCH_SIZE);
+      }
+    }
+
+    @Setup(Invocation)
+    public void crashInvocation() throws IOException {
+      close();
+      crash(Recoverer.class, this);
+    }
+  }
+
+  /**
+   * Per-thread key and value buffers over the shared {@link Reader} store,
+   * allowing read benchmarks to be run with any JMH thread count.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    Reader r;
+
+    /**
+     * Writable key buffer. Backed by a plain byte[] for RocksDB API ease.
+     */
+    MutableDirectBuffer wkb;
+
+    /**
+     * Writable value buffer. Backed by a plain byte[] for RocksDB API ease.
+     */
+    MutableDirectBuffer wvb;
+
+    @Setup(Trial)
+    public void setup(final Reader reader) {
+      r = reader;
+      wkb = new UnsafeBuffer(new byte[r.keySize]);
+      wvb = new UnsafeBuffer(new byte[r.valSize]);
+    }
+  }
+
+  /**
+   * Populated store for the "update", "delete" and "churn" benchmarks. It is
+   * rebuilt before each invocation, so every invocation starts from a store
+   * holding all {@link #keys}.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Updater extends CommonRocksDb {
+
+    @Param("1000000")
+    int batchSize;
+
+    /**
+     * Number of delete-all and reinsert-all cycles in each "churn" invocation.
+     * Space used is reported after each cycle.
+     */
+    @Param("3")
+    int churnCycles;
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      // latency is only recorded by the "readKey" and "write" benchmarks
+      latency.measuring(false);
+      commits.paused(true);
+      super.write(batchSize);
+      commits.paused(false);
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void churn() throws IOException {
+      for (int cycle = 1; cycle <= churnCycles; cycle++) {
+        delete();
+        write(batchSize);
+        reportSpaceUsed(tmp, "churn-" + cycle);
+      }
+    }
+
+    void delete() throws IOException {
+      final int size = txnSize(batchSize);
+      try {
+        for (int i = 0; i < keys.length; i += size) {
+          final int end = min(i + size, keys.length);
+          final long start = commits.start();
+          for (int j = i; j < end; j++) {
+            key(j);
+            batch.remove(wkb.byteArray());
+          }
+          final boolean sync = durable.sync(end == keys.length);
+          db.write(sync ? syncOptions : writeOptions, batch);
+          batch.clear();
+          commits.stop(start, end - i);
+        }
+      } catch (final RocksDBException ex) {
+        throw new IOException(ex);
+      }
+    }
+
+    private void key(final int idx) {
+      dataset.key(idx, wkb.byteArray());
+    }
+  }
+
   @State(Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
   public static class Writer extends CommonRocksDb {
@@ -243,4 +1237,84 @@ public class RocksDb {
     }
   }
 
+  /**
+   * Populated store driven by a {@link YcsbWorkload} operation stream. Each
+   * read, scan, update, insert and read-modify-write is its own transaction.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Ycsb extends CommonRocksDb {
+
+    private int rndByteOffset;
+    YcsbWorkload w;
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final YcsbWorkload workload)
+        throws IOException {
+      super.setup(b);
+      super.write(num);
+      w = workload;
+      w.generate(keys, sequential);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void put(final int key) throws IOException {
+      key(key);
+      if (valRandom) {
+        wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
+        rndByteOffset += valSize;
+        if (rndByteOffset >= RND_MB.length - valSize) {
+          rndByteOffset = 0;
+        }
+      } else {
+        wvb.putInt(0, key);
+      }
+      try {
+        db.put(wkb.byteArray(), wvb.byteArray());
+      } catch (final RocksDBException ex) {
+        throw new IOException(ex);
+      }
+    }
+
+    void read(final int key, final Blackhole bh) throws IOException {
+      key(key);
+      try {
+        bh.consume(db.get(wkb.byteArray(), wvb.byteArray()));
+      } catch (final RocksDBException ex) {
+        throw new IOException(ex);
+      }
+    }
+
+    void rmw(final int key) throws IOException {
+      key(key);
+      try {
+        db.get(wkb.byteArray(), wvb.byteArray());
+        wvb.putInt(0, wvb.getInt(0) + 1);
+        db.put(wkb.byteArray(), wvb.byteArray());
+      } catch (final RocksDBException ex) {
+        throw new IOException(ex);
+      }
+    }
+
+    void scan(final int key, final int length, final Blackhole bh) {
+      key(key);
+      try (RocksIterator iterator = db.newIterator()) {
+        iterator.seek(wkb.byteArray());
+        for (int i = 0; iterator.isValid() && i < length; i++) {
+          bh.consume(iterator.value());
+          iterator.next();
+        }
+      }
+    }
+
+    private void key(final int key) {
+      putKey(wkb, key);
+    }
+  }
+
 }
@@ -0,0 +1,83 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+import org.openjdk.jmh.infra.Control;
+
+/**
+ * Holds the writer of a mixed read/write workload to a percentage of all
+ * operations.
+ *
+ * <p>
+ * Readers record each operation in a {@link LongAdder} so they do not contend
+ * on a single counter. While it is ahead of its share the writer parks, only
+ * summing the counter once per park, so that every writer invocation performs
+ * a write rather than scoring a skipped one. It stops waiting once JMH ends the
+ * measurement, as the readers then stop counting. The ratio is an upper bound
+ * on the write share: a writer that cannot keep up simply writes less.
+ */
+final class WriteThrottle {
+
+  private static final long PARK_NANOS = 10_000;
+  private static final int PERCENT = 100;
+  private final LongAdder reads = new LongAdder();
+  private final int writePct;
+  private final AtomicLong writes = new AtomicLong();
+
+  WriteThrottle(final int writePct) {
+    if (writePct <= 0 || writePct >= PERCENT) {
+      throw new IllegalArgumentException("writePct must be 1..99");
+    }
+    this.writePct = writePct;
+  }
+
+  /**
+   * Parks until a write is within the writer's share of all operations.
+   *
+   * @param control the JMH control of the writer's invocation
+   * @return true if the write is due, false if measurement has ended
+   */
+  boolean awaitWrite(final Control control) {
+    while (!tryWrite()) {
+      if (control.stopMeasurement) {
+        return false;
+      }
+      parkNanos(PARK_NANOS);
+    }
+    return true;
+  }
+
+  void read() {
+    reads.increment();
+  }
+
+  private boolean tryWrite() {
+    final long w = writes.get();
+    if (w * (PERCENT - writePct) > reads.sum() * writePct) {
+      return false;
+    }
+    writes.incrementAndGet();
+    return true;
+  }
+}
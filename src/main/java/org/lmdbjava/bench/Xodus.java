@@ -20,37 +20,61 @@
 
 package org.lmdbjava.bench;
 
+import java.io.File;
 import java.io.IOException;
+import static java.lang.Math.min;
+import static java.lang.System.arraycopy;
 import static java.util.Arrays.copyOfRange;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import jetbrains.exodus.ArrayByteIterable;
+import jetbrains.exodus.BackupStrategy;
+import jetbrains.exodus.BackupStrategy.FileDescriptor;
 import jetbrains.exodus.ByteIterable;
 import static jetbrains.exodus.bindings.IntegerBinding.intToEntry;
-import static jetbrains.exodus.bindings.StringBinding.stringToEntry;
 import jetbrains.exodus.env.Cursor;
 import jetbrains.exodus.env.Environment;
 import jetbrains.exodus.env.EnvironmentConfig;
+import jetbrains.exodus.env.EnvironmentImpl;
 import static jetbrains.exodus.env.Environments.newInstance;
 import jetbrains.exodus.env.Store;
+import jetbrains.exodus.env.StoreConfig;
 import static jetbrains.exodus.env.StoreConfig.WITHOUT_DUPLICATES_WITH_PREFIXING;
+import static jetbrains.exodus.env.StoreConfig.WITH_DUPLICATES_WITH_PREFIXING;
 import jetbrains.exodus.env.Transaction;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
+import org.agrona.concurrent.UnsafeBuffer;
+import static org.lmdbjava.bench.BackupRecorder.copyFile;
 import static org.lmdbjava.bench.Common.RND_MB;
+import static org.lmdbjava.bench.Crasher.configure;
+import static org.lmdbjava.bench.Crasher.crash;
+import static org.lmdbjava.bench.Crasher.writing;
+import static org.lmdbjava.bench.YcsbWorkload.READ;
+import static org.lmdbjava.bench.YcsbWorkload.RMW;
+import static org.lmdbjava.bench.YcsbWorkload.SCAN;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import static org.openjdk.jmh.annotations.Level.Invocation;
+import static org.openjdk.jmh.annotations.Level.Iteration;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import org.openjdk.jmh.annotations.Measurement;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.Control;
+import org.openjdk.jmh.infra.ThreadParams;
 
 @OutputTimeUnit(MILLISECONDS)
 @Fork(1)
@@ -60,6 +84,97 @@ import org.openjdk.jmh.infra.Blackhole;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class Xodus {
 
+  @Benchmark
+  @Group("backup")
+  @GroupThreads(1)
+  public void backupCopy(final Backup b, final Blackhole bh) throws
+      IOException {
+    b.copy();
+  }
+
+  @Benchmark
+  @Group("backup")
+  @GroupThreads(3)
+  @OutputTimeUnit(NANOSECONDS)
+  public void backupRead(final BackupReader t, final Blackhole bh) {
+    final ByteIterable keyBi = t.b.key(t.nextIndex(), t.kb);
+    final Transaction tx = t.b.env.beginReadonlyTransaction();
+    final ByteIterable val = t.b.store.get(tx, keyBi);
+    if (val != null) {
+      bh.consume(val.getBytesUnsafe());
+    }
+    tx.abort();
+  }
+
+  @Benchmark
+  public void churn(final Updater u, final Blackhole bh) throws IOException {
+    u.churn();
+  }
+
+  @Benchmark
+  public void delete(final Updater u, final Blackhole bh) {
+    u.delete();
+  }
+
+  @Benchmark
+  public void dupRead(final DupReader r, final Blackhole bh) {
+    try (Cursor c = r.store.openCursor(r.tx)) {
+      for (final int idx : r.readIndexes) {
+        final ByteIterable keyBi = r.key(idx, r.kb);
+        final long start = r.latency.start();
+        ByteIterable val = c.getSearchKey(keyBi);
+        while (val != null) {
+          bh.consume(val.getBytesUnsafe());
+          val = c.getNextDup() ? c.getValue() : null;
+        }
+        r.latency.stop(start);
+      }
+    }
+  }
+
+  @Benchmark
+  public void dupWrite(final DupWriter w, final Blackhole bh) {
+    w.writeDups();
+  }
+
+  @Benchmark
+  @Warmup(iterations = 0)
+  @Measurement(iterations = 1, time = 1, timeUnit = MINUTES)
+  public void ingest(final Ingester i, final Blackhole bh) throws IOException {
+    i.ingest();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(3)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedRead(final MixedReader t, final Blackhole bh) {
+    final ByteIterable keyBi = t.m.key(t.nextIndex(), t.kb);
+    // a fresh read-only transaction observes the writer's latest commit
+    final Transaction tx = t.m.env.beginReadonlyTransaction();
+    final ByteIterable val = t.m.store.get(tx, keyBi);
+    if (val != null) {
+      bh.consume(val.getBytesUnsafe());
+    }
+    tx.abort();
+    t.m.throttle.read();
+  }
+
+  @Benchmark
+  @Group("mixed")
+  @GroupThreads(1)
+  @OutputTimeUnit(NANOSECONDS)
+  public void mixedWrite(final Mixed m, final Control c, final Blackhole bh) {
+    bh.consume(m.put(c));
+  }
+
+  @Benchmark
+  public void open(final Opener o, final Blackhole bh) {
+    o.close();
+    o.open();
+    o.firstGet(bh);
+  }
+
   @Benchmark
   public void readCrc(final Reader r, final Blackhole bh) {
     r.crc.reset();
@@ -74,17 +189,41 @@ public class Xodus {
 
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) {
-    for (final int key : r.keys) {
-      if (r.intKey) {
-        final ByteIterable val = r.store.get(r.tx, intToEntry(key));
-        if (val != null) {
-          bh.consume(val.getBytesUnsafe());
-        }
-      } else {
-        final ByteIterable val = r.store.get(r.tx, stringToEntry(r.padKey(key)));
-        if (val != null) {
-          bh.consume(val.getBytesUnsafe());
+    for (int i = 0; i < r.readIndexes.length; i++) {
+      final ByteIterable keyBi = r.key(r.readIndexes[i], r.kb);
+      final long start = r.latency.start();
+      final ByteIterable val = r.stores[r.readDbs[i]].get(r.tx, keyBi);
+      if (val != null) {
+        bh.consume(val.getBytesUnsafe());
+      }
+      r.latency.stop(start);
+    }
+  }
+
+  @Benchmark
+  public void readKeyMt(final ThreadReader t, final Blackhole bh) {
+    for (final int idx : t.r.readIndexes) {
+      final ByteIterable val = t.r.store.get(t.tx, t.r.key(idx, t.kb));
+      if (val != null) {
+        bh.consume(val.getBytesUnsafe());
+      }
+    }
+  }
+
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh) {
+    try (Cursor c = r.store.openCursor(r.tx)) {
+      for (int s = 0; s < g.scans; s++) {
+        final int idx = r.readIndexes[s % r.readIndexes.length];
+        final ByteIterable keyBi = r.key(idx, r.kb);
+        if (c.getSearchKeyRange(keyBi) == null) {
+          continue;
         }
+        int i = 0;
+        do {
+          bh.consume(c.getValue().getBytesUnsafe());
+          i++;
+        } while (i < g.rangeLength && c.getNext());
       }
     }
   }
@@ -108,6 +247,15 @@ public class Xodus {
     }
   }
 
+  @Benchmark
+  public void readSeqMt(final ThreadReader t, final Blackhole bh) {
+    try (Cursor c = t.r.store.openCursor(t.tx)) {
+      while (c.getNext()) {
+        bh.consume(c.getValue().getBytesUnsafe());
+      }
+    }
+  }
+
   @Benchmark
   public void readXxh64(final Reader r, final Blackhole bh) {
     long result = 0;
@@ -122,85 +270,410 @@ public class Xodus {
   }
 
   @Benchmark
-  public void write(final Writer w, final Blackhole bh) {
+  public void ycsb(final Ycsb y, final Blackhole bh) {
+    final YcsbWorkload w = y.w;
+    for (int i = 0; i < w.ops.length; i++) {
+      final int key = w.opKeys[i];
+      switch (w.ops[i]) {
+        case READ:
+          y.read(key, bh);
+          break;
+        case SCAN:
+          y.scan(key, w.scanLengths[i], bh);
+          break;
+        case RMW:
+          y.rmw(key);
+          break;
+        default:
+          y.put(key);
+          break;
+      }
+    }
+  }
+
+  @Benchmark
+  public void recover(final Recoverer r, final Blackhole bh) {
+    r.open();
+    r.firstGet(bh);
+  }
+
+  @Benchmark
+  public void update(final Updater u, final Blackhole bh) {
+    u.update();
+  }
+
+  @Benchmark
+  public void write(final Writer w, final Blackhole bh) throws IOException {
     w.write();
   }
 
   @State(value = Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
-  public static class CommonXodus extends Common {
+  public static class CommonXodus extends CommonTxn {
 
     Environment env;
+
+    /**
+     * Key array of the single-threaded read paths.
+     */
+    byte[] kb;
+
+    /**
+     * The first of the {@link #stores}, used by the benchmarks that only
+     * support a single database.
+     */
     Store store;
 
+    /**
+     * One store per {@link #numDbs}.
+     */
+    Store[] stores;
+
     @Override
     public void setup(final BenchmarkParams b) throws IOException {
       super.setup(b);
+      kb = new byte[keySize];
+      open();
+    }
+
+    @Override
+    public void teardown() throws IOException {
+      reportSpaceBeforeClose();
+      close();
+      super.teardown();
+    }
+
+    void close() {
+      env.close();
+    }
+
+    /**
+     * The key of the entry at the given index. Integer keys are encoded by
+     * <code>intToEntry</code>, as they must sort as integers for
+     * <code>putRight</code>. String keys are copied from the dataset.
+     *
+     * @param idx index into {@link #keys}
+     * @param dst array of at least {@link #keySize} bytes for a string key,
+     *            which Xodus keeps until commit if the key is written
+     * @return the key
+     */
+    final ByteIterable key(final int idx, final byte[] dst) {
+      if (intKey) {
+        return intToEntry(keys[idx]);
+      }
+      dataset.key(idx, dst);
+      return new ArrayByteIterable(dst, keySize);
+    }
+
+    /**
+     * Configuration of the stores, which subclasses may change.
+     *
+     * @return the store configuration
+     */
+    StoreConfig storeConfig() {
+      // WITHOUT_DUPLICATES_WITH_PREFIXING means Patricia tree is used,
+      // not B+Tree (WITHOUT_DUPLICATES)
+      // Patricia tree gives faster random access, both for reading and writing
+      return WITHOUT_DUPLICATES_WITH_PREFIXING;
+    }
 
+    /**
+     * Opens the store in {@link #tmp}, which may already hold data that was
+     * written before an earlier {@link #close()}.
+     */
+    void open() {
       final EnvironmentConfig cfg = new EnvironmentConfig();
       // size of immutable .xd file is 32MB
       cfg.setLogFileSize(32 * 1_024);
       cfg.setLogCachePageSize(0x2_0000);
+      cfg.setLogDurableWrite(durable.everyCommit());
       env = newInstance(tmp, cfg);
 
+      stores = new Store[numDbs];
       env.executeInTransaction((final Transaction txn) -> {
-        // WITHOUT_DUPLICATES_WITH_PREFIXING means Patricia tree is used,
-        // not B+Tree (WITHOUT_DUPLICATES)
-        // Patricia tree gives faster random access, both for reading and writing
-        store = env.openStore("without_dups", WITHOUT_DUPLICATES_WITH_PREFIXING,
-                              txn);
+        for (int i = 0; i < numDbs; i++) {
+          final String name = i == 0 ? "without_dups" : "without_dups" + i;
+          stores[i] = env.openStore(name, storeConfig(), txn);
+        }
       });
+      store = stores[0];
     }
 
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
     @Override
-    public void teardown() throws IOException {
-      reportSpaceBeforeClose();
-      env.close();
-      super.teardown();
+    void commit(final int from, final int to, final boolean last) {
+      env.executeInTransaction((final Transaction tx) -> {
+        for (int j = from; j < to; j++) {
+          final int key = keys[j];
+          // Xodus keeps the key and value until commit, so they need their
+          // own arrays
+          final ByteIterable keyBi = key(j, new byte[keySize]);
+          final byte[] bytes = new byte[valSize];
+          dataset.val(j, bytes);
+          final ByteIterable valBi = new ArrayByteIterable(bytes, valSize);
+          final Store db = stores[dbIndex(key)];
+          final long start = latency.start();
+          if (sequential) {
+            db.putRight(tx, keyBi, valBi);
+          } else {
+            db.put(tx, keyBi, valBi);
+          }
+          latency.stop(start);
+        }
+      });
+      // commit-sync uses durable log writes, so each commit is already synced
+      if (durable.sync(last) && !durable.everyCommit()) {
+        ((EnvironmentImpl) env).flushAndSync();
+      }
+    }
+
+    void write() throws IOException {
+      // several transactions so as not to block GC (optimal w/ valSize=16368)
+      write(Math.max(1_000_000 / valSize, 1_000));
+    }
+  }
+
+  /**
+   * Store of {@link #valuesPerKey} values for each key, in a
+   * <code>WITH_DUPLICATES_WITH_PREFIXING</code> store.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Dups extends CommonXodus {
+
+    /**
+     * Number of values of each key. Each value is {@link #valSize} bytes, of
+     * which the first four are its big-endian number.
+     */
+    @Param("10")
+    int valuesPerKey;
+
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      if (valSize < Integer.BYTES) {
+        throw new IllegalArgumentException("valSize must be at least 4");
+      }
+      super.setup(b);
+    }
+
+    @Override
+    StoreConfig storeConfig() {
+      return WITH_DUPLICATES_WITH_PREFIXING;
     }
 
     @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
-    void write() {
-      // optimal w/ valSize=16368 + default run
-      final int batchSize = Math.max(1_000_000 / valSize, 1_000);
-      final RandomBytesIterator rbi = new RandomBytesIterator(valSize);
-      int k = 0;
-      while (k < keys.length) {
-        // write in several transactions so as not to block GC
-        final int keyStartIndex = k;
-        k += batchSize;
+    void writeDups() {
+      final int size = txnSize(Math.max(1_000_000 / valSize, 1_000));
+      for (int i = 0; i < keys.length; i += size) {
+        final int from = i;
+        final int end = min(i + size, keys.length);
+        final long start = commits.start();
         env.executeInTransaction((final Transaction tx) -> {
-          for (int i = 0, j = keyStartIndex; i < batchSize && j < keys.length;
-               i++, j++) {
-            final int key = keys[j];
-            final ByteIterable keyBi;
-            final ByteIterable valBi;
-            if (intKey) {
-              keyBi = intToEntry(key);
-            } else {
-              keyBi = stringToEntry(padKey(key));
-            }
-            if (valRandom) {
-              valBi = new ArrayByteIterable(rbi.nextBytes());
-            } else {
+          for (int j = from; j < end; j++) {
+            final ByteIterable keyBi = key(j, new byte[keySize]);
+            for (int v = 0; v < valuesPerKey; v++) {
+              // Xodus keeps the value until commit, so it needs its own array
               final byte[] bytes = new byte[valSize];
-              bytes[0] = (byte) (key >>> 24);
-              bytes[1] = (byte) (key >>> 16);
-              bytes[2] = (byte) (key >>> 8);
-              bytes[3] = (byte) key;
-              valBi = new ArrayByteIterable(bytes, valSize);
-            }
-            if (sequential) {
-              store.putRight(tx, keyBi, valBi);
-            } else {
-              store.put(tx, keyBi, valBi);
+              dataset.dupVal(j, v, bytes);
+              store.put(tx, keyBi, new ArrayByteIterable(bytes, valSize));
             }
           }
         });
+        commits.stop(start, (end - i) * valuesPerKey);
       }
     }
   }
 
+  /**
+   * Populated {@link Dups} store for the "dupRead" benchmark, which reads all
+   * values of each key (in {@link #keyDistribution} order) via a cursor.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class DupReader extends Dups {
+
+    Transaction tx;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      writeDups();
+      tx = env.beginReadonlyTransaction();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      tx.abort();
+      super.teardown();
+    }
+  }
+
+  /**
+   * Empty {@link Dups} store that the "dupWrite" benchmark fills.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class DupWriter extends Dups {
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Shared, pre-populated store for the "backup" group. A single thread copies
+   * the open store using its {@link BackupStrategy} (one copy per invocation)
+   * while the other threads perform point reads, whose latency shows the cost
+   * of a hot backup to concurrent readers. The strategy suspends the log
+   * cleaner and lists the log files, of which only the listed length is copied
+   * as the last file may still grow. Use <code>-tg</code> to change the number
+   * of reader threads; the copying thread count must remain one.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Backup extends CommonXodus {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      if (BACKUP_COMPACT.equals(backup)) {
+        throw new IllegalArgumentException("Xodus has no compacting backup");
+      }
+      super.write();
+    }
+
+    @TearDown(Invocation)
+    public void clear() {
+      clearCompact();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    @SuppressWarnings("checkstyle:IllegalCatch")
+    void copy() throws IOException {
+      if (BACKUP_IDLE.equals(backup)) {
+        return;
+      }
+      final long start = backups.start();
+      final BackupStrategy strategy = env.getBackupStrategy();
+      try {
+        strategy.beforeBackup();
+        try {
+          for (final FileDescriptor fd : strategy.listFiles()) {
+            final File from = fd.getFile();
+            copyFile(from, new File(compact, from.getName()),
+                     fd.getFileSize());
+          }
+        } finally {
+          strategy.afterBackup();
+        }
+      } catch (final IOException ex) {
+        throw ex;
+      } catch (final Exception ex) {
+        throw new IOException(ex);
+      }
+      backups.stop(start, compact);
+    }
+  }
+
+  /**
+   * Per-thread state for "backup" readers. Each thread starts at a different
+   * offset into the key order.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class BackupReader {
+
+    Backup b;
+    int idx;
+    byte[] kb;
+
+    @Setup(Trial)
+    public void setup(final Backup backup, final ThreadParams tp) {
+      b = backup;
+      idx = tp.getThreadIndex() * (b.readKeys.length / tp.getThreadCount());
+      kb = new byte[b.keySize];
+    }
+
+    int nextIndex() {
+      idx++;
+      if (idx == b.readIndexes.length) {
+        idx = 0;
+      }
+      return b.readIndexes[idx];
+    }
+  }
+
+  /**
+   * Store that "ingest" writes continuously from empty, for the wall time of
+   * its single measurement iteration.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Ingester extends CommonXodus {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      reportSpaceUsed(tmp, "after-ingest");
+      super.teardown();
+    }
+  }
+
+  /**
+   * Populated store that the "open" benchmark closes and reopens, reading one
+   * key so that any work deferred until first access is included. Only
+   * meaningful with a single benchmark thread.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Opener extends CommonXodus {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void firstGet(final Blackhole bh) {
+      final ByteIterable keyBi = key(0, kb);
+      env.executeInReadonlyTransaction((final Transaction tx) -> {
+        final ByteIterable val = store.get(tx, keyBi);
+        if (val != null) {
+          bh.consume(val.getBytesUnsafe());
+        }
+      });
+    }
+  }
+
   @State(Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
   public static class Reader extends CommonXodus {
@@ -216,6 +689,18 @@ public class Xodus {
       // cannot share Cursor, as there's no Cursor.getFirst() to reset methods
     }
 
+    @Setup(Iteration)
+    public void coldCacheIteration() {
+      if (!coldCache) {
+        return;
+      }
+      tx.abort();
+      close();
+      dropPageCache(tmp);
+      open();
+      tx = env.beginReadonlyTransaction();
+    }
+
     @TearDown(Trial)
     @Override
     public void teardown() throws IOException {
@@ -224,6 +709,245 @@ public class Xodus {
     }
   }
 
+  /**
+   * Shared, pre-populated store for the "mixed" group. A single writer thread
+   * updates existing keys (one entry per committed transaction) while the
+   * other threads perform point reads. Use <code>-tg</code> to change the
+   * number of reader threads; the writer count must remain one.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Mixed extends CommonXodus {
+
+    /**
+     * Maximum percentage of all mixed operations that are writes.
+     */
+    @Param("5")
+    int writePct;
+
+    WriteThrottle throttle;
+    private RandomBytesIterator rbi;
+    private int writeIdx;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write();
+      throttle = new WriteThrottle(writePct);
+      rbi = new RandomBytesIterator(valSize);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    boolean put(final Control control) {
+      if (!throttle.awaitWrite(control)) {
+        return false;
+      }
+      final int key = keys[writeIdx];
+      // each put commits before the next, so the key array can be reused
+      final ByteIterable keyBi = key(writeIdx, kb);
+      writeIdx++;
+      if (writeIdx == keys.length) {
+        writeIdx = 0;
+      }
+      final ByteIterable valBi;
+      if (valRandom) {
+        valBi = new ArrayByteIterable(rbi.nextBytes());
+      } else {
+        final byte[] bytes = new byte[valSize];
+        bytes[0] = (byte) (key >>> 24);
+        bytes[1] = (byte) (key >>> 16);
+        bytes[2] = (byte) (key >>> 8);
+        bytes[3] = (byte) key;
+        valBi = new ArrayByteIterable(bytes, valSize);
+      }
+      final long start = latency.start();
+      env.executeInTransaction((final Transaction tx) -> {
+        store.put(tx, keyBi, valBi);
+      });
+      latency.stop(start);
+      return true;
+    }
+  }
+
+  /**
+   * Per-thread state for "mixed" readers. Each thread starts at a different
+   * offset into the key order.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class MixedReader {
+
+    int idx;
+    byte[] kb;
+    Mixed m;
+
+    @Setup(Trial)
+    public void setup(final Mixed mixed, final ThreadParams tp) {
+      m = mixed;
+      idx = tp.getThreadIndex() * (m.readKeys.length / tp.getThreadCount());
+      kb = new byte[m.keySize];
+    }
+
+    int nextIndex() {
+      idx++;
+      if (idx == m.readIndexes.length) {
+        idx = 0;
+      }
+      return m.readIndexes[idx];
+    }
+  }
+
+  /**
+   * {@link Opener} store that is left by an unclean shutdown before each
+   * "recover" invocation, as a child JVM writing to it is killed. The
+   * benchmark then measures the reopen (including any recovery) and first get.
+   */
+  @State(Benchmark)
+  public static class Recoverer extends Opener {
+
+    public static void main(final String[] args) throws IOException {
+      final Recoverer r = new Recoverer();
+      configure(r, args);
+      r.open();
+      writing();
+      while (true) {
+        r.write();
+      }
+    }
+
+    @Setup(Invocation)
+    public void crashInvocation() throws IOException {
+      close();
+      crash(Recoverer.class, this);
+    }
+  }
+
+  /**
+   * Per-thread read-only transaction over the shared {@link Reader} store,
+   * allowing read benchmarks to be run with any JMH thread count. It is begun
+   * per iteration, as the store may be reopened between iterations.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    byte[] kb;
+    Reader r;
+    Transaction tx;
+
+    @Setup(Iteration)
+    public void setup(final Reader reader) {
+      r = reader;
+      kb = new byte[r.keySize];
+      tx = r.env.beginReadonlyTransaction();
+    }
+
+    @TearDown(Iteration)
+    public void teardown() {
+      tx.abort();
+    }
+  }
+
+  /**
+   * Populated store for the "update", "delete" and "churn" benchmarks. It is
+   * rebuilt before each invocation, so every invocation starts from a store
+   * holding all {@link #keys}.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Updater extends CommonXodus {
+
+    /**
+     * Number of delete-all and reinsert-all cycles in each "churn" invocation.
+     * Space used is reported after each cycle.
+     */
+    @Param("3")
+    int churnCycles;
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      // latency is only recorded by the "readKey" and "write" benchmarks
+      latency.measuring(false);
+      commits.paused(true);
+      super.write();
+      commits.paused(false);
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void churn() throws IOException {
+      for (int cycle = 1; cycle <= churnCycles; cycle++) {
+        delete();
+        write();
+        reportSpaceUsed(tmp, "churn-" + cycle);
+      }
+    }
+
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    void delete() {
+      final int batchSize = txnSize(Math.max(1_000_000 / valSize, 1_000));
+      for (int k = 0; k < keys.length; k += batchSize) {
+        final int keyStartIndex = k;
+        final int end = min(keyStartIndex + batchSize, keys.length);
+        final long start = commits.start();
+        env.executeInTransaction((final Transaction tx) -> {
+          for (int j = keyStartIndex; j < end; j++) {
+            store.delete(tx, key(j, new byte[keySize]));
+          }
+        });
+        if (durable.sync(end == keys.length) && !durable.everyCommit()) {
+          ((EnvironmentImpl) env).flushAndSync();
+        }
+        commits.stop(start, end - keyStartIndex);
+      }
+    }
+
+    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
+    void update() {
+      final int batchSize = txnSize(Math.max(1_000_000 / valSize, 1_000));
+      final RandomBytesIterator rbi = new RandomBytesIterator(valSize);
+      for (int k = 0; k < keys.length; k += batchSize) {
+        final int keyStartIndex = k;
+        final int end = min(keyStartIndex + batchSize, keys.length);
+        final long start = commits.start();
+        env.executeInTransaction((final Transaction tx) -> {
+          for (int j = keyStartIndex; j < end; j++) {
+            final int key = keys[j];
+            final ByteIterable valBi;
+            if (valRandom) {
+              valBi = new ArrayByteIterable(rbi.nextBytes());
+            } else {
+              final byte[] bytes = new byte[valSize];
+              bytes[0] = (byte) (key >>> 24);
+              bytes[1] = (byte) (key >>> 16);
+              bytes[2] = (byte) (key >>> 8);
+              bytes[3] = (byte) key;
+              valBi = new ArrayByteIterable(bytes, valSize);
+            }
+            // put rather than putRight, as every key is already present
+            store.put(tx, key(j, new byte[keySize]), valBi);
+          }
+        });
+        if (durable.sync(end == keys.length) && !durable.everyCommit()) {
+          ((EnvironmentImpl) env).flushAndSync();
+        }
+        commits.stop(start, end - keyStartIndex);
+      }
+    }
+  }
+
   @State(Benchmark)
   public static class Writer extends CommonXodus {
 
@@ -253,7 +977,7 @@ public class Xodus {
     }
 
     byte[] nextBytes() {
-      final byte[] result = copyOfRange(RND_MB, i, valSize);
+      final byte[] result = copyOfRange(RND_MB, i, i + valSize);
       i += valSize;
       if (i >= rndByteMax) {
         i = 0;
@@ -261,4 +985,101 @@ public class Xodus {
       return result;
     }
   }
+
+  /**
+   * Populated store driven by a {@link YcsbWorkload} operation stream. Each
+   * read, scan, update, insert and read-modify-write is its own transaction.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Ycsb extends CommonXodus {
+
+    private UnsafeBuffer ykb;
+    private RandomBytesIterator rbi;
+    YcsbWorkload w;
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final YcsbWorkload workload)
+        throws IOException {
+      super.setup(b);
+      super.write();
+      rbi = new RandomBytesIterator(valSize);
+      ykb = new UnsafeBuffer(new byte[keySize]);
+      w = workload;
+      w.generate(keys, sequential);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void put(final int key) {
+      final ByteIterable keyBi = key(key);
+      final ByteIterable valBi;
+      if (valRandom) {
+        valBi = new ArrayByteIterable(rbi.nextBytes());
+      } else {
+        final byte[] bytes = new byte[valSize];
+        bytes[0] = (byte) (key >>> 24);
+        bytes[1] = (byte) (key >>> 16);
+        bytes[2] = (byte) (key >>> 8);
+        bytes[3] = (byte) key;
+        valBi = new ArrayByteIterable(bytes, valSize);
+      }
+      env.executeInTransaction((final Transaction tx) -> {
+        store.put(tx, keyBi, valBi);
+      });
+    }
+
+    void read(final int key, final Blackhole bh) {
+      final ByteIterable keyBi = key(key);
+      env.executeInReadonlyTransaction((final Transaction tx) -> {
+        final ByteIterable val = store.get(tx, keyBi);
+        if (val != null) {
+          bh.consume(val.getBytesUnsafe());
+        }
+      });
+    }
+
+    void rmw(final int key) {
+      final ByteIterable keyBi = key(key);
+      env.executeInTransaction((final Transaction tx) -> {
+        final byte[] bytes = new byte[valSize];
+        final ByteIterable old = store.get(tx, keyBi);
+        if (old != null) {
+          arraycopy(old.getBytesUnsafe(), 0, bytes, 0,
+                    min(old.getLength(), valSize));
+        }
+        bytes[3]++;
+        store.put(tx, keyBi, new ArrayByteIterable(bytes, valSize));
+      });
+    }
+
+    void scan(final int key, final int length, final Blackhole bh) {
+      final ByteIterable keyBi = key(key);
+      env.executeInReadonlyTransaction((final Transaction tx) -> {
+        try (Cursor c = store.openCursor(tx)) {
+          if (c.getSearchKeyRange(keyBi) == null) {
+            return;
+          }
+          int i = 0;
+          do {
+            bh.consume(c.getValue().getBytesUnsafe());
+            i++;
+          } while (i < length && c.getNext());
+        }
+      });
+    }
+
+    private ByteIterable key(final int key) {
+      if (intKey) {
+        return intToEntry(key);
+      }
+      // each operation commits before the next, so the array can be reused
+      putKey(ykb, key);
+      return new ArrayByteIterable(ykb.byteArray(), keySize);
+    }
+  }
 }
@@ -0,0 +1,224 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.lang.Integer.parseInt;
+import static java.util.Locale.ROOT;
+import org.agrona.collections.IntHashSet;
+import org.apache.commons.math3.random.BitsStreamGenerator;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.openjdk.jmh.annotations.Param;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * YCSB core workload (A to F) parameters and the pre-computed operation stream
+ * that each store's "ycsb" benchmark replays against its populated store.
+ *
+ * <p>
+ * The stream is generated once per trial so that choosing keys costs nothing
+ * during measurement. Keys inserted by the stream are new keys beyond those in
+ * {@link Common#keys}; later invocations replay the same stream, so their
+ * inserts become updates of the keys inserted by the first invocation.
+ *
+ * <p>
+ * Members do not reflect the typical code standards of the LmdbJava project due
+ * to compliance requirements with JMH {@link Param} and {@link State}.
+ */
+@State(Benchmark)
+@SuppressWarnings({"checkstyle:designforextension",
+                   "checkstyle:visibilitymodifier"})
+public class YcsbWorkload {
+
+  static final byte INSERT = 2;
+  static final byte READ = 0;
+  static final byte RMW = 4;
+  static final byte SCAN = 3;
+  static final byte UPDATE = 1;
+
+  private static final int MAX_SCAN_LENGTH = 100;
+  private static final int PERCENT = 100;
+  private static final BitsStreamGenerator RND = new MersenneTwister();
+
+  /**
+   * Optional override of the workload's operation mix, expressed as
+   * "read:update:insert:scan:rmw" percentages (eg "50:50:0:0:0"). The
+   * workload's request distribution is still used.
+   */
+  @Param("")
+  String mix;
+
+  /**
+   * Operation (one of the constants in this class) for each step.
+   */
+  byte[] ops;
+
+  /**
+   * Key for each step.
+   */
+  int[] opKeys;
+
+  /**
+   * Number of operations performed by each benchmark invocation.
+   */
+  @Param("100000")
+  int operations;
+
+  /**
+   * Number of entries to return for each {@link #SCAN} step.
+   */
+  int[] scanLengths;
+
+  /**
+   * YCSB core workload: A (update heavy), B (read mostly), C (read only), D
+   * (read latest), E (short ranges) or F (read-modify-write).
+   */
+  @Param("A")
+  String workload;
+
+  private static int[] defaultMix(final String workload) {
+    switch (workload.toUpperCase(ROOT)) {
+      case "A":
+        return new int[]{50, 50, 0, 0, 0};
+      case "B":
+        return new int[]{95, 5, 0, 0, 0};
+      case "C":
+        return new int[]{100, 0, 0, 0, 0};
+      case "D":
+        return new int[]{95, 0, 5, 0, 0};
+      case "E":
+        return new int[]{0, 0, 5, 95, 0};
+      case "F":
+        return new int[]{50, 0, 0, 0, 50};
+      default:
+        throw new IllegalArgumentException("Unknown workload " + workload);
+    }
+  }
+
+  private static int[] parseMix(final String mix) {
+    final String[] parts = mix.split(":");
+    if (parts.length != RMW + 1) {
+      throw new IllegalArgumentException("mix needs 5 percentages: " + mix);
+    }
+    final int[] pct = new int[parts.length];
+    int total = 0;
+    for (int i = 0; i < parts.length; i++) {
+      pct[i] = parseInt(parts[i].trim());
+      total += pct[i];
+    }
+    if (total != PERCENT) {
+      throw new IllegalArgumentException("mix must total 100: " + mix);
+    }
+    return pct;
+  }
+
+  /**
+   * Whether the stream contains operations that need an ordered store.
+   *
+   * @return true if any step is a {@link #SCAN}
+   */
+  boolean needsOrderedKeys() {
+    for (final byte op : ops) {
+      if (op == SCAN) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Generates the operation stream over the store's existing keys.
+   *
+   * @param keys       keys already in the store
+   * @param sequential whether the store's keys are sequential
+   */
+  void generate(final int[] keys, final boolean sequential) {
+    final int[] pct = mix.isEmpty() ? defaultMix(workload) : parseMix(mix);
+    final boolean latest = "D".equalsIgnoreCase(workload);
+    final int insertCount = operations * pct[INSERT] / PERCENT + 1;
+    final int[] inserted = insertKeys(keys, sequential, insertCount);
+    final Zipfian zipf = new Zipfian(keys.length, Zipfian.YCSB_THETA);
+    ops = new byte[operations];
+    opKeys = new int[operations];
+    scanLengths = new int[operations];
+    int inserts = 0;
+    for (int i = 0; i < operations; i++) {
+      final byte op = pick(pct, RND.nextInt(PERCENT));
+      ops[i] = op;
+      if (op == INSERT && inserts < inserted.length) {
+        opKeys[i] = inserted[inserts++];
+        continue;
+      }
+      if (op == INSERT) {
+        ops[i] = UPDATE;
+      }
+      final long rank = zipf.next(RND.nextDouble());
+      if (latest) {
+        // most recent insert is most popular, so walk back from the newest key
+        final long newest = keys.length + (long) inserts - 1;
+        final long idx = newest - rank;
+        opKeys[i] = idx >= keys.length ? inserted[(int) (idx - keys.length)]
+                        : keys[(int) idx];
+      } else {
+        opKeys[i] = keys[(int) zipf.scramble(rank)];
+      }
+      if (op == SCAN) {
+        scanLengths[i] = 1 + RND.nextInt(MAX_SCAN_LENGTH);
+      }
+    }
+  }
+
+  private static byte pick(final int[] pct, final int roll) {
+    int cumulative = 0;
+    for (byte op = 0; op < pct.length; op++) {
+      cumulative += pct[op];
+      if (roll < cumulative) {
+        return op;
+      }
+    }
+    return READ;
+  }
+
+  @SuppressWarnings("checkstyle:ReturnCount")
+  private static int[] insertKeys(final int[] keys, final boolean sequential,
+                                  final int count) {
+    final int[] result = new int[count];
+    if (sequential) {
+      for (int i = 0; i < count; i++) {
+        result[i] = keys.length + i;
+      }
+      return result;
+    }
+    final IntHashSet used = new IntHashSet(keys.length + count);
+    for (final int key : keys) {
+      used.add(key);
+    }
+    for (int i = 0; i < count; i++) {
+      int candidate;
+      do {
+        candidate = RND.nextInt() & Integer.MAX_VALUE;
+      } while (used.contains(candidate));
+      used.add(candidate);
+      result[i] = candidate;
+    }
+    return result;
+  }
+}
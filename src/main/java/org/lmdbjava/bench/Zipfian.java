@@ -0,0 +1,107 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.lang.Math.pow;
+
+/**
+ * Zipfian distributed ranks in <code>[0, items)</code>, where rank 0 is the
+ * most popular.
+ *
+ * <p>
+ * Uses the algorithm from Gray et al., "Quickly Generating Billion-Record
+ * Synthetic Databases" (SIGMOD 1994), as also used by YCSB. Construction is
+ * O(items), after which each rank is computed in constant time from a uniform
+ * double supplied by the caller.
+ */
+final class Zipfian {
+
+  /**
+   * The skew YCSB uses by default for its "zipfian" request distribution.
+   */
+  static final double YCSB_THETA = 0.99;
+
+  private final double alpha;
+  private final double eta;
+  private final long items;
+  private final double theta;
+  private final double zetan;
+
+  Zipfian(final long items, final double theta) {
+    if (items < 2) {
+      throw new IllegalArgumentException("items must be at least 2");
+    }
+    if (theta <= 0 || theta >= 1) {
+      throw new IllegalArgumentException("theta must be between 0 and 1");
+    }
+    this.items = items;
+    this.theta = theta;
+    final double zeta2 = zeta(2, theta);
+    zetan = zeta(items, theta);
+    alpha = 1.0 / (1.0 - theta);
+    eta = (1 - pow(2.0 / items, 1 - theta)) / (1 - zeta2 / zetan);
+  }
+
+  private static double zeta(final long n, final double theta) {
+    double sum = 0;
+    for (long i = 1; i <= n; i++) {
+      sum += 1 / pow(i, theta);
+    }
+    return sum;
+  }
+
+  /**
+   * Maps a rank onto an item so that popular items are spread over the whole
+   * item range instead of clustering at its start (YCSB "scrambled zipfian").
+   *
+   * @param rank a rank returned by {@link #next(double)}
+   * @return the item index
+   */
+  long scramble(final long rank) {
+    // FNV-1a over the rank's bytes
+    long hash = 0xCBF2_9CE4_8422_2325L;
+    long val = rank;
+    for (int i = 0; i < Long.BYTES; i++) {
+      hash ^= val & 0xFF;
+      hash *= 0x100_0000_01B3L;
+      val >>>= Byte.SIZE;
+    }
+    return (hash & Long.MAX_VALUE) % items;
+  }
+
+  /**
+   * Returns the next rank.
+   *
+   * @param uniform a uniform random double in <code>[0, 1)</code>
+   * @return the rank, where 0 is the most popular
+   */
+  long next(final double uniform) {
+    final double uz = uniform * zetan;
+    if (uz < 1.0) {
+      return 0;
+    }
+    if (uz < 1.0 + pow(0.5, theta)) {
+      return 1;
+    }
+    final long rank = (long) (items * pow(eta * uniform - eta + 1, alpha));
+    return rank >= items ? items - 1 : rank;
+  }
+}
@@ -0,0 +1,107 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.lmdbjava.bench.Common.readOrder;
+import org.junit.Test;
+
+public final class CommonTest {
+
+  private static final int N = 1_000;
+
+  @Test
+  public void distributionsAreWithinKeys() {
+    final String[] names = {"uniform", "zipfian", "zipfian(0.5)", "hotspot",
+                            "hotspot(0.1)", "latest"};
+    for (final String name : names) {
+      for (final int idx : readOrder(name, N)) {
+        assertTrue(name, idx >= 0 && idx < N);
+      }
+    }
+  }
+
+  @Test
+  public void hotspotFavoursItsFraction() {
+    final int[] counts = counts(readOrder("hotspot(0.1)", N));
+    int hot = 0;
+    for (final int count : counts) {
+      if (count > 3) {
+        hot++;
+      }
+    }
+    // 90% of reads over 100 keys averages 9 per hot key, against 0.1 per cold
+    assertTrue(hot > N / 20 && hot <= N / 10);
+  }
+
+  @Test
+  public void insertReadsEveryKeyInOrder() {
+    final int[] order = readOrder("insert", N);
+    assertThat(order.length, is(N));
+    for (int i = 0; i < N; i++) {
+      assertThat(order[i], is(i));
+    }
+  }
+
+  @Test
+  public void latestFavoursTheLastKey() {
+    final int[] counts = counts(readOrder("latest", N));
+    for (int i = 0; i < N - 1; i++) {
+      assertTrue(counts[N - 1] >= counts[i]);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsHotspotFractionOfOne() {
+    readOrder("hotspot(1)", N);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsMalformedDistribution() {
+    readOrder("zipfian(0.5", N);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnknownDistribution() {
+    readOrder("normal", N);
+  }
+
+  @Test
+  public void zipfianFavoursFewKeys() {
+    final int[] counts = counts(readOrder("zipfian", N));
+    int max = 0;
+    for (final int count : counts) {
+      max = Math.max(max, count);
+    }
+    // the most popular of 1,000 keys receives about 13% of reads
+    assertTrue(max > N / 20);
+  }
+
+  private static int[] counts(final int[] order) {
+    final int[] counts = new int[N];
+    for (final int idx : order) {
+      counts[idx]++;
+    }
+    return counts;
+  }
+}
@@ -0,0 +1,129 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.lang.Double.isNaN;
+import java.util.TreeMap;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.lmdbjava.bench.Compare.change;
+import static org.lmdbjava.bench.Compare.pValue;
+import org.junit.Test;
+
+public final class CompareTest {
+
+  private static final String BENCH = "org.lmdbjava.bench.LmdbJavaAgrona.write";
+  private static final double DELTA = 1e-4;
+  private static final double P_ERRORS = 0.0480;
+  private static final double P_WELCH = 0.0214;
+
+  /**
+   * Error of a 10 sample score whose standard error is 1: the 99.95th
+   * percentile of Student's t with 9 degrees of freedom.
+   */
+  private static final double UNIT_ERROR_10 = 4.780_912_586;
+
+  @Test
+  public void changeIsPercentOfBaseline() {
+    assertEquals(10.0, change(score(100), score(110)), DELTA);
+    assertEquals(-25.0, change(score(200), score(150)), DELTA);
+  }
+
+  @Test
+  public void changeOfZeroScoresIsZero() {
+    assertThat(change(score(0), score(0)), is(0.0));
+  }
+
+  @Test
+  public void changeFromZeroBaselineIsUndefined() {
+    assertTrue(isNaN(change(score(0), score(5))));
+  }
+
+  @Test
+  public void welchTestOfSamples() {
+    // Welch's (1947) unequal variances example: t = -2.46, df = 24.99
+    final Result a = samples(27.5, 21.0, 19.0, 23.6, 17.0, 17.9, 16.9, 20.1,
+                             21.9, 22.6, 23.1, 19.6, 19.0, 21.7, 21.4);
+    final Result b = samples(27.1, 22.0, 20.8, 23.4, 23.4, 23.5, 25.8, 22.0,
+                             24.8, 20.2, 21.9, 22.1, 22.9, 20.5, 24.4);
+    assertEquals(P_WELCH, pValue(a, b), DELTA);
+    assertEquals(P_WELCH, pValue(b, a), DELTA);
+  }
+
+  @Test
+  public void welchTestOfScoreErrors() {
+    // standard errors of 1, so t = 3 / sqrt(2) with 18 degrees of freedom
+    final Result a = new Result(BENCH, "thrpt", new TreeMap<>(), 100,
+                                UNIT_ERROR_10, "ops/s", 10, null);
+    final Result b = new Result(BENCH, "thrpt", new TreeMap<>(), 103,
+                                UNIT_ERROR_10, "ops/s", 10, null);
+    assertEquals(P_ERRORS, pValue(a, b), DELTA);
+  }
+
+  @Test
+  public void equalScoresWithoutVarianceAreNotSignificant() {
+    assertThat(pValue(samples(5, 5, 5), samples(5, 5, 5)), is(1.0));
+  }
+
+  @Test
+  public void differentScoresWithoutVarianceAreSignificant() {
+    assertThat(pValue(samples(5, 5, 5), samples(6, 6, 6)), is(0.0));
+    final Result a = new Result(BENCH, "thrpt", new TreeMap<>(), 5, 0,
+                                "ops/s", 3, null);
+    final Result b = new Result(BENCH, "thrpt", new TreeMap<>(), 6, 0,
+                                "ops/s", 3, null);
+    assertThat(pValue(a, b), is(0.0));
+  }
+
+  @Test
+  public void oneResultWithoutVarianceIsTested() {
+    final double p = pValue(samples(5, 5, 5), samples(4, 5, 6, 7));
+    assertTrue(p > 0 && p < 1);
+  }
+
+  @Test
+  public void tinyVariancesDoNotUnderflow() {
+    final double p = pValue(samples(1, 1 + 1e-160, 1 - 1e-160),
+                            samples(1, 1 + 2e-160, 1 - 2e-160));
+    assertEquals(1.0, p, DELTA);
+  }
+
+  @Test
+  public void singleSampleHasNoPValue() {
+    assertTrue(isNaN(pValue(score(100), score(110))));
+  }
+
+  private static Result samples(final double... samples) {
+    double sum = 0;
+    for (final double s : samples) {
+      sum += s;
+    }
+    return new Result(BENCH, "thrpt", new TreeMap<>(), sum / samples.length, 0,
+                      "ops/s", samples.length, samples);
+  }
+
+  private static Result score(final double score) {
+    return new Result(BENCH, "ss", new TreeMap<>(), score, 0, "ops/s", 1,
+                      null);
+  }
+}
@@ -0,0 +1,104 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public final class DurabilityTest {
+
+  @Test
+  public void commitSyncSyncsEveryCommit() {
+    final Durability d = new Durability("commit-sync");
+    assertTrue(d.everyCommit());
+    assertFalse(d.none());
+    for (int i = 0; i < 5; i++) {
+      assertTrue(d.sync(false));
+    }
+    assertTrue(d.sync(true));
+  }
+
+  @Test
+  public void groupCommitSyncsEveryNthCommit() {
+    final Durability d = new Durability("group-commit-3");
+    assertFalse(d.everyCommit());
+    assertFalse(d.none());
+    final boolean[] expected = {false, false, true, false, false, true};
+    for (final boolean sync : expected) {
+      assertThat(d.sync(false), is(sync));
+    }
+  }
+
+  @Test
+  public void groupCommitSyncsLastCommit() {
+    final Durability d = new Durability("group-commit-3");
+    assertFalse(d.sync(false));
+    assertTrue(d.sync(true));
+    // the group starts again after a sync
+    assertFalse(d.sync(false));
+    assertFalse(d.sync(false));
+    assertTrue(d.sync(false));
+  }
+
+  @Test
+  public void groupCommitOfOneSyncsEveryCommit() {
+    final Durability d = new Durability("group-commit-1");
+    assertTrue(d.everyCommit());
+    assertTrue(d.sync(false));
+  }
+
+  @Test
+  public void noneNeverSyncs() {
+    final Durability d = new Durability("none");
+    assertTrue(d.none());
+    assertFalse(d.everyCommit());
+    assertFalse(d.sync(false));
+    assertFalse(d.sync(true));
+  }
+
+  @Test
+  public void surroundingWhitespaceIsIgnored() {
+    assertTrue(new Durability(" commit-sync ").everyCommit());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsEmpty() {
+    new Durability("");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsGroupOfZero() {
+    new Durability("group-commit-0");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsGroupWithoutSize() {
+    new Durability("group-commit-x");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnknown() {
+    new Durability("bogus");
+  }
+}
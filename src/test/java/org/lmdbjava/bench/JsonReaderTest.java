@@ -0,0 +1,100 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import org.junit.Test;
+
+public final class JsonReaderTest {
+
+  @Test
+  public void readsLiterals() throws IOException {
+    assertThat(value("true"), is(Boolean.TRUE));
+    assertThat(value("false"), is(Boolean.FALSE));
+    assertThat(value("null"), is(nullValue()));
+    assertThat(value("-1.5e3"), is(-1500.0));
+    assertThat(value(" 42 "), is(42.0));
+    assertThat(value("NaN"), is(Double.NaN));
+  }
+
+  @Test
+  public void readsEscapedStrings() throws IOException {
+    assertThat(value("\"a\\\"b\\\\c\\/d\\n\\t\\u00e9\""),
+               is("a\"b\\c/d\n\t\u00e9"));
+  }
+
+  @Test
+  public void readsNestedValuesInOrder() throws IOException {
+    final Map<?, ?> obj = (Map<?, ?>) value(
+        "{ \"b\" : [1, [], {}], \"a\" : { \"c\" : \"d\" } }");
+    assertThat(obj.keySet().toString(), is("[b, a]"));
+    final List<?> arr = (List<?>) obj.get("b");
+    assertThat(arr.size(), is(3));
+    assertThat(arr.get(0), is(1.0));
+    assertThat(((List<?>) arr.get(1)).isEmpty(), is(true));
+    assertThat(((Map<?, ?>) arr.get(2)).isEmpty(), is(true));
+    assertThat(((Map<?, ?>) obj.get("a")).get("c"), is("d"));
+  }
+
+  @Test
+  public void streamsTopLevelArray() throws IOException {
+    final JsonReader json
+        = new JsonReader(new StringReader(" [ {}, 2 ,\"x\"] "));
+    json.begin('[');
+    assertThat(json.next(']'), is(true));
+    assertThat(((Map<?, ?>) json.value()).isEmpty(), is(true));
+    assertThat(json.next(']'), is(true));
+    assertThat(json.value(), is(2.0));
+    assertThat(json.next(']'), is(true));
+    assertThat(json.value(), is("x"));
+    assertThat(json.next(']'), is(false));
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsInvalidLiteral() throws IOException {
+    value("tru");
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsMissingColon() throws IOException {
+    value("{\"a\" 1}");
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsUnterminatedArray() throws IOException {
+    value("[1, 2");
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsUnterminatedString() throws IOException {
+    value("\"abc");
+  }
+
+  private static Object value(final String json) throws IOException {
+    return new JsonReader(new StringReader(json)).value();
+  }
+}
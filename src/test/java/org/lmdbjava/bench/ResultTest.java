@@ -0,0 +1,146 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import java.io.IOException;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.delete;
+import static java.nio.file.Files.write;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public final class ResultTest {
+
+  private static final String CSV_HEADER = "\"Benchmark\",\"Mode\",\"Threads\","
+      + "\"Samples\",\"Score\",\"Score Error (99.9%)\",\"Unit\","
+      + "\"Param: intKey\",\"Param: num\"\n";
+  private static final double DELTA = 1e-9;
+
+  @Test
+  public void readsCsv() throws IOException {
+    final List<Result> results = read(".csv", CSV_HEADER
+        + "\"org.lmdbjava.bench.LmdbJavaAgrona.readKey\",\"thrpt\",1,10,"
+        + "1234.5,12.25,\"ops/s\",true,1000\n");
+    assertThat(results.size(), is(1));
+    final Result r = results.get(0);
+    assertThat(r.benchmark, is("org.lmdbjava.bench.LmdbJavaAgrona.readKey"));
+    assertThat(r.store, is("LMDB DB"));
+    assertThat(r.method, is("readKey"));
+    assertThat(r.mode, is("thrpt"));
+    assertThat(r.count, is(10L));
+    assertEquals(1234.5, r.score, DELTA);
+    assertEquals(12.25, r.error, DELTA);
+    assertThat(r.unit, is("ops/s"));
+    assertThat(r.params.get("intKey"), is("true"));
+    assertThat(r.params.get("num"), is("1000"));
+    assertThat(r.samples, is(nullValue()));
+    assertTrue(r.higherIsBetter());
+  }
+
+  @Test
+  public void csvSkipsAnnotationsAndSecondaryResults() throws IOException {
+    final List<Result> results = read(".csv", "# JMH 1.13\n" + CSV_HEADER
+        + "\"org.lmdbjava.bench.LmdbJni.write\",\"ss\",1,3,5.0,NaN,"
+        + "\"ms/op\",false,\n"
+        + "\"org.lmdbjava.bench.LmdbJni.write:alloc.bytes.norm\",\"ss\",1,3,"
+        + "10.0,NaN,\"B/op\",false,\n");
+    assertThat(results.size(), is(1));
+    final Result r = results.get(0);
+    assertTrue(Double.isNaN(r.error));
+    assertFalse(r.higherIsBetter());
+    // empty parameters were not recorded by the run
+    assertThat(r.params.containsKey("num"), is(false));
+    assertThat(r.param("num"), is("1000000"));
+  }
+
+  @Test
+  public void csvFieldsMayQuoteCommasAndQuotes() throws IOException {
+    final List<Result> results = read(".csv", CSV_HEADER
+        + "\"org.lmdbjava.bench.RocksDb.readKey\",\"avgt\",1,2,1.5,0.5,"
+        + "\"us/op\",\"a,\"\"b\"\"\",1\n");
+    assertThat(results.get(0).params.get("intKey"), is("a,\"b\""));
+  }
+
+  @Test
+  public void readsJsonSamples() throws IOException {
+    final List<Result> results = read(".json", "[\n"
+        + "{\"benchmark\":\"org.lmdbjava.bench.Xodus.readKey\","
+        + "\"mode\":\"thrpt\",\"params\":{\"num\":\"10\"},"
+        + "\"primaryMetric\":{\"score\":2.0,\"scoreError\":0.5,"
+        + "\"scoreUnit\":\"ops/s\",\"rawData\":[[1.0,2.0],[3.0]]},"
+        + "\"secondaryMetrics\":{}},\n"
+        + "{\"benchmark\":\"org.lmdbjava.bench.Xodus.readKey:gc.pause.count\","
+        + "\"mode\":\"thrpt\",\"primaryMetric\":{\"score\":1,"
+        + "\"scoreError\":\"NaN\",\"scoreUnit\":\"counts\"}}\n"
+        + "]");
+    assertThat(results.size(), is(1));
+    final Result r = results.get(0);
+    assertThat(r.params.get("num"), is("10"));
+    assertThat(r.count, is(3L));
+    assertThat(r.samples.length, is(3));
+    assertEquals(1.0, r.samples[0], DELTA);
+    assertEquals(3.0, r.samples[2], DELTA);
+    assertThat(r.id(),
+               is("org.lmdbjava.bench.Xodus.readKey-Throughput-num-10"));
+  }
+
+  @Test
+  public void jsonHistogramSamplesAreIterationMeans() throws IOException {
+    final List<Result> results = read(".json", "[{\"benchmark\":"
+        + "\"org.lmdbjava.bench.LmdbJni.readKey\",\"mode\":\"sample\","
+        + "\"primaryMetric\":{\"score\":2.5,\"scoreError\":\"NaN\","
+        + "\"scoreUnit\":\"ns/op\",\"rawDataHistogram\":"
+        + "[[[[1.0,1],[3.0,3]],[],[[4.0,2]]]]}}]");
+    final Result r = results.get(0);
+    // the empty iteration has no mean, so is not a sample
+    assertThat(r.samples.length, is(2));
+    assertEquals(2.5, r.samples[0], DELTA);
+    assertEquals(4.0, r.samples[1], DELTA);
+    assertThat(r.params.isEmpty(), is(true));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnknownExtension() throws IOException {
+    read(".txt", "");
+  }
+
+  private static List<Result> read(final String suffix, final String content)
+      throws IOException {
+    final Path file = createTempFile("result", suffix);
+    try {
+      write(file, content.getBytes(ISO_8859_1));
+      final List<Result> results = new ArrayList<>();
+      Result.read(file, results);
+      return results;
+    } finally {
+      delete(file);
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2017 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.lang.Math.abs;
+import static java.lang.Math.nextDown;
+import static java.lang.Math.pow;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+
+public final class ZipfianTest {
+
+  private static final int DRAWS = 100_000;
+  private static final int ITEMS = 1_000;
+
+  @Test
+  public void mostPopularRankIsZero() {
+    final Zipfian zipf = new Zipfian(ITEMS, 0.99);
+    assertThat(zipf.next(0.0), is(0L));
+  }
+
+  @Test
+  public void ranksAreWithinItems() {
+    final Zipfian zipf = new Zipfian(ITEMS, 0.99);
+    for (int i = 0; i < DRAWS; i++) {
+      final long rank = zipf.next((double) i / DRAWS);
+      assertTrue(rank >= 0 && rank < ITEMS);
+    }
+    assertThat(zipf.next(nextDown(1.0)), is(ITEMS - 1L));
+  }
+
+  @Test
+  public void ranksFallInPopularity() {
+    final int[] counts = draw(new Zipfian(ITEMS, 0.99));
+    assertTrue(counts[0] > counts[1]);
+    assertTrue(counts[1] > counts[2]);
+    assertTrue(counts[2] > counts[ITEMS - 1]);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsOneItem() {
+    new Zipfian(1, 0.99);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsThetaOfOne() {
+    new Zipfian(ITEMS, 1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsThetaOfZero() {
+    new Zipfian(ITEMS, 0);
+  }
+
+  @Test
+  public void scrambleIsWithinItemsAndStable() {
+    final Zipfian zipf = new Zipfian(ITEMS, 0.99);
+    for (long rank = 0; rank < ITEMS; rank++) {
+      final long item = zipf.scramble(rank);
+      assertTrue(item >= 0 && item < ITEMS);
+      assertThat(zipf.scramble(rank), is(item));
+    }
+  }
+
+  @Test
+  public void shareOfRankZeroIsOneOverZeta() {
+    final double theta = 0.99;
+    double zeta = 0;
+    for (int i = 1; i <= ITEMS; i++) {
+      zeta += 1 / pow(i, theta);
+    }
+    final int[] counts = draw(new Zipfian(ITEMS, theta));
+    assertTrue(abs(counts[0] - DRAWS / zeta) <= 1);
+  }
+
+  // ranks of evenly spaced uniforms, so the counts are exact
+  private static int[] draw(final Zipfian zipf) {
+    final int[] counts = new int[ITEMS];
+    for (int i = 0; i < DRAWS; i++) {
+      counts[(int) zipf.next((i + 0.5) / DRAWS)]++;
+    }
+    return counts;
+  }
+}